@@ -1,24 +1,108 @@
 package com.masyaman.datapack.reflection;
 
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
 import java.lang.reflect.Field;
 
+import static java.lang.invoke.MethodType.methodType;
+
+/**
+ * Reads field with method handle, so access is checked once on creation.
+ * Primitive fields are also read without boxing by variant of matching type.
+ */
 public class FieldGetter<T> implements Getter<T> {
 
     private Field field;
     private TypeDescriptor typeDescriptor;
+    private MethodHandle getter;
+    private MethodHandle primitiveGetter;
 
+    /**
+     * @param field field, it should be accessible
+     */
     public FieldGetter(Field field, TypeDescriptor typeDescriptor) {
         this.field = field;
         this.typeDescriptor = typeDescriptor;
+        MethodHandle handle;
+        try {
+            handle = MethodHandles.lookup().unreflectGetter(field);
+        } catch (IllegalAccessException e) {
+            throw new IllegalArgumentException("Field " + field.getName() + " is not accessible", e);
+        }
+        getter = handle.asType(methodType(Object.class, Object.class));
+        if (field.getType().isPrimitive()) {
+            primitiveGetter = handle.asType(methodType(field.getType(), Object.class));
+        }
     }
 
     @Override
     public T get(Object o) throws ReflectiveOperationException {
-        return (T) field.get(o);
+        try {
+            return (T) getter.invokeExact(o);
+        } catch (Throwable e) {
+            throw rethrow(e);
+        }
+    }
+
+    @Override
+    public long getLong(Object o) throws ReflectiveOperationException {
+        if (field.getType() != long.class) {
+            return Getter.super.getLong(o);
+        }
+        try {
+            return (long) primitiveGetter.invokeExact(o);
+        } catch (Throwable e) {
+            throw rethrow(e);
+        }
+    }
+
+    @Override
+    public int getInt(Object o) throws ReflectiveOperationException {
+        if (field.getType() != int.class) {
+            return Getter.super.getInt(o);
+        }
+        try {
+            return (int) primitiveGetter.invokeExact(o);
+        } catch (Throwable e) {
+            throw rethrow(e);
+        }
+    }
+
+    @Override
+    public double getDouble(Object o) throws ReflectiveOperationException {
+        if (field.getType() != double.class) {
+            return Getter.super.getDouble(o);
+        }
+        try {
+            return (double) primitiveGetter.invokeExact(o);
+        } catch (Throwable e) {
+            throw rethrow(e);
+        }
+    }
+
+    @Override
+    public float getFloat(Object o) throws ReflectiveOperationException {
+        if (field.getType() != float.class) {
+            return Getter.super.getFloat(o);
+        }
+        try {
+            return (float) primitiveGetter.invokeExact(o);
+        } catch (Throwable e) {
+            throw rethrow(e);
+        }
     }
 
     @Override
     public TypeDescriptor<?> type() {
         return typeDescriptor;
     }
+
+    static ReflectiveOperationException rethrow(Throwable e) {
+        if (e instanceof RuntimeException) {
+            throw (RuntimeException) e;
+        } else if (e instanceof Error) {
+            throw (Error) e;
+        }
+        return new ReflectiveOperationException("Unable to access field", e);
+    }
 }
@@ -1,24 +1,110 @@
 package com.masyaman.datapack.reflection;
 
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
 import java.lang.reflect.Field;
 
+import static com.masyaman.datapack.reflection.FieldGetter.rethrow;
+import static java.lang.invoke.MethodType.methodType;
+
+/**
+ * Sets field with method handle, so access is checked once on creation.
+ * Primitive fields are also set without boxing by variant of matching type.
+ */
 public class FieldSetter implements Setter {
 
     private Field field;
     private TypeDescriptor typeDescriptor;
+    private MethodHandle setter;
+    private MethodHandle primitiveSetter;
 
+    /**
+     * @param field non-final field, it should be accessible
+     */
     public FieldSetter(Field field, TypeDescriptor typeDescriptor) {
         this.field = field;
         this.typeDescriptor = typeDescriptor;
+        MethodHandle handle;
+        try {
+            handle = MethodHandles.lookup().unreflectSetter(field);
+        } catch (IllegalAccessException e) {
+            throw new IllegalArgumentException("Field " + field.getName() + " is not accessible", e);
+        }
+        setter = handle.asType(methodType(void.class, Object.class, Object.class));
+        if (field.getType().isPrimitive()) {
+            primitiveSetter = handle.asType(methodType(void.class, Object.class, field.getType()));
+        }
     }
 
     @Override
     public void set(Object o, Object value) throws ReflectiveOperationException {
-        field.set(o, value);
+        if (value == null && field.getType().isPrimitive()) {
+            throw new IllegalArgumentException("Unable to set null to primitive field " + field.getName());
+        }
+        try {
+            setter.invokeExact(o, value);
+        } catch (ClassCastException e) {
+            // Handle doesn't widen boxed primitives, like Integer set to long field
+            field.set(o, value);
+        } catch (Throwable e) {
+            throw rethrow(e);
+        }
+    }
+
+    @Override
+    public void setLong(Object o, long value) throws ReflectiveOperationException {
+        if (field.getType() != long.class) {
+            Setter.super.setLong(o, value);
+            return;
+        }
+        try {
+            primitiveSetter.invokeExact(o, value);
+        } catch (Throwable e) {
+            throw rethrow(e);
+        }
+    }
+
+    @Override
+    public void setInt(Object o, int value) throws ReflectiveOperationException {
+        if (field.getType() != int.class) {
+            Setter.super.setInt(o, value);
+            return;
+        }
+        try {
+            primitiveSetter.invokeExact(o, value);
+        } catch (Throwable e) {
+            throw rethrow(e);
+        }
+    }
+
+    @Override
+    public void setDouble(Object o, double value) throws ReflectiveOperationException {
+        if (field.getType() != double.class) {
+            Setter.super.setDouble(o, value);
+            return;
+        }
+        try {
+            primitiveSetter.invokeExact(o, value);
+        } catch (Throwable e) {
+            throw rethrow(e);
+        }
+    }
+
+    @Override
+    public void setFloat(Object o, float value) throws ReflectiveOperationException {
+        if (field.getType() != float.class) {
+            Setter.super.setFloat(o, value);
+            return;
+        }
+        try {
+            primitiveSetter.invokeExact(o, value);
+        } catch (Throwable e) {
+            throw rethrow(e);
+        }
     }
 
     @Override
     public TypeDescriptor type() {
         return typeDescriptor;
     }
-}
\ No newline at end of file
+}
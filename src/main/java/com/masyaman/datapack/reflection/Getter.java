@@ -3,4 +3,23 @@ package com.masyaman.datapack.reflection;
 public interface Getter<T> {
     T get(Object o) throws ReflectiveOperationException;
     TypeDescriptor<?> type();
+
+    /**
+     * Primitive variants read value without boxing when it has the same type, otherwise boxed value is converted.
+     */
+    default long getLong(Object o) throws ReflectiveOperationException {
+        return ((Number) get(o)).longValue();
+    }
+
+    default int getInt(Object o) throws ReflectiveOperationException {
+        return ((Number) get(o)).intValue();
+    }
+
+    default double getDouble(Object o) throws ReflectiveOperationException {
+        return ((Number) get(o)).doubleValue();
+    }
+
+    default float getFloat(Object o) throws ReflectiveOperationException {
+        return ((Number) get(o)).floatValue();
+    }
 }
@@ -3,4 +3,23 @@ package com.masyaman.datapack.reflection;
 public interface Setter {
     void set(Object o, Object value) throws ReflectiveOperationException;
     TypeDescriptor type();
+
+    /**
+     * Primitive variants set value without boxing when field has the same type.
+     */
+    default void setLong(Object o, long value) throws ReflectiveOperationException {
+        set(o, value);
+    }
+
+    default void setInt(Object o, int value) throws ReflectiveOperationException {
+        set(o, value);
+    }
+
+    default void setDouble(Object o, double value) throws ReflectiveOperationException {
+        set(o, value);
+    }
+
+    default void setFloat(Object o, float value) throws ReflectiveOperationException {
+        set(o, value);
+    }
 }
@@ -4,4 +4,14 @@ import java.io.IOException;
 
 public interface Deserializer<T> {
     T deserialize() throws IOException;
+
+    /**
+     * Move to next value without creating it. State of deserializer is updated in the same way as by
+     * {@link #deserialize()}, so further values are read correctly.
+     *
+     * @return false if skipped value was null
+     */
+    default boolean skip() throws IOException {
+        return deserialize() != null;
+    }
 }
@@ -0,0 +1,24 @@
+package com.masyaman.datapack.serializers;
+
+import java.io.IOException;
+
+/**
+ * {@link Deserializer} specialized for primitive longs. Chained number deserializers pass values without boxing.
+ * Null value is returned from {@link #deserializeLong()} as 0, {@link #wasNull()} should be used to distinguish it.
+ */
+public interface LongDeserializer extends Deserializer<Long> {
+    long deserializeLong() throws IOException;
+    boolean wasNull();
+
+    @Override
+    default Long deserialize() throws IOException {
+        long l = deserializeLong();
+        return wasNull() ? null : l;
+    }
+
+    @Override
+    default boolean skip() throws IOException {
+        deserializeLong();
+        return !wasNull();
+    }
+}
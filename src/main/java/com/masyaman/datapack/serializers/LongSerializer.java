@@ -0,0 +1,20 @@
+package com.masyaman.datapack.serializers;
+
+import java.io.IOException;
+
+/**
+ * {@link Serializer} specialized for primitive longs. Chained number serializers pass values without boxing.
+ */
+public interface LongSerializer extends Serializer<Long> {
+    void serializeLong(long l) throws IOException;
+    void serializeNull() throws IOException;
+
+    @Override
+    default void serialize(Long l) throws IOException {
+        if (l == null) {
+            serializeNull();
+        } else {
+            serializeLong(l);
+        }
+    }
+}
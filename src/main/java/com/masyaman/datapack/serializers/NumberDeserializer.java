@@ -0,0 +1,14 @@
+package com.masyaman.datapack.serializers;
+
+import java.io.IOException;
+
+/**
+ * {@link Deserializer} of numbers which also returns primitive values, so primitive fields are set without boxing.
+ * Value is converted to requested primitive type, null value is returned as 0 and {@link #wasNull()} should be used
+ * to distinguish it.
+ */
+public interface NumberDeserializer<E extends Number> extends Deserializer<E> {
+    long deserializeLong() throws IOException;
+    double deserializeDouble() throws IOException;
+    boolean wasNull();
+}
@@ -0,0 +1,14 @@
+package com.masyaman.datapack.serializers;
+
+import java.io.IOException;
+
+/**
+ * {@link Serializer} of numbers which also accepts primitive values, so primitive fields are written without boxing.
+ * Each variant should give the same result as {@link #serialize(Object)} of boxed value.
+ */
+public interface NumberSerializer<E extends Number> extends Serializer<E> {
+    void serializeLong(long l) throws IOException;
+    void serializeInt(int i) throws IOException;
+    void serializeDouble(double d) throws IOException;
+    void serializeFloat(float f) throws IOException;
+}
@@ -0,0 +1,8 @@
+package com.masyaman.datapack.serializers;
+
+/**
+ * Marker interface for {@link SerializationFactory} to indicate that its serializers write objects through parent
+ * stream, so their values are not stored in their own stream only and could not be left unread.
+ */
+public interface SharesParentStream {
+}
@@ -8,6 +8,7 @@ import com.masyaman.datapack.streams.DataReader;
 
 import java.io.IOException;
 import java.util.LinkedList;
+import java.util.List;
 
 /**
  * Caching wrapper for Deserializer.
@@ -28,6 +29,15 @@ public class LatestFirstCachedDeserializer<E> implements Deserializer<E> {
         cache = new ObjectIdCacheRingTree<>(cacheSize);
     }
 
+    /**
+     * See {@link LatestFirstCachedSerializer#preload(List)}.
+     */
+    public void preload(List<E> values) {
+        for (int i = values.size() - 1; i >= 0; i--) {
+            cache.addHead(values.get(i));
+        }
+    }
+
     @Override
     public E deserialize() throws IOException {
         Long id = is.readUnsignedLong();
@@ -43,4 +53,15 @@ public class LatestFirstCachedDeserializer<E> implements Deserializer<E> {
         cache.addHead(value);
         return value;
     }
+
+    @Override
+    public boolean skip() throws IOException {
+        long id = is.readUnsignedLongValue();
+        if (is.wasNull()) {
+            return false;
+        }
+        // Values are still needed for cache, but hits are only moved to head
+        cache.addHead(id <= 0 ? deserializer.deserialize() : cache.removePosition((int) id - 1));
+        return true;
+    }
 }
@@ -8,6 +8,7 @@ import com.masyaman.datapack.streams.DataWriter;
 
 import java.io.IOException;
 import java.util.LinkedList;
+import java.util.List;
 
 /**
  * Caching wrapper for Serializer.
@@ -31,6 +32,16 @@ public class LatestFirstCachedSerializer<E> implements Serializer<E> {
         os.writeUnsignedLong((long) cacheSize);
     }
 
+    /**
+     * Put values to cache before first value is written, first value is put to the head.
+     * Deserializer should be preloaded with the same values.
+     */
+    public void preload(List<E> values) {
+        for (int i = values.size() - 1; i >= 0; i--) {
+            cache.addHead(values.get(i));
+        }
+    }
+
     @Override
     public void serialize(E o) throws IOException {
         if (o == null) {
@@ -5,6 +5,7 @@ import com.masyaman.datapack.streams.DataReader;
 
 import java.io.IOException;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 
 /**
@@ -23,6 +24,15 @@ public class SimpleCachedDeserializer<E> implements Deserializer<E> {
         this.deserializer = deserializer;
     }
 
+    /**
+     * See {@link SimpleCachedSerializer#preload(List)}.
+     */
+    public void preload(List<E> values) {
+        for (E value : values) {
+            cache.put(cache.size(), value);
+        }
+    }
+
     @Override
     public E deserialize() throws IOException {
         Long id = is.readUnsignedLong();
@@ -36,4 +46,16 @@ public class SimpleCachedDeserializer<E> implements Deserializer<E> {
         }
         return value;
     }
+
+    @Override
+    public boolean skip() throws IOException {
+        long id = is.readUnsignedLongValue();
+        if (is.wasNull()) {
+            return false;
+        }
+        if (cache.get((int) id - 1) == null) {
+            cache.put(cache.size(), deserializer.deserialize());
+        }
+        return true;
+    }
 }
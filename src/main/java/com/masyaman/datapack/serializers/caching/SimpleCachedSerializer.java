@@ -5,6 +5,7 @@ import com.masyaman.datapack.streams.DataWriter;
 
 import java.io.IOException;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 
 /**
@@ -27,6 +28,15 @@ public class SimpleCachedSerializer<E> implements Serializer<E> {
         this.serializer = serializer;
     }
 
+    /**
+     * Put distinct values to cache before first value is written. Deserializer should be preloaded with the same values.
+     */
+    public void preload(List<E> values) {
+        for (E value : values) {
+            cache.put(value, cache.size());
+        }
+    }
+
     @Override
     public void serialize(E o) throws IOException {
         if (o == null) {
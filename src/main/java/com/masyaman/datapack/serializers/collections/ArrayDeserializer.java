@@ -33,4 +33,17 @@ class ArrayDeserializer implements Deserializer<Object[]> {
         }
         return array;
     }
+
+    @Override
+    public boolean skip() throws IOException {
+        Long length = is.readUnsignedLong();
+        if (length == null) {
+            return false;
+        }
+        int len = length.intValue();
+        for (int i = 0; i < len; i++) {
+            valueDeserializer.skip();
+        }
+        return true;
+    }
 }
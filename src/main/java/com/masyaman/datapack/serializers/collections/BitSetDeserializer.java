@@ -22,9 +22,18 @@ class BitSetDeserializer implements Deserializer<BitSet> {
         }
         int len = length.intValue();
         byte[] bytes = new byte[len];
-        for (int i = 0; i < len; i++) {
-            bytes[i] = is.readByte();
-        }
+        is.readBytes(bytes);
         return BitSet.valueOf(bytes);
     }
+
+    @Override
+    public boolean skip() throws IOException {
+        Long length = is.readUnsignedLong();
+        if (length == null) {
+            return false;
+        }
+        int len = length.intValue();
+        is.skipBytes(len);
+        return true;
+    }
 }
@@ -22,9 +22,7 @@ class BitSetSerializer implements Serializer<BitSet> {
         }
         byte[] bytes = s.toByteArray();
         os.writeUnsignedLong((long) bytes.length);
-        for (byte b : bytes) {
-            os.writeByte(b);
-        }
+        os.writeBytes(bytes);
 
     }
 }
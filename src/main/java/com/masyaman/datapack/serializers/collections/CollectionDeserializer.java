@@ -41,4 +41,17 @@ class CollectionDeserializer<V> implements Deserializer<Collection<V>> {
         }
         return collection;
     }
+
+    @Override
+    public boolean skip() throws IOException {
+        Long length = is.readUnsignedLong();
+        if (length == null) {
+            return false;
+        }
+        int len = length.intValue();
+        for (int i = 0; i < len; i++) {
+            valueDeserializer.skip();
+        }
+        return true;
+    }
 }
@@ -23,9 +23,7 @@ class JsonBitSetDeserializer implements Deserializer<String> {
         }
         int len = length.intValue();
         byte[] bytes = new byte[len];
-        for (int i = 0; i < len; i++) {
-            bytes[i] = is.readByte();
-        }
+        is.readBytes(bytes);
         BitSet bitSet = BitSet.valueOf(bytes);
 
         StringBuilder sb = new StringBuilder();
@@ -42,4 +40,15 @@ class JsonBitSetDeserializer implements Deserializer<String> {
 
         return sb.toString();
     }
+
+    @Override
+    public boolean skip() throws IOException {
+        Long length = is.readUnsignedLong();
+        if (length == null) {
+            return false;
+        }
+        int len = length.intValue();
+        is.skipBytes(len);
+        return true;
+    }
 }
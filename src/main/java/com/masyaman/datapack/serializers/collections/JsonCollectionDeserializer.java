@@ -38,4 +38,17 @@ class JsonCollectionDeserializer implements Deserializer<String> {
 
         return sb.toString();
     }
+
+    @Override
+    public boolean skip() throws IOException {
+        Long length = is.readUnsignedLong();
+        if (length == null) {
+            return false;
+        }
+        int len = length.intValue();
+        for (int i = 0; i < len; i++) {
+            valueDeserializer.skip();
+        }
+        return true;
+    }
 }
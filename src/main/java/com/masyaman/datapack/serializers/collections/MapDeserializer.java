@@ -50,4 +50,20 @@ class MapDeserializer<K, V> implements Deserializer<Map<K, V>> {
         }
         return map;
     }
+
+    @Override
+    public boolean skip() throws IOException {
+        Long length = is.readUnsignedLong();
+        if (length == null) {
+            return false;
+        }
+        int len = length.intValue();
+        for (int i = 0; i < len; i++) {
+            keyDeserializer.skip();
+        }
+        for (int i = 0; i < len; i++) {
+            valueDeserializer.skip();
+        }
+        return true;
+    }
 }
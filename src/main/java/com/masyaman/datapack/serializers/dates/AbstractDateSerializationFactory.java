@@ -2,9 +2,11 @@ package com.masyaman.datapack.serializers.dates;
 
 import com.masyaman.datapack.reflection.TypeDescriptor;
 import com.masyaman.datapack.serializers.Deserializer;
+import com.masyaman.datapack.serializers.LongSerializer;
 import com.masyaman.datapack.serializers.SerializationFactory;
 import com.masyaman.datapack.serializers.Serializer;
 import com.masyaman.datapack.serializers.numbers.AbstractNumberSerializationFactory;
+import com.masyaman.datapack.streams.ColumnStats;
 import com.masyaman.datapack.streams.DataReader;
 import com.masyaman.datapack.streams.DataWriter;
 
@@ -23,8 +25,6 @@ import static com.masyaman.datapack.serializers.dates.DeserializerWrappers.*;
  */
 abstract class AbstractDateSerializationFactory extends SerializationFactory {
 
-    static final TypeDescriptor LONG_TYPE = new TypeDescriptor(Long.class);
-
     protected AbstractDateSerializationFactory(String name) {
         super(name);
     }
@@ -53,19 +53,21 @@ abstract class AbstractDateSerializationFactory extends SerializationFactory {
 
         os.writeSignedLong((long) datePrecision); // Date precision
 
-        return convertFrom(scale(getNumberSerializationFactory().createSerializer(os, LONG_TYPE, 0, roundingMode), scale, roundingMode), type);
+        LongSerializer serializer = scale(getNumberSerializationFactory().createLongSerializer(os), scale, roundingMode);
+        ColumnStats stats = os.getColumnStats();
+        return convertFrom(stats == null ? serializer : collectStats(serializer, stats), type);
     }
 
     @Override
     public Deserializer createDeserializer(DataReader is, TypeDescriptor type) throws IOException {
-        int datePrecision = is.readUnsignedLong().intValue();
+        int datePrecision = (int) is.readUnsignedLongValue();
         if (datePrecision < 0 || datePrecision >= DatePrecisions.SCALES.length) {
             throw new IOException("Incorrect precision " + datePrecision + " for Date");
         }
 
         long scale = DatePrecisions.SCALES[datePrecision];
 
-        return convertTo(scale(getNumberSerializationFactory().createDeserializer(is, LONG_TYPE, 0), scale), type);
+        return convertTo(scale(getNumberSerializationFactory().createLongDeserializer(is), scale), type);
     }
 
 }
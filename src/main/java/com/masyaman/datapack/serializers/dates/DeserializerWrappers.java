@@ -3,6 +3,7 @@ package com.masyaman.datapack.serializers.dates;
 import com.masyaman.datapack.annotations.deserialization.DateFormatPattern;
 import com.masyaman.datapack.reflection.TypeDescriptor;
 import com.masyaman.datapack.serializers.Deserializer;
+import com.masyaman.datapack.serializers.LongDeserializer;
 import com.masyaman.datapack.serializers.formats.FormatsDeserializerWrappers;
 
 import java.io.IOException;
@@ -14,13 +15,18 @@ final class DeserializerWrappers {
 
     private DeserializerWrappers() {}
 
-    public static <E> Deserializer<E> convertTo(Deserializer<Long> deserializer, TypeDescriptor<E> type) throws IOException {
+    public static <E> Deserializer<E> convertTo(LongDeserializer deserializer, TypeDescriptor<E> type) throws IOException {
         if (type.getType().isAssignableFrom(Date.class)) {
             return new Deserializer<E>() {
                 @Override
                 public E deserialize() throws IOException {
-                    Long val = deserializer.deserialize();
-                    return (E) (val == null ? null : new Date(val));
+                    long val = deserializer.deserializeLong();
+                    return (E) (deserializer.wasNull() ? null : new Date(val));
+                }
+
+                @Override
+                public boolean skip() throws IOException {
+                    return deserializer.skip();
                 }
             };
         } else if (type.getType().isAssignableFrom(Long.class) || long.class.isAssignableFrom(type.getType()) || Long.class.isAssignableFrom(type.getType())) {
@@ -37,6 +43,11 @@ final class DeserializerWrappers {
                         Long val = deserializer.deserialize();
                         return (E) (val == null ? null : "" + val.longValue());
                     }
+
+                    @Override
+                    public boolean skip() throws IOException {
+                        return deserializer.skip();
+                    }
                 }, type);
             } else if (DateFormatPattern.SECONDS_FORMAT.equals(format)) {
                 return FormatsDeserializerWrappers.wrap(new Deserializer<E>() {
@@ -45,6 +56,11 @@ final class DeserializerWrappers {
                         Long val = deserializer.deserialize();
                         return (E) (val == null ? null : "" + val.longValue()/1000L);
                     }
+
+                    @Override
+                    public boolean skip() throws IOException {
+                        return deserializer.skip();
+                    }
                 }, type);
             } else {
                 SimpleDateFormat dateFormat = new SimpleDateFormat(format);
@@ -55,6 +71,11 @@ final class DeserializerWrappers {
                         Long val = deserializer.deserialize();
                         return (E) (val == null ? null : dateFormat.format(new Date(val)));
                     }
+
+                    @Override
+                    public boolean skip() throws IOException {
+                        return deserializer.skip();
+                    }
                 }, type);
             }
         } else {
@@ -62,12 +83,16 @@ final class DeserializerWrappers {
         }
     }
 
-    public static Deserializer<Long> scale(Deserializer<Long> deserializer, long scale) {
-        return new Deserializer<Long>() {
+    public static LongDeserializer scale(LongDeserializer deserializer, long scale) {
+        return new LongDeserializer() {
+            @Override
+            public long deserializeLong() throws IOException {
+                return deserializer.deserializeLong() * scale;
+            }
+
             @Override
-            public Long deserialize() throws IOException {
-                Long val = deserializer.deserialize();
-                return (val == null ? null : val * scale);
+            public boolean wasNull() {
+                return deserializer.wasNull();
             }
         };
     }
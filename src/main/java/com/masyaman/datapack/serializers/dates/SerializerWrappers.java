@@ -1,7 +1,9 @@
 package com.masyaman.datapack.serializers.dates;
 
 import com.masyaman.datapack.reflection.TypeDescriptor;
+import com.masyaman.datapack.serializers.LongSerializer;
 import com.masyaman.datapack.serializers.Serializer;
+import com.masyaman.datapack.streams.ColumnStats;
 import com.masyaman.datapack.utils.MathUtils;
 
 import java.io.IOException;
@@ -12,14 +14,18 @@ final class SerializerWrappers {
 
     private SerializerWrappers() {}
 
-    public static <E> Serializer<E> convertFrom(Serializer<Long> longSerializer, TypeDescriptor<E> type) {
+    public static <E> Serializer<E> convertFrom(LongSerializer longSerializer, TypeDescriptor<E> type) {
         if (type.getType().isAssignableFrom(Long.class) || long.class.isAssignableFrom(type.getType()) || Long.class.isAssignableFrom(type.getType())) {
             return (Serializer<E>) longSerializer;
         } else if (Date.class.isAssignableFrom(type.getType())) {
             return new Serializer<E>() {
                 @Override
                 public void serialize(E o) throws IOException {
-                    longSerializer.serialize(o == null ? null : ((Date) o).getTime());
+                    if (o == null) {
+                        longSerializer.serializeNull();
+                    } else {
+                        longSerializer.serializeLong(((Date) o).getTime());
+                    }
                 }
             };
         } else {
@@ -27,11 +33,35 @@ final class SerializerWrappers {
         }
     }
 
-    public static Serializer<Long> scale(Serializer<Long> longSerializer, long scale, RoundingMode roundingMode) {
-        return new Serializer<Long>() {
+    public static LongSerializer scale(LongSerializer longSerializer, long scale, RoundingMode roundingMode) {
+        return new LongSerializer() {
             @Override
-            public void serialize(Long o) throws IOException {
-                longSerializer.serialize(o == null ? null : MathUtils.divLongs(o, scale, roundingMode));
+            public void serializeLong(long l) throws IOException {
+                longSerializer.serializeLong(MathUtils.divLongs(l, scale, roundingMode));
+            }
+
+            @Override
+            public void serializeNull() throws IOException {
+                longSerializer.serializeNull();
+            }
+        };
+    }
+
+    /**
+     * Record values in milliseconds into column statistics.
+     */
+    public static LongSerializer collectStats(LongSerializer longSerializer, ColumnStats stats) {
+        return new LongSerializer() {
+            @Override
+            public void serializeLong(long l) throws IOException {
+                stats.record(l);
+                longSerializer.serializeLong(l);
+            }
+
+            @Override
+            public void serializeNull() throws IOException {
+                stats.recordNull();
+                longSerializer.serializeNull();
             }
         };
     }
@@ -37,7 +37,8 @@ public class EnumsConstantsSerializationFactory<E extends Enum> extends Serializ
 
     @Override
     public <E1 extends E> Serializer<E1> createSerializer(DataWriter os, TypeDescriptor<E1> type) throws IOException {
-        Serializer serializer = StringConstantsSerializationFactory.INSTANCE.createSerializer(os, new TypeDescriptor(String.class));
+        Serializer serializer = StringConstantsSerializationFactory.INSTANCE.createSerializer(os, new TypeDescriptor(String.class),
+                EnumsDictionary.writePreloaded(os, type));
         return new Serializer<E1>() {
             @Override
             public void serialize(E1 o) throws IOException {
@@ -48,7 +49,8 @@ public class EnumsConstantsSerializationFactory<E extends Enum> extends Serializ
 
     @Override
     public <E1> Deserializer<E1> createDeserializer(DataReader is, TypeDescriptor<E1> type) throws IOException {
-        Deserializer deserializer = StringConstantsSerializationFactory.INSTANCE.createDeserializer(is, new TypeDescriptor(String.class));
+        Deserializer deserializer = StringConstantsSerializationFactory.INSTANCE.createDeserializer(is, new TypeDescriptor(String.class),
+                EnumsDictionary.readPreloaded(is));
         if (String.class.isAssignableFrom(type.getType())) {
             return FormatsDeserializerWrappers.wrap(deserializer, type);
         }
@@ -62,6 +64,11 @@ public class EnumsConstantsSerializationFactory<E extends Enum> extends Serializ
                     return (E1) Enum.valueOf(type.getType(), value);
                 }
             }
+
+            @Override
+            public boolean skip() throws IOException {
+                return deserializer.skip();
+            }
         };
     }
 }
@@ -0,0 +1,70 @@
+package com.masyaman.datapack.serializers.enums;
+
+import com.masyaman.datapack.reflection.TypeDescriptor;
+import com.masyaman.datapack.streams.DataReader;
+import com.masyaman.datapack.streams.DataWriter;
+import com.masyaman.datapack.streams.StringDictionary;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Selects strings of string dictionary which are preloaded into enum cache. Only names of constants of serialized enum
+ * are preloaded, so other dictionary strings don't widen cache indexes.
+ * Data format, written only if stream has string dictionary, is:
+ * [Count][DictionaryIndex]...
+ */
+class EnumsDictionary {
+
+    private EnumsDictionary() {
+    }
+
+    static List<String> writePreloaded(DataWriter os, TypeDescriptor type) throws IOException {
+        StringDictionary dictionary = os.getStringDictionary();
+        if (dictionary == null) {
+            return Collections.emptyList();
+        }
+        Set<String> names = new HashSet<>();
+        if (type.getType().isEnum()) {
+            for (Object constant : type.getType().getEnumConstants()) {
+                names.add(((Enum) constant).name());
+            }
+        }
+        List<String> preloaded = new ArrayList<>();
+        List<Long> indexes = new ArrayList<>();
+        List<String> values = dictionary.getValues();
+        for (int i = 0; i < values.size(); i++) {
+            if (names.contains(values.get(i))) {
+                preloaded.add(values.get(i));
+                indexes.add((long) i);
+            }
+        }
+        os.writeUnsignedLong((long) indexes.size());
+        for (Long index : indexes) {
+            os.writeUnsignedLong(index);
+        }
+        return preloaded;
+    }
+
+    static List<String> readPreloaded(DataReader is) throws IOException {
+        StringDictionary dictionary = is.getStringDictionary();
+        if (dictionary == null) {
+            return Collections.emptyList();
+        }
+        List<String> values = dictionary.getValues();
+        long count = is.readUnsignedLongValue();
+        List<String> preloaded = new ArrayList<>();
+        for (long i = 0; i < count; i++) {
+            long index = is.readUnsignedLongValue();
+            if (index >= values.size()) {
+                throw new IOException("Incorrect string dictionary index " + index);
+            }
+            preloaded.add(values.get((int) index));
+        }
+        return preloaded;
+    }
+}
@@ -36,7 +36,8 @@ public class EnumsSerializationFactory<E extends Enum> extends SerializationFact
 
     @Override
     public <E1 extends E> Serializer<E1> createSerializer(DataWriter os, TypeDescriptor<E1> type) throws IOException {
-        Serializer serializer = StringCachedSerializationFactory.INSTANCE.createSerializer(os, new TypeDescriptor(String.class));
+        Serializer serializer = StringCachedSerializationFactory.INSTANCE.createSerializer(os, new TypeDescriptor(String.class),
+                EnumsDictionary.writePreloaded(os, type));
         return new Serializer<E1>() {
             @Override
             public void serialize(E1 o) throws IOException {
@@ -47,7 +48,8 @@ public class EnumsSerializationFactory<E extends Enum> extends SerializationFact
 
     @Override
     public <E1> Deserializer<E1> createDeserializer(DataReader is, TypeDescriptor<E1> type) throws IOException {
-        Deserializer deserializer = StringCachedSerializationFactory.INSTANCE.createDeserializer(is, new TypeDescriptor(String.class));
+        Deserializer deserializer = StringCachedSerializationFactory.INSTANCE.createDeserializer(is, new TypeDescriptor(String.class),
+                EnumsDictionary.readPreloaded(is));
         if (String.class.isAssignableFrom(type.getType())) {
             return FormatsDeserializerWrappers.wrap(deserializer, type);
         }
@@ -61,6 +63,11 @@ public class EnumsSerializationFactory<E extends Enum> extends SerializationFact
                     return (E1) Enum.valueOf(type.getType(), value);
                 }
             }
+
+            @Override
+            public boolean skip() throws IOException {
+                return deserializer.skip();
+            }
         };
     }
 }
@@ -33,6 +33,11 @@ public class FormatsDeserializerWrappers {
                 Object val = deserializer.deserialize();
                 return val == null ? null : val.toString();
             }
+
+            @Override
+            public boolean skip() throws IOException {
+                return deserializer.skip();
+            }
         };
     }
 
@@ -43,6 +48,11 @@ public class FormatsDeserializerWrappers {
                 Object val = deserializer.deserialize();
                 return val == null ? null : toJsonString(val.toString());
             }
+
+            @Override
+            public boolean skip() throws IOException {
+                return deserializer.skip();
+            }
         };
     }
 
@@ -2,8 +2,11 @@ package com.masyaman.datapack.serializers.numbers;
 
 import com.masyaman.datapack.reflection.TypeDescriptor;
 import com.masyaman.datapack.serializers.Deserializer;
+import com.masyaman.datapack.serializers.LongDeserializer;
+import com.masyaman.datapack.serializers.LongSerializer;
 import com.masyaman.datapack.serializers.SerializationFactory;
 import com.masyaman.datapack.serializers.Serializer;
+import com.masyaman.datapack.streams.ColumnStats;
 import com.masyaman.datapack.streams.DataReader;
 import com.masyaman.datapack.streams.DataWriter;
 
@@ -13,6 +16,9 @@ import java.math.RoundingMode;
 import static com.masyaman.datapack.annotations.AnnotationsHelper.getDecimalPrecision;
 import static com.masyaman.datapack.annotations.AnnotationsHelper.getRoundingMode;
 import static com.masyaman.datapack.serializers.formats.FormatsDeserializerWrappers.wrapNumber;
+import static com.masyaman.datapack.serializers.numbers.DeserializerWrappers.convertAndScale;
+import static com.masyaman.datapack.serializers.numbers.SerializerWrappers.collectStats;
+import static com.masyaman.datapack.serializers.numbers.SerializerWrappers.scaleAndRound;
 
 /**
  * Abstract Serialization factory for Numbers.
@@ -43,7 +49,9 @@ public abstract class AbstractNumberSerializationFactory extends SerializationFa
         NumberTypeResolver.writeType(os, type);
         os.writeSignedLong((long) decimalPrecision);
 
-        return createSerializer(os, type, decimalPrecision, roundingMode);
+        Serializer<E> serializer = createSerializer(os, type, decimalPrecision, roundingMode);
+        ColumnStats stats = os.getColumnStats();
+        return stats == null ? serializer : collectStats(serializer, stats);
     }
 
     @Override
@@ -55,8 +63,19 @@ public abstract class AbstractNumberSerializationFactory extends SerializationFa
         return wrapNumber(deserializer, type);
     }
 
-    public abstract <E extends Number> Serializer<E> createSerializer(DataWriter os, TypeDescriptor<E> type, int decimalPrecision, RoundingMode roundingMode) throws IOException;
+    public <E extends Number> Serializer<E> createSerializer(DataWriter os, TypeDescriptor<E> type, int decimalPrecision, RoundingMode roundingMode) throws IOException {
+        return scaleAndRound(createLongSerializer(os), decimalPrecision, roundingMode);
+    }
+
+    public <E extends Number> Deserializer<E> createDeserializer(DataReader is, TypeDescriptor<E> type, int decimalPrecision) throws IOException {
+        return convertAndScale(createLongDeserializer(is), type, decimalPrecision);
+    }
+
+    /**
+     * Create serializer of already scaled and rounded values.
+     */
+    public abstract LongSerializer createLongSerializer(DataWriter os) throws IOException;
 
-    public abstract <E extends Number> Deserializer<E> createDeserializer(DataReader is, TypeDescriptor<E> type, int decimalPrecision) throws IOException;
+    public abstract LongDeserializer createLongDeserializer(DataReader is) throws IOException;
 
 }
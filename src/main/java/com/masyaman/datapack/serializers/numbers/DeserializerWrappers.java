@@ -2,42 +2,96 @@ package com.masyaman.datapack.serializers.numbers;
 
 import com.masyaman.datapack.reflection.TypeDescriptor;
 import com.masyaman.datapack.serializers.Deserializer;
+import com.masyaman.datapack.serializers.LongDeserializer;
+import com.masyaman.datapack.serializers.NumberDeserializer;
 import com.masyaman.datapack.utils.MathUtils;
 
 import java.io.IOException;
 import java.math.RoundingMode;
 
+import static com.masyaman.datapack.utils.MathUtils.divLongs;
 import static com.masyaman.datapack.utils.MathUtils.median;
 
 final class DeserializerWrappers {
 
     private DeserializerWrappers() {}
 
-    public static <E extends Number> Deserializer<E> convertTo(Deserializer<? extends Number> deserializer, TypeDescriptor<E> type) {
+    /**
+     * Convert long to required type and scale it by 10^decimalScale. Same as {@link MathUtils#scale} applied to
+     * converted value, but without intermediate boxing.
+     */
+    public static <E extends Number> NumberDeserializer<E> convertAndScale(LongDeserializer deserializer, TypeDescriptor<E> type, int decimalScale) {
+        final long scale = MathUtils.pow10(Math.abs(decimalScale));
+        final RoundingMode roundingMode = RoundingMode.HALF_UP;
         if (type.getType().isAssignableFrom(Long.class) || long.class.isAssignableFrom(type.getType()) || Long.class.isAssignableFrom(type.getType())) {
-            return (Deserializer<E>) deserializer;
+            return new IntegralDeserializer<E>(deserializer) {
+                @Override
+                public long deserializeLong() throws IOException {
+                    long val = deserializer.deserializeLong();
+                    if (decimalScale == 0 || deserializer.wasNull()) {
+                        return val;
+                    }
+                    return decimalScale > 0 ? val * scale : divLongs(val, scale, roundingMode);
+                }
+
+                @Override
+                public E deserialize() throws IOException {
+                    long val = deserializeLong();
+                    return wasNull() ? null : (E) (Long) val;
+                }
+            };
         } else if (int.class.isAssignableFrom(type.getType()) || Integer.class.isAssignableFrom(type.getType())) {
-            return new Deserializer<E>() {
+            return new IntegralDeserializer<E>(deserializer) {
+                @Override
+                public long deserializeLong() throws IOException {
+                    long val = deserializer.deserializeLong();
+                    if (deserializer.wasNull()) {
+                        return 0L;
+                    }
+                    long i = (int) val;
+                    return (int) (decimalScale >= 0 ? i * scale : divLongs(i, scale, roundingMode));
+                }
+
                 @Override
                 public E deserialize() throws IOException {
-                    Number val = deserializer.deserialize();
-                    return (E) (val == null ? null : val.intValue());
+                    long val = deserializeLong();
+                    return wasNull() ? null : (E) (Integer) (int) val;
                 }
             };
         } else if (double.class.isAssignableFrom(type.getType()) || Double.class.isAssignableFrom(type.getType())) {
-            return new Deserializer<E>() {
+            return new FloatingDeserializer<E>(deserializer) {
+                @Override
+                public double deserializeDouble() throws IOException {
+                    long val = deserializer.deserializeLong();
+                    if (deserializer.wasNull()) {
+                        return 0.0;
+                    }
+                    double d = (double) val;
+                    return decimalScale >= 0 ? d * scale : d / scale;
+                }
+
                 @Override
                 public E deserialize() throws IOException {
-                    Number val = deserializer.deserialize();
-                    return (E) (val == null ? null : val.doubleValue());
+                    double val = deserializeDouble();
+                    return wasNull() ? null : (E) (Double) val;
                 }
             };
         } else if (float.class.isAssignableFrom(type.getType()) || Float.class.isAssignableFrom(type.getType())) {
-            return new Deserializer<E>() {
+            return new FloatingDeserializer<E>(deserializer) {
+                @Override
+                public double deserializeDouble() throws IOException {
+                    long val = deserializer.deserializeLong();
+                    if (deserializer.wasNull()) {
+                        return 0.0;
+                    }
+                    double d = (float) val;
+                    return (float) (decimalScale >= 0 ? d * scale : d / scale);
+                }
+
                 @Override
                 public E deserialize() throws IOException {
-                    Number val = deserializer.deserialize();
-                    return (E) (val == null ? null : val.floatValue());
+                    double val = deserializeDouble();
+                    return wasNull() ? null : (E) (Float) (float) val;
                 }
             };
         } else {
@@ -45,41 +99,89 @@ final class DeserializerWrappers {
         }
     }
 
-    public static <E extends Number> Deserializer<E> scaleBy(Deserializer<E> deserializer, int decimalScale, RoundingMode roundingMode) throws IOException {
-        return new Deserializer<E>() {
-            @Override
-            public E deserialize() throws IOException {
-                return MathUtils.scale(deserializer.deserialize(), decimalScale, roundingMode);
-            }
-        };
+    /**
+     * Deserializer of integral numbers, double value is converted from long one.
+     */
+    private static abstract class IntegralDeserializer<E extends Number> implements NumberDeserializer<E> {
+        private final LongDeserializer deserializer;
+
+        private IntegralDeserializer(LongDeserializer deserializer) {
+            this.deserializer = deserializer;
+        }
+
+        @Override
+        public double deserializeDouble() throws IOException {
+            return deserializeLong();
+        }
+
+        @Override
+        public boolean wasNull() {
+            return deserializer.wasNull();
+        }
+
+        @Override
+        public boolean skip() throws IOException {
+            return deserializer.skip();
+        }
     }
 
-    public static Deserializer<Long> diffDeserializer(Deserializer<Long> deserializer) {
-        return new Deserializer<Long>() {
+    /**
+     * Deserializer of floating-point numbers, long value is converted from double one.
+     */
+    private static abstract class FloatingDeserializer<E extends Number> implements NumberDeserializer<E> {
+        private final LongDeserializer deserializer;
+
+        private FloatingDeserializer(LongDeserializer deserializer) {
+            this.deserializer = deserializer;
+        }
+
+        @Override
+        public long deserializeLong() throws IOException {
+            return (long) deserializeDouble();
+        }
+
+        @Override
+        public boolean wasNull() {
+            return deserializer.wasNull();
+        }
+
+        @Override
+        public boolean skip() throws IOException {
+            return deserializer.skip();
+        }
+    }
+
+    public static LongDeserializer diffDeserializer(LongDeserializer deserializer) {
+        return new LongDeserializer() {
             private long prev = 0L;
             @Override
-            public Long deserialize() throws IOException {
-                Long val = deserializer.deserialize();
-                if (val == null) {
-                    return null;
+            public long deserializeLong() throws IOException {
+                long val = deserializer.deserializeLong();
+                if (deserializer.wasNull()) {
+                    return 0L;
                 }
                 val += prev;
                 prev = val;
                 return val;
             }
+
+            @Override
+            public boolean wasNull() {
+                return deserializer.wasNull();
+            }
         };
     }
 
-    public static Deserializer<Long> linearDeserializer(Deserializer<Long> deserializer) {
-        return new Deserializer<Long>() {
+    public static LongDeserializer linearDeserializer(LongDeserializer deserializer) {
+        return new LongDeserializer() {
             private long prev = 0L;
             private long prev2 = 0L;
             private boolean isFirst = true;
             @Override
-            public Long deserialize() throws IOException {
-                Long val = deserializer.deserialize();
-                if (val == null) {
-                    return null;
+            public long deserializeLong() throws IOException {
+                long val = deserializer.deserializeLong();
+                if (deserializer.wasNull()) {
+                    return 0L;
                 }
                 val += prev * 2 - prev2;
                 prev2 = prev;
@@ -90,33 +192,43 @@ final class DeserializerWrappers {
                 }
                 return val;
             }
+
+            @Override
+            public boolean wasNull() {
+                return deserializer.wasNull();
+            }
         };
     }
 
-    public static Deserializer<Long> medianDeserializer(Deserializer<Long> deserializer, int diffLength) {
-        return new Deserializer<Long>() {
+    public static LongDeserializer medianDeserializer(LongDeserializer deserializer, int diffLength) {
+        return new LongDeserializer() {
             private long prev = 0L;
             private long[] diffs = new long[diffLength];
             private int pos = 0;
             private boolean isFirst = true;
             @Override
-            public Long deserialize() throws IOException {
-                Long val = deserializer.deserialize();
-                if (val == null) {
-                    return null;
+            public long deserializeLong() throws IOException {
+                long val = deserializer.deserializeLong();
+                if (deserializer.wasNull()) {
+                    return 0L;
                 }
                 val += prev + median(diffs);
 
                 if (isFirst) {
                     isFirst = false;
                 } else {
-                    diffs[pos] = val.longValue() - prev;
+                    diffs[pos] = val - prev;
                     pos = (pos + 1) % diffs.length;
                 }
 
                 prev = val;
                 return val;
             }
+
+            @Override
+            public boolean wasNull() {
+                return deserializer.wasNull();
+            }
         };
     }
 }
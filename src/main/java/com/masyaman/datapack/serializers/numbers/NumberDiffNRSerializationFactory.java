@@ -1,7 +1,8 @@
 package com.masyaman.datapack.serializers.numbers;
 
 import com.masyaman.datapack.reflection.TypeDescriptor;
-import com.masyaman.datapack.serializers.Deserializer;
+import com.masyaman.datapack.serializers.LongDeserializer;
+import com.masyaman.datapack.serializers.LongSerializer;
 import com.masyaman.datapack.serializers.Serializer;
 import com.masyaman.datapack.streams.DataReader;
 import com.masyaman.datapack.streams.DataWriter;
@@ -9,7 +10,7 @@ import com.masyaman.datapack.streams.DataWriter;
 import java.io.IOException;
 import java.math.RoundingMode;
 
-import static com.masyaman.datapack.serializers.numbers.DeserializerWrappers.*;
+import static com.masyaman.datapack.serializers.numbers.DeserializerWrappers.diffDeserializer;
 import static com.masyaman.datapack.serializers.numbers.SerializerWrappers.diffSerializer;
 import static com.masyaman.datapack.serializers.numbers.SerializerWrappers.scaleByNR;
 
@@ -29,12 +30,18 @@ public class NumberDiffNRSerializationFactory extends AbstractNumberSerializatio
 
     @Override
     public <E extends Number> Serializer<E> createSerializer(DataWriter os, TypeDescriptor<E> type, int decimalPrecision, RoundingMode roundingMode) throws IOException {
-        return scaleByNR(diffSerializer(new LongSerializer(os)), decimalPrecision);
+        return scaleByNR(createLongSerializer(os), decimalPrecision);
     }
 
     @Override
-    public <E extends Number> Deserializer<E> createDeserializer(DataReader is, TypeDescriptor<E> type, int decimalPrecision) throws IOException {
-        return scaleBy(convertTo(diffDeserializer(new LongDeserializer(is)), type), decimalPrecision, RoundingMode.HALF_UP);
+    public LongSerializer createLongSerializer(DataWriter os) throws IOException {
+        return diffSerializer(new SignedLongSerializer(os));
     }
 
+    @Override
+    public LongDeserializer createLongDeserializer(DataReader is) throws IOException {
+        return diffDeserializer(new SignedLongDeserializer(is));
+    }
+
+
 }
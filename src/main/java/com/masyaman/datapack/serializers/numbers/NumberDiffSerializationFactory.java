@@ -1,18 +1,14 @@
 package com.masyaman.datapack.serializers.numbers;
 
-import com.masyaman.datapack.reflection.TypeDescriptor;
-import com.masyaman.datapack.serializers.Deserializer;
-import com.masyaman.datapack.serializers.Serializer;
+import com.masyaman.datapack.serializers.LongDeserializer;
+import com.masyaman.datapack.serializers.LongSerializer;
 import com.masyaman.datapack.streams.DataReader;
 import com.masyaman.datapack.streams.DataWriter;
 
 import java.io.IOException;
-import java.math.RoundingMode;
 
-import static com.masyaman.datapack.serializers.numbers.DeserializerWrappers.*;
-import static com.masyaman.datapack.serializers.numbers.DeserializerWrappers.scaleBy;
-import static com.masyaman.datapack.serializers.numbers.SerializerWrappers.*;
-import static com.masyaman.datapack.serializers.numbers.SerializerWrappers.scaleBy;
+import static com.masyaman.datapack.serializers.numbers.DeserializerWrappers.diffDeserializer;
+import static com.masyaman.datapack.serializers.numbers.SerializerWrappers.diffSerializer;
 
 /**
  * Serialization factory for Numbers.
@@ -30,13 +26,13 @@ public class NumberDiffSerializationFactory extends AbstractNumberSerializationF
     }
 
     @Override
-    public <E extends Number> Serializer<E> createSerializer(DataWriter os, TypeDescriptor<E> type, int decimalPrecision, RoundingMode roundingMode) throws IOException {
-        return scaleBy(round(diffSerializer(new LongSerializer(os)), roundingMode), decimalPrecision, roundingMode);
+    public LongSerializer createLongSerializer(DataWriter os) throws IOException {
+        return diffSerializer(new SignedLongSerializer(os));
     }
 
     @Override
-    public <E extends Number> Deserializer<E> createDeserializer(DataReader is, TypeDescriptor<E> type, int decimalPrecision) throws IOException {
-        return scaleBy(convertTo(diffDeserializer(new LongDeserializer(is)), type), decimalPrecision, RoundingMode.HALF_UP);
+    public LongDeserializer createLongDeserializer(DataReader is) throws IOException {
+        return diffDeserializer(new SignedLongDeserializer(is));
     }
 
 }
@@ -1,18 +1,14 @@
 package com.masyaman.datapack.serializers.numbers;
 
-import com.masyaman.datapack.reflection.TypeDescriptor;
-import com.masyaman.datapack.serializers.Deserializer;
-import com.masyaman.datapack.serializers.Serializer;
+import com.masyaman.datapack.serializers.LongDeserializer;
+import com.masyaman.datapack.serializers.LongSerializer;
 import com.masyaman.datapack.streams.DataReader;
 import com.masyaman.datapack.streams.DataWriter;
 
 import java.io.IOException;
-import java.math.RoundingMode;
 
-import static com.masyaman.datapack.serializers.numbers.DeserializerWrappers.*;
-import static com.masyaman.datapack.serializers.numbers.DeserializerWrappers.scaleBy;
-import static com.masyaman.datapack.serializers.numbers.SerializerWrappers.*;
-import static com.masyaman.datapack.serializers.numbers.SerializerWrappers.scaleBy;
+import static com.masyaman.datapack.serializers.numbers.DeserializerWrappers.linearDeserializer;
+import static com.masyaman.datapack.serializers.numbers.SerializerWrappers.linearSerializer;
 
 /**
  * Serialization factory for Numbers.
@@ -29,13 +25,13 @@ public class NumberLinearSerializationFactory extends AbstractNumberSerializatio
     }
 
     @Override
-    public <E extends Number> Serializer<E> createSerializer(DataWriter os, TypeDescriptor<E> type, int decimalPrecision, RoundingMode roundingMode) throws IOException {
-        return scaleBy(round(linearSerializer(new LongSerializer(os)), roundingMode), decimalPrecision, roundingMode);
+    public LongSerializer createLongSerializer(DataWriter os) throws IOException {
+        return linearSerializer(new SignedLongSerializer(os));
     }
 
     @Override
-    public <E extends Number> Deserializer<E> createDeserializer(DataReader is, TypeDescriptor<E> type, int decimalPrecision) throws IOException {
-        return scaleBy(convertTo(linearDeserializer(new LongDeserializer(is)), type), decimalPrecision, RoundingMode.HALF_UP);
+    public LongDeserializer createLongDeserializer(DataReader is) throws IOException {
+        return linearDeserializer(new SignedLongDeserializer(is));
     }
 
 }
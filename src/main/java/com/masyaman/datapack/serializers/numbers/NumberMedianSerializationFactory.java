@@ -1,18 +1,14 @@
 package com.masyaman.datapack.serializers.numbers;
 
-import com.masyaman.datapack.reflection.TypeDescriptor;
-import com.masyaman.datapack.serializers.Deserializer;
-import com.masyaman.datapack.serializers.Serializer;
+import com.masyaman.datapack.serializers.LongDeserializer;
+import com.masyaman.datapack.serializers.LongSerializer;
 import com.masyaman.datapack.streams.DataReader;
 import com.masyaman.datapack.streams.DataWriter;
 
 import java.io.IOException;
-import java.math.RoundingMode;
 
-import static com.masyaman.datapack.serializers.numbers.DeserializerWrappers.*;
-import static com.masyaman.datapack.serializers.numbers.DeserializerWrappers.scaleBy;
-import static com.masyaman.datapack.serializers.numbers.SerializerWrappers.*;
-import static com.masyaman.datapack.serializers.numbers.SerializerWrappers.scaleBy;
+import static com.masyaman.datapack.serializers.numbers.DeserializerWrappers.medianDeserializer;
+import static com.masyaman.datapack.serializers.numbers.SerializerWrappers.medianSerializer;
 
 /**
  * Serialization factory for Numbers.
@@ -30,16 +26,17 @@ public class NumberMedianSerializationFactory extends AbstractNumberSerializatio
     }
 
     @Override
-    public <E extends Number> Serializer<E> createSerializer(DataWriter os, TypeDescriptor<E> type, int decimalPrecision, RoundingMode roundingMode) throws IOException {
+    public LongSerializer createLongSerializer(DataWriter os) throws IOException {
         int diffLength = DIFF_LEN;
         os.writeUnsignedLong((long) diffLength);
-        return scaleBy(round(medianSerializer(new LongSerializer(os), diffLength), roundingMode), decimalPrecision, roundingMode);
+        return medianSerializer(new SignedLongSerializer(os), diffLength);
     }
 
     @Override
-    public <E extends Number> Deserializer<E> createDeserializer(DataReader is, TypeDescriptor<E> type, int decimalPrecision) throws IOException {
-        int diffLength = is.readUnsignedLong().intValue();
-        return scaleBy(convertTo(medianDeserializer(new LongDeserializer(is), diffLength), type), decimalPrecision, RoundingMode.HALF_UP);
+    public LongDeserializer createLongDeserializer(DataReader is) throws IOException {
+        int diffLength = (int) is.readUnsignedLongValue();
+        return medianDeserializer(new SignedLongDeserializer(is), diffLength);
     }
 
+
 }
@@ -1,46 +1,129 @@
 package com.masyaman.datapack.serializers.numbers;
 
-import com.masyaman.datapack.reflection.TypeDescriptor;
+import com.masyaman.datapack.serializers.LongSerializer;
+import com.masyaman.datapack.serializers.NumberSerializer;
 import com.masyaman.datapack.serializers.Serializer;
+import com.masyaman.datapack.streams.ColumnStats;
 import com.masyaman.datapack.utils.MathUtils;
 
 import java.io.IOException;
 import java.math.RoundingMode;
 
+import static com.masyaman.datapack.utils.MathUtils.divLongs;
 import static com.masyaman.datapack.utils.MathUtils.median;
+import static com.masyaman.datapack.utils.MathUtils.roundDouble;
 
 final class SerializerWrappers {
 
     private SerializerWrappers() {}
 
-    public static <E extends Number> Serializer<E> convertFrom(Serializer<Long> longSerializer, TypeDescriptor<E> type) {
-        return new Serializer<E>() {
+    /**
+     * Scale number by 10^decimalScale and round it to long. Same as {@link MathUtils#scale} followed by
+     * {@link MathUtils#round}, but without intermediate boxing.
+     */
+    public static <E extends Number> NumberSerializer<E> scaleAndRound(LongSerializer serializer, int decimalScale, RoundingMode roundingMode) throws IOException {
+        final long scale = MathUtils.pow10(Math.abs(decimalScale));
+        return new NumberSerializer<E>() {
             @Override
             public void serialize(E o) throws IOException {
-                longSerializer.serialize(o == null ? null : o.longValue());
+                if (o instanceof Long) {
+                    serializeLong(o.longValue());
+                } else if (o instanceof Double) {
+                    serializeDouble(o.doubleValue());
+                } else if (o instanceof Integer) {
+                    serializeInt(o.intValue());
+                } else if (o instanceof Float) {
+                    serializeFloat(o.floatValue());
+                } else {
+                    serializer.serializeNull();
+                }
+            }
+
+            @Override
+            public void serializeLong(long l) throws IOException {
+                serializer.serializeLong(decimalScale >= 0 ? l * scale : divLongs(l, scale, roundingMode));
+            }
+
+            @Override
+            public void serializeInt(int i) throws IOException {
+                long l = i;
+                serializer.serializeLong(decimalScale >= 0 ? (int) (l * scale) : (int) divLongs(l, scale, roundingMode));
+            }
+
+            @Override
+            public void serializeDouble(double d) throws IOException {
+                serializer.serializeLong(roundDouble(decimalScale >= 0 ? d * scale : d / scale, roundingMode));
+            }
+
+            @Override
+            public void serializeFloat(float f) throws IOException {
+                double d = f;
+                serializer.serializeLong(roundDouble(decimalScale == 0 ? d : (float) (decimalScale > 0 ? d * scale : d / scale), roundingMode));
             }
         };
     }
 
-    public static <E extends Number> Serializer<E> round(Serializer<Long> serializer, RoundingMode roundingMode) throws IOException {
+    /**
+     * Record values into column statistics. Values which are written as nulls are recorded as nulls.
+     */
+    public static <E extends Number> Serializer<E> collectStats(Serializer<E> serializer, ColumnStats stats) {
+        if (serializer instanceof NumberSerializer) {
+            return collectStats((NumberSerializer<E>) serializer, stats);
+        }
         return new Serializer<E>() {
             @Override
             public void serialize(E o) throws IOException {
-                serializer.serialize(MathUtils.round(o, roundingMode));
+                record(o, stats);
+                serializer.serialize(o);
             }
         };
     }
 
-    public static <E extends Number> Serializer<E> scaleBy(Serializer<E> serializer, int decimalScale, RoundingMode roundingMode) throws IOException {
-        return new Serializer<E>() {
+    private static <E extends Number> NumberSerializer<E> collectStats(NumberSerializer<E> serializer, ColumnStats stats) {
+        return new NumberSerializer<E>() {
             @Override
             public void serialize(E o) throws IOException {
-                serializer.serialize((E) MathUtils.scale(o, decimalScale, roundingMode));
+                record(o, stats);
+                serializer.serialize(o);
+            }
+
+            @Override
+            public void serializeLong(long l) throws IOException {
+                stats.record(l);
+                serializer.serializeLong(l);
+            }
+
+            @Override
+            public void serializeInt(int i) throws IOException {
+                stats.record((long) i);
+                serializer.serializeInt(i);
+            }
+
+            @Override
+            public void serializeDouble(double d) throws IOException {
+                stats.record(d);
+                serializer.serializeDouble(d);
+            }
+
+            @Override
+            public void serializeFloat(float f) throws IOException {
+                stats.record((double) f);
+                serializer.serializeFloat(f);
             }
         };
     }
 
-    public static <E extends Number> Serializer<E> scaleByNR(Serializer<Long> serializer, int decimalScale) throws IOException {
+    private static void record(Number o, ColumnStats stats) {
+        if (o instanceof Long || o instanceof Integer) {
+            stats.record(o.longValue());
+        } else if (o instanceof Double || o instanceof Float) {
+            stats.record(o.doubleValue());
+        } else {
+            stats.recordNull();
+        }
+    }
+
+    public static <E extends Number> Serializer<E> scaleByNR(LongSerializer serializer, int decimalScale) throws IOException {
         final double scale = Math.pow(10, decimalScale);
         return new Serializer<E>() {
             private long prev = 0;
@@ -48,79 +131,82 @@ final class SerializerWrappers {
             @Override
             public void serialize(E o) throws IOException {
                 if (o == null) {
-                    serializer.serialize(null);
+                    serializer.serializeNull();
                 } else {
                     double val = o.doubleValue() * scale;
                     double diff = val - prev;
                     long diffRounded = (long) diff;
                     prev += diffRounded;
-                    serializer.serialize(prev);
+                    serializer.serializeLong(prev);
                 }
             }
         };
     }
 
-    public static Serializer<Long> diffSerializer(Serializer<Long> longSerializer) {
-        return new Serializer<Long>() {
+    public static LongSerializer diffSerializer(LongSerializer longSerializer) {
+        return new LongSerializer() {
             long prev = 0L;
             @Override
-            public void serialize(Long o) throws IOException {
-                if (o == null) {
-                    longSerializer.serialize(null);
-                } else {
-                    longSerializer.serialize(o.longValue() - prev);
-                    prev = o.longValue();
-                }
+            public void serializeLong(long l) throws IOException {
+                longSerializer.serializeLong(l - prev);
+                prev = l;
+            }
+
+            @Override
+            public void serializeNull() throws IOException {
+                longSerializer.serializeNull();
             }
         };
     }
 
-    public static Serializer<Long> linearSerializer(Serializer<Long> longSerializer) {
-        return new Serializer<Long>() {
+    public static LongSerializer linearSerializer(LongSerializer longSerializer) {
+        return new LongSerializer() {
             private long prev = 0L;
             private long prev2 = 0L;
             private boolean isFirst = true;
             @Override
-            public void serialize(Long o) throws IOException {
-                if (o == null) {
-                    longSerializer.serialize(null);
-                } else {
-                    longSerializer.serialize(o.longValue() - (prev * 2 - prev2));
+            public void serializeLong(long l) throws IOException {
+                longSerializer.serializeLong(l - (prev * 2 - prev2));
+                prev2 = prev;
+                prev = l;
+                if (isFirst) {
+                    isFirst = false;
                     prev2 = prev;
-                    prev = o.longValue();
-                    if (isFirst) {
-                        isFirst = false;
-                        prev2 = prev;
-                    }
                 }
             }
+
+            @Override
+            public void serializeNull() throws IOException {
+                longSerializer.serializeNull();
+            }
         };
     }
 
-    public static Serializer<Long> medianSerializer(Serializer<Long> longSerializer, int diffLength) {
-        return new Serializer<Long>() {
+    public static LongSerializer medianSerializer(LongSerializer longSerializer, int diffLength) {
+        return new LongSerializer() {
             private long prev = 0L;
             private long[] diffs = new long[diffLength];
             private int pos = 0;
             private boolean isFirst = true;
             @Override
-            public void serialize(Long o) throws IOException {
-                if (o == null) {
-                    longSerializer.serialize(null);
-                } else {
-                    long serializedValue = o.longValue() - (prev + median(diffs));
+            public void serializeLong(long l) throws IOException {
+                long serializedValue = l - (prev + median(diffs));
 
-                    longSerializer.serialize(serializedValue);
+                longSerializer.serializeLong(serializedValue);
 
-                    if (isFirst) {
-                        isFirst = false;
-                    } else {
-                        diffs[pos] = o.longValue() - prev;
-                        pos = (pos + 1) % diffs.length;
-                    }
-
-                    prev = o.longValue();
+                if (isFirst) {
+                    isFirst = false;
+                } else {
+                    diffs[pos] = l - prev;
+                    pos = (pos + 1) % diffs.length;
                 }
+
+                prev = l;
+            }
+
+            @Override
+            public void serializeNull() throws IOException {
+                longSerializer.serializeNull();
             }
         };
     }
@@ -0,0 +1,28 @@
+package com.masyaman.datapack.serializers.numbers;
+
+import com.masyaman.datapack.serializers.LongDeserializer;
+import com.masyaman.datapack.streams.DataReader;
+
+import java.io.IOException;
+
+public class SignedLongDeserializer implements LongDeserializer {
+
+    private DataReader is;
+    private boolean wasNull;
+
+    public SignedLongDeserializer(DataReader is) {
+        this.is = is;
+    }
+
+    @Override
+    public long deserializeLong() throws IOException {
+        long l = is.readSignedLongValue();
+        wasNull = is.wasNull();
+        return l;
+    }
+
+    @Override
+    public boolean wasNull() {
+        return wasNull;
+    }
+}
@@ -0,0 +1,25 @@
+package com.masyaman.datapack.serializers.numbers;
+
+import com.masyaman.datapack.serializers.LongSerializer;
+import com.masyaman.datapack.streams.DataWriter;
+
+import java.io.IOException;
+
+public class SignedLongSerializer implements LongSerializer {
+
+    private DataWriter os;
+
+    public SignedLongSerializer(DataWriter os) {
+        this.os = os;
+    }
+
+    @Override
+    public void serializeLong(long l) throws IOException {
+        os.writeSignedLong(l);
+    }
+
+    @Override
+    public void serializeNull() throws IOException {
+        os.writeSignedLong(null);
+    }
+}
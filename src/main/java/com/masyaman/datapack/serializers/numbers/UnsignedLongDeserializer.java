@@ -1,20 +1,28 @@
 package com.masyaman.datapack.serializers.numbers;
 
-import com.masyaman.datapack.serializers.Deserializer;
+import com.masyaman.datapack.serializers.LongDeserializer;
 import com.masyaman.datapack.streams.DataReader;
 
 import java.io.IOException;
 
-public class UnsignedLongDeserializer implements Deserializer<Long> {
+public class UnsignedLongDeserializer implements LongDeserializer {
 
     private DataReader is;
+    private boolean wasNull;
 
     public UnsignedLongDeserializer(DataReader is) {
         this.is = is;
     }
 
     @Override
-    public Long deserialize() throws IOException {
-        return is.readUnsignedLong();
+    public long deserializeLong() throws IOException {
+        long l = is.readUnsignedLongValue();
+        wasNull = is.wasNull();
+        return l;
+    }
+
+    @Override
+    public boolean wasNull() {
+        return wasNull;
     }
 }
@@ -1,19 +1,13 @@
 package com.masyaman.datapack.serializers.numbers;
 
 import com.masyaman.datapack.reflection.TypeDescriptor;
-import com.masyaman.datapack.serializers.Deserializer;
 import com.masyaman.datapack.serializers.GloballyDefined;
-import com.masyaman.datapack.serializers.Serializer;
+import com.masyaman.datapack.serializers.LongDeserializer;
+import com.masyaman.datapack.serializers.LongSerializer;
 import com.masyaman.datapack.streams.DataReader;
 import com.masyaman.datapack.streams.DataWriter;
 
 import java.io.IOException;
-import java.math.RoundingMode;
-
-import static com.masyaman.datapack.serializers.numbers.DeserializerWrappers.convertTo;
-import static com.masyaman.datapack.serializers.numbers.DeserializerWrappers.scaleBy;
-import static com.masyaman.datapack.serializers.numbers.SerializerWrappers.round;
-import static com.masyaman.datapack.serializers.numbers.SerializerWrappers.scaleBy;
 
 /**
  * Serialization factory for Numbers.
@@ -35,13 +29,13 @@ public class UnsignedLongSerializationFactory extends AbstractNumberSerializatio
     }
 
     @Override
-    public <E extends Number> Serializer<E> createSerializer(DataWriter os, TypeDescriptor<E> type, int decimalPrecision, RoundingMode roundingMode) throws IOException {
-        return scaleBy(round(new UnsignedLongSerializer(os), roundingMode), decimalPrecision, roundingMode);
+    public LongSerializer createLongSerializer(DataWriter os) throws IOException {
+        return new UnsignedLongSerializer(os);
     }
 
     @Override
-    public <E extends Number> Deserializer<E> createDeserializer(DataReader is, TypeDescriptor<E> type, int decimalPrecision) throws IOException {
-        return scaleBy(convertTo(new UnsignedLongDeserializer(is), type), decimalPrecision, RoundingMode.HALF_UP);
+    public LongDeserializer createLongDeserializer(DataReader is) throws IOException {
+        return new UnsignedLongDeserializer(is);
     }
 
 }
@@ -1,11 +1,11 @@
 package com.masyaman.datapack.serializers.numbers;
 
-import com.masyaman.datapack.serializers.Serializer;
+import com.masyaman.datapack.serializers.LongSerializer;
 import com.masyaman.datapack.streams.DataWriter;
 
 import java.io.IOException;
 
-public class UnsignedLongSerializer implements Serializer<Long> {
+public class UnsignedLongSerializer implements LongSerializer {
 
     private DataWriter os;
 
@@ -14,7 +14,12 @@ public class UnsignedLongSerializer implements Serializer<Long> {
     }
 
     @Override
-    public void serialize(Long l) throws IOException {
+    public void serializeLong(long l) throws IOException {
         os.writeUnsignedLong(l);
     }
+
+    @Override
+    public void serializeNull() throws IOException {
+        os.writeUnsignedLong(null);
+    }
 }
@@ -83,4 +83,13 @@ class JsonObjectDeserializer implements Deserializer<String> {
 
         return sb.toString();
     }
+
+    @Override
+    public boolean skip() throws IOException {
+        boolean allNulls = true;
+        for (Deserializer deserializer : deserializers) {
+            allNulls &= !deserializer.skip();
+        }
+        return !allNulls || is.readUnsignedLong() != null;
+    }
 }
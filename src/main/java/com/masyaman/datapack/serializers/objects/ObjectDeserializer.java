@@ -1,9 +1,9 @@
 package com.masyaman.datapack.serializers.objects;
 
-import com.masyaman.datapack.reflection.ClassUtils;
 import com.masyaman.datapack.reflection.Setter;
 import com.masyaman.datapack.reflection.TypeDescriptor;
 import com.masyaman.datapack.serializers.Deserializer;
+import com.masyaman.datapack.serializers.NumberDeserializer;
 import com.masyaman.datapack.streams.DataReader;
 
 import java.io.IOException;
@@ -14,12 +14,17 @@ import java.util.Map;
 
 class ObjectDeserializer<T> implements Deserializer<T> {
 
+    // Marks field which value is kept in primitives array
+    private static final Object PRIMITIVE_VALUE = new Object();
+
     private DataReader is;
     private Constructor<T> constructor;
 
     // TODO make setter with serializer
     private List<Setter> setters = new ArrayList<>();
     private List<Deserializer> deserializers = new ArrayList<>();
+    // Primitive types of fields read by number deserializers without boxing, null for other fields
+    private Class<?>[] primitiveTypes;
 
     public ObjectDeserializer(DataReader is, TypeDescriptor<T> type) throws IOException {
         this.is = is;
@@ -33,18 +38,17 @@ class ObjectDeserializer<T> implements Deserializer<T> {
                 throw new IOException("Unable to find class for name " + className);
             }
         }
-        try {
-            if (type != null && !type.getType().isAssignableFrom(clazz)) {
-                throw new IOException("Classes are not matched, expected " + type.getType().getName() +
-                        " but found " + clazz.getName());
-            }
-            constructor = clazz.getConstructor();
-            constructor.setAccessible(true);
-        } catch (NoSuchMethodException e) {
+        if (type != null && !type.getType().isAssignableFrom(clazz)) {
+            throw new IOException("Classes are not matched, expected " + type.getType().getName() +
+                    " but found " + clazz.getName());
+        }
+        ObjectPlan<T> plan = is.getClassManager().getObjectPlan(clazz);
+        constructor = plan.getConstructor();
+        if (constructor == null) {
             throw new IOException("Unable to find default constructor for class " + clazz.getName());
         }
 
-        Map<String, Setter> setterMap = ClassUtils.setterMap(clazz, is.getClassManager());
+        Map<String, Setter> setterMap = plan.getSetters();
 
         Long fieldsNum = is.readUnsignedLong();
         for (int i = 0; i < fieldsNum; i++) {
@@ -57,21 +61,82 @@ class ObjectDeserializer<T> implements Deserializer<T> {
 
             Deserializer deserializer = is.createAndRegisterDeserializer(setter == null ? null : setter.type());
 
+            if (setter != null && !is.isFieldRequested(clazz, fieldName)) {
+                setter = null;
+            }
+
             deserializers.add(deserializer);
             setters.add(setter);
         }
+
+        primitiveTypes = new Class<?>[setters.size()];
+        for (int i = 0; i < setters.size(); i++) {
+            Setter setter = setters.get(i);
+            if (setter != null && deserializers.get(i) instanceof NumberDeserializer
+                    && ObjectSerializer.isSupportedPrimitive(setter.type().getType())) {
+                primitiveTypes[i] = setter.type().getType();
+            }
+        }
+
+        // Value written for primitive field is null only for null object, so it's enough to detect null and empty
+        // objects. Unset fields stored in their own columns could be left unread then.
+        int nullDetector = findWrittenAsPrimitive(true);
+        if (nullDetector < 0) {
+            nullDetector = findWrittenAsPrimitive(false);
+        }
+        if (nullDetector >= 0) {
+            for (int i = 0; i < setters.size(); i++) {
+                if (i != nullDetector && setters.get(i) == null && is.isIsolated(deserializers.get(i))) {
+                    is.markUnused(deserializers.get(i));
+                    deserializers.set(i, null);
+                }
+            }
+        }
+    }
+
+    /**
+     * @return index of first field written as primitive, -1 if there is no such field
+     */
+    private int findWrittenAsPrimitive(boolean requestedOnly) {
+        for (int i = 0; i < setters.size(); i++) {
+            if ((!requestedOnly || setters.get(i) != null) && is.isWrittenAsPrimitive(deserializers.get(i))) {
+                return i;
+            }
+        }
+        return -1;
     }
 
     @Override
     public T deserialize() throws IOException {
 
         List fields = new ArrayList<>(setters.size());
+        long[] primitives = null;
         boolean allNulls = true;
 
         for (int i = 0; i < setters.size(); i++) {
-            Object field = deserializers.get(i).deserialize();
-            fields.add(field);
-            allNulls &= field == null;
+            Deserializer deserializer = deserializers.get(i);
+            if (deserializer == null) {
+                fields.add(null);
+            } else if (setters.get(i) == null) {
+                fields.add(null);
+                allNulls &= !deserializer.skip();
+            } else if (primitiveTypes[i] != null) {
+                if (primitives == null) {
+                    primitives = new long[setters.size()];
+                }
+                NumberDeserializer numberDeserializer = (NumberDeserializer) deserializer;
+                Class<?> type = primitiveTypes[i];
+                primitives[i] = type == double.class || type == float.class
+                        ? Double.doubleToRawLongBits(numberDeserializer.deserializeDouble())
+                        : numberDeserializer.deserializeLong();
+                boolean isNull = numberDeserializer.wasNull();
+                fields.add(isNull ? null : PRIMITIVE_VALUE);
+                allNulls &= isNull;
+            } else {
+                Object field = deserializer.deserialize();
+                fields.add(field);
+                allNulls &= field == null;
+            }
         }
 
         if (allNulls && is.readUnsignedLong() == null) {
@@ -86,8 +151,15 @@ class ObjectDeserializer<T> implements Deserializer<T> {
         }
 
         for (int i = 0; i < setters.size(); i++) {
+            if (setters.get(i) == null) {
+                continue;
+            }
             try {
-                setters.get(i).set(object, fields.get(i));
+                if (fields.get(i) == PRIMITIVE_VALUE) {
+                    setPrimitive(setters.get(i), primitiveTypes[i], object, primitives[i]);
+                } else {
+                    setters.get(i).set(object, fields.get(i));
+                }
             } catch (ReflectiveOperationException e) {
                 throw new IOException("Unable to serialize", e);
             }
@@ -95,4 +167,27 @@ class ObjectDeserializer<T> implements Deserializer<T> {
 
         return object;
     }
+
+    private static void setPrimitive(Setter setter, Class<?> type, Object object, long value) throws ReflectiveOperationException {
+        if (type == long.class) {
+            setter.setLong(object, value);
+        } else if (type == int.class) {
+            setter.setInt(object, (int) value);
+        } else if (type == double.class) {
+            setter.setDouble(object, Double.longBitsToDouble(value));
+        } else {
+            setter.setFloat(object, (float) Double.longBitsToDouble(value));
+        }
+    }
+
+    @Override
+    public boolean skip() throws IOException {
+        boolean allNulls = true;
+        for (Deserializer deserializer : deserializers) {
+            if (deserializer != null) {
+                allNulls &= !deserializer.skip();
+            }
+        }
+        return !allNulls || is.readUnsignedLong() != null;
+    }
 }
@@ -0,0 +1,150 @@
+package com.masyaman.datapack.serializers.objects;
+
+import com.masyaman.datapack.annotations.Alias;
+import com.masyaman.datapack.annotations.serialization.IgnoredField;
+import com.masyaman.datapack.annotations.serialization.SerializeBy;
+import com.masyaman.datapack.reflection.ClassUtils;
+import com.masyaman.datapack.reflection.Getter;
+import com.masyaman.datapack.reflection.Setter;
+import com.masyaman.datapack.reflection.TypeDescriptor;
+import com.masyaman.datapack.serializers.SerializationFactory;
+import com.masyaman.datapack.streams.ClassManager;
+
+import java.lang.reflect.Constructor;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+import static com.masyaman.datapack.annotations.AnnotationsHelper.annotationsFrom;
+import static com.masyaman.datapack.annotations.AnnotationsHelper.serializeAs;
+import static com.masyaman.datapack.serializers.SerializationFactory.getInstance;
+
+/**
+ * Reflection data of class needed to create object serializers and deserializers: name, fields, accessors and
+ * constructor. Plan is immutable, it's built once per class by {@link ClassManager#getObjectPlan(Class)} and shared
+ * by all streams, so creation of serializer does not use reflection.
+ */
+public final class ObjectPlan<T> {
+
+    private final Class<T> type;
+    private final String name;
+    private final List<Field> fields;
+    private final Map<String, Setter> setters;
+    private final Constructor<T> constructor;
+
+    public ObjectPlan(Class<T> type, ClassManager classManager) {
+        this.type = type;
+
+        Class<?> mixInClass = classManager.getMixInClass(type);
+        if (mixInClass != null && mixInClass.isAnnotationPresent(Alias.class)) {
+            name = mixInClass.getAnnotation(Alias.class).value();
+        } else if (type.isAnnotationPresent(Alias.class)) {
+            name = type.getAnnotation(Alias.class).value();
+        } else {
+            name = type.getName();
+        }
+
+        List<Field> fields = new ArrayList<>();
+        for (Map.Entry<String, Getter> getterEntry : ClassUtils.getterMap(type, classManager).entrySet()) {
+            Getter<?> getter = getterEntry.getValue();
+            if (getter.type().getAnnotation(IgnoredField.class) != null) {
+                continue;
+            }
+
+            SerializeBy declared = getter.type().getAnnotation(SerializeBy.class);
+            TypeDescriptor declaredType = new TypeDescriptor(serializeAs(declared, getter.type().getType()),
+                    getter.type().getParametrizedType(),
+                    annotationsFrom(declared, getter.type().getAnnotations()));
+            boolean specifiedType = serializeAs(declared, null) != null || declaredType.isFinal();
+            SerializationFactory factory = declared != null ? getInstance(declared.value()) : null;
+
+            fields.add(new Field(getterEntry.getKey(), getter, declaredType, specifiedType, factory));
+        }
+        this.fields = Collections.unmodifiableList(fields);
+        this.setters = Collections.unmodifiableMap(ClassUtils.setterMap(type, classManager));
+
+        Constructor<T> constructor;
+        try {
+            constructor = type.getConstructor();
+            constructor.setAccessible(true);
+        } catch (NoSuchMethodException e) {
+            constructor = null;
+        }
+        this.constructor = constructor;
+    }
+
+    public Class<T> getType() {
+        return type;
+    }
+
+    /**
+     * @return class name or alias written to stream
+     */
+    public String getName() {
+        return name;
+    }
+
+    /**
+     * @return serialized fields in declaration order, ignored fields are excluded
+     */
+    public List<Field> getFields() {
+        return fields;
+    }
+
+    public Map<String, Setter> getSetters() {
+        return setters;
+    }
+
+    /**
+     * @return default constructor, null if class doesn't have it
+     */
+    public Constructor<T> getConstructor() {
+        return constructor;
+    }
+
+    public static final class Field {
+        private final String name;
+        private final Getter getter;
+        private final TypeDescriptor declaredType;
+        private final boolean specifiedType;
+        private final SerializationFactory serializationFactory;
+
+        private Field(String name, Getter getter, TypeDescriptor declaredType, boolean specifiedType, SerializationFactory serializationFactory) {
+            this.name = name;
+            this.getter = getter;
+            this.declaredType = declaredType;
+            this.specifiedType = specifiedType;
+            this.serializationFactory = serializationFactory;
+        }
+
+        public String getName() {
+            return name;
+        }
+
+        public Getter getGetter() {
+            return getter;
+        }
+
+        /**
+         * @return type used to select serializer, see {@link SerializeBy}
+         */
+        public TypeDescriptor getDeclaredType() {
+            return declaredType;
+        }
+
+        /**
+         * @return true if field value is always of declared type
+         */
+        public boolean isSpecifiedType() {
+            return specifiedType;
+        }
+
+        /**
+         * @return factory set by {@link SerializeBy}, null if it should be found by lookup
+         */
+        public SerializationFactory getSerializationFactory() {
+            return serializationFactory;
+        }
+    }
+}
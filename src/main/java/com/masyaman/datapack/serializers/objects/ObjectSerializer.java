@@ -1,11 +1,8 @@
 package com.masyaman.datapack.serializers.objects;
 
-import com.masyaman.datapack.annotations.Alias;
-import com.masyaman.datapack.annotations.serialization.IgnoredField;
-import com.masyaman.datapack.annotations.serialization.SerializeBy;
-import com.masyaman.datapack.reflection.ClassUtils;
 import com.masyaman.datapack.reflection.Getter;
 import com.masyaman.datapack.reflection.TypeDescriptor;
+import com.masyaman.datapack.serializers.NumberSerializer;
 import com.masyaman.datapack.serializers.SerializationFactory;
 import com.masyaman.datapack.serializers.Serializer;
 import com.masyaman.datapack.streams.DataWriter;
@@ -14,10 +11,6 @@ import com.masyaman.datapack.utils.Constants;
 import java.io.IOException;
 import java.util.*;
 
-import static com.masyaman.datapack.annotations.AnnotationsHelper.annotationsFrom;
-import static com.masyaman.datapack.annotations.AnnotationsHelper.serializeAs;
-import static com.masyaman.datapack.serializers.SerializationFactory.getInstance;
-
 class ObjectSerializer<T> implements Serializer<T> {
 
     private DataWriter os;
@@ -27,41 +20,19 @@ class ObjectSerializer<T> implements Serializer<T> {
     public ObjectSerializer(DataWriter os, TypeDescriptor type) throws IOException {
         this.os = os;
 
-        Class<?> clazz = type.getType();
-        Class<?> mixInClass = os.getClassManager().getMixInClass(clazz);
-
-        if (mixInClass != null && mixInClass.isAnnotationPresent(Alias.class)) {
-            os.writeString(mixInClass.getAnnotation(Alias.class).value());
-        } else if (clazz.isAnnotationPresent(Alias.class)){
-            os.writeString(clazz.getAnnotation(Alias.class).value());
-        } else {
-            os.writeString(clazz.getName());
-        }
-
-        Map<String, Getter> getterMap = ClassUtils.getterMap(clazz, os.getClassManager());
-        for (Map.Entry<String, Getter> getterEntry : getterMap.entrySet()) {
-            Getter<?> getter = getterEntry.getValue();
-
-            if (getter.type().getAnnotation(IgnoredField.class) != null) {
-                continue;
-            }
-
-            SerializeBy declared = getter.type().getAnnotation(SerializeBy.class);
-            TypeDescriptor declaredType = new TypeDescriptor(serializeAs(declared, getter.type().getType()),
-                    getter.type().getParametrizedType(),
-                    annotationsFrom(declared, getter.type().getAnnotations()));
-
-            boolean isSpecifiedType = serializeAs(declared, null) != null || declaredType.isFinal();
+        ObjectPlan<?> plan = os.getClassManager().getObjectPlan(type.getType());
+        os.writeString(plan.getName());
 
+        for (ObjectPlan.Field field : plan.getFields()) {
             SerializationFactory serializationFactory;
             try {
-                serializationFactory = declared != null ? getInstance(declared.value()) :
-                        os.getSerializationFactoryLookup().getSerializationFactory(declaredType, isSpecifiedType);
+                serializationFactory = field.getSerializationFactory() != null ? field.getSerializationFactory() :
+                        os.getSerializationFactoryLookup().getSerializationFactory(field.getDeclaredType(), field.isSpecifiedType());
             } catch (Exception e) {
-                throw new IOException("Unable to create serializer for field " + clazz.getName() + "." + getterEntry.getKey(), e);
+                throw new IOException("Unable to create serializer for field " + plan.getType().getName() + "." + field.getName(), e);
             }
 
-            serializations.add(new SerializationData(getterEntry.getKey(), getter, serializationFactory, declaredType));
+            serializations.add(new SerializationData(field.getName(), field.getGetter(), serializationFactory, field.getDeclaredType()));
         }
 
         if (Constants.ENABLE_REORDERING_FIELDS) {
@@ -71,7 +42,16 @@ class ObjectSerializer<T> implements Serializer<T> {
         os.writeUnsignedLong((long) serializations.size());
         for (SerializationData serialization : serializations) {
             os.writeString(serialization.fieldName);
-            serialization.serializer = os.createAndRegisterSerializer(serialization.serializationFactory, serialization.declaredType);
+            os.beginField(serialization.fieldName);
+            try {
+                serialization.serializer = os.createAndRegisterSerializer(serialization.serializationFactory, serialization.declaredType);
+                Class<?> fieldType = serialization.getter.type().getType();
+                if (serialization.serializer instanceof NumberSerializer && isSupportedPrimitive(fieldType)) {
+                    serialization.primitiveType = fieldType;
+                }
+            } finally {
+                os.endField();
+            }
         }
     }
 
@@ -86,6 +66,11 @@ class ObjectSerializer<T> implements Serializer<T> {
             boolean allNulls = true;
             for (SerializationData serialization : serializations) {
                 try {
+                    if (serialization.primitiveType != null) {
+                        serializePrimitive(serialization, o);
+                        allNulls = false;
+                        continue;
+                    }
                     Object field = serialization.getter.get(o);
                     serialization.serializer.serialize(field);
                     allNulls &= field == null;
@@ -99,12 +84,34 @@ class ObjectSerializer<T> implements Serializer<T> {
         }
     }
 
+    /**
+     * Pass value of primitive field to number serializer without boxing.
+     */
+    private static void serializePrimitive(SerializationData serialization, Object o) throws IOException, ReflectiveOperationException {
+        NumberSerializer serializer = (NumberSerializer) serialization.serializer;
+        Class<?> type = serialization.primitiveType;
+        if (type == long.class) {
+            serializer.serializeLong(serialization.getter.getLong(o));
+        } else if (type == int.class) {
+            serializer.serializeInt(serialization.getter.getInt(o));
+        } else if (type == double.class) {
+            serializer.serializeDouble(serialization.getter.getDouble(o));
+        } else {
+            serializer.serializeFloat(serialization.getter.getFloat(o));
+        }
+    }
+
+    static boolean isSupportedPrimitive(Class<?> type) {
+        return type == long.class || type == int.class || type == double.class || type == float.class;
+    }
+
     private static class SerializationData implements Comparable<SerializationData> {
         private String fieldName;
         private Getter getter;
         private SerializationFactory serializationFactory;
         private TypeDescriptor declaredType;
         private Serializer serializer;
+        private Class<?> primitiveType;
 
         public SerializationData(String fieldName, Getter getter, SerializationFactory serializationFactory, TypeDescriptor declaredType) {
             this.fieldName = fieldName;
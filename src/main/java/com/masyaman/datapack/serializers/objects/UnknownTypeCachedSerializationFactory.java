@@ -5,6 +5,7 @@ import com.masyaman.datapack.reflection.TypeDescriptor;
 import com.masyaman.datapack.serializers.Deserializer;
 import com.masyaman.datapack.serializers.SerializationFactory;
 import com.masyaman.datapack.serializers.Serializer;
+import com.masyaman.datapack.serializers.SharesParentStream;
 import com.masyaman.datapack.serializers.caching.LatestFirstCachedDeserializer;
 import com.masyaman.datapack.serializers.caching.LatestFirstCachedSerializer;
 import com.masyaman.datapack.streams.DataReader;
@@ -17,7 +18,7 @@ import java.io.IOException;
  * Cached version of {@link UnknownTypeSerializationFactory}.
  * Caution: serializer stores previous values, so objects may be stored incorrectly if they're not immutable.
  */
-public final class UnknownTypeCachedSerializationFactory<E> extends SerializationFactory<E> {
+public final class UnknownTypeCachedSerializationFactory<E> extends SerializationFactory<E> implements SharesParentStream {
 
     public static final UnknownTypeCachedSerializationFactory INSTANCE = new UnknownTypeCachedSerializationFactory();
 
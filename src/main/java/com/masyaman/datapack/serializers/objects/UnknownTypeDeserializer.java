@@ -20,4 +20,9 @@ class UnknownTypeDeserializer<T> implements Deserializer<T> {
     public T deserialize() throws IOException {
         return is.readObject(type);
     }
+
+    @Override
+    public boolean skip() throws IOException {
+        return is.skipObject(type);
+    }
 }
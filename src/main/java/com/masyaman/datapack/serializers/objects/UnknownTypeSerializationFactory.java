@@ -4,6 +4,7 @@ import com.masyaman.datapack.reflection.TypeDescriptor;
 import com.masyaman.datapack.serializers.Deserializer;
 import com.masyaman.datapack.serializers.SerializationFactory;
 import com.masyaman.datapack.serializers.Serializer;
+import com.masyaman.datapack.serializers.SharesParentStream;
 import com.masyaman.datapack.streams.DataReader;
 import com.masyaman.datapack.streams.DataWriter;
 
@@ -12,7 +13,7 @@ import java.io.IOException;
 /**
  * Serialization factory for any user objects. Object type may not be known at the moment of serialization creation.
  */
-public final class UnknownTypeSerializationFactory<E> extends SerializationFactory<E> {
+public final class UnknownTypeSerializationFactory<E> extends SerializationFactory<E> implements SharesParentStream {
 
     public static final UnknownTypeSerializationFactory INSTANCE = new UnknownTypeSerializationFactory();
 
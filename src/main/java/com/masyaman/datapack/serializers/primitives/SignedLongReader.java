@@ -1,31 +1,25 @@
 package com.masyaman.datapack.serializers.primitives;
 
-import com.masyaman.datapack.serializers.Deserializer;
+/**
+ * Decoder of signed variable-length Longs.
+ * Length of value is defined by the first byte, see {@link #length(int)}. Caller should ensure that all bytes of
+ * value are available in the array starting from position.
+ */
+public final class SignedLongReader {
 
-import java.io.IOException;
-import java.io.InputStream;
+    public static final int NULL_VALUE = 0x40; // -64 in single byte representation
 
-public class SignedLongReader implements Deserializer<Long> {
+    private SignedLongReader() {}
 
-    private InputStream is;
-
-    public SignedLongReader(InputStream is) {
-        this.is = is;
+    public static int length(int firstByte) {
+        return 1 + Integer.numberOfLeadingZeros(~(firstByte << 24));
     }
 
-    @Override
-    public Long deserialize() throws IOException {
-        int b = is.read();
-        if (b == 0x40) {
-            return null; // -64 in single byte representation
-        }
-        int bytesToRead = 0;
-        while ((b & (0x80 >> bytesToRead)) != 0) {
-            bytesToRead++;
-        }
-        long result = b & ~(0xFFFFFF80 >> bytesToRead);
-        for (int i = 0; i < bytesToRead; i++) {
-            result = (result << 8) | is.read();
+    public static long read(byte[] buffer, int position, int length) {
+        int bytesToRead = length - 1;
+        long result = buffer[position] & ~(0xFFFFFF80 >> bytesToRead);
+        for (int i = 1; i <= bytesToRead; i++) {
+            result = (result << 8) | (buffer[position + i] & 0xFF);
         }
         if (bytesToRead < 8) {
             int shift = 64 - 7 * (bytesToRead + 1);
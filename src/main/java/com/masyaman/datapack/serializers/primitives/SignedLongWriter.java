@@ -1,39 +1,39 @@
 package com.masyaman.datapack.serializers.primitives;
 
-import com.masyaman.datapack.serializers.Serializer;
+/**
+ * Encoder of signed variable-length Longs.
+ * Values are written directly to the byte array, caller should ensure that at least {@link #MAX_LENGTH} bytes are
+ * available starting from position.
+ */
+public final class SignedLongWriter {
 
-import java.io.IOException;
-import java.io.OutputStream;
+    public static final int MAX_LENGTH = 9;
+    public static final int NULL_VALUE = 0x40; // -64 in single byte representation
 
-public class SignedLongWriter implements Serializer<Long> {
+    private SignedLongWriter() {}
 
-    private OutputStream os;
-
-    public SignedLongWriter(OutputStream os) {
-        this.os = os;
+    public static int writeNull(byte[] buffer, int position) {
+        buffer[position++] = NULL_VALUE;
+        return position;
     }
 
-    @Override
-    public void serialize(Long l) throws IOException {
-        if (l == null) {
-           os.write(0x40); // -64 in single byte representation
-           return;
-        }
+    public static int write(byte[] buffer, int position, long l) {
         int minBytes = l <= -64 ? 2 : 1; // preserve -64 for 1-byte null value
         for (int i = minBytes; i <= 8; i++) {
             int shift = 64 - 7 * i;
             if (((l << shift) >> shift) == l) {
                 int prefix = 0xFFFFFF00 >> (i - 1);
-                os.write((byte) (prefix | (l >> ((i - 1) * 8)) & ~(prefix >> 1)));
+                buffer[position++] = (byte) (prefix | (l >> ((i - 1) * 8)) & ~(prefix >> 1));
                 for (int j = i - 2; j >= 0; j--) {
-                    os.write((byte) (l >> (j * 8)));
+                    buffer[position++] = (byte) (l >> (j * 8));
                 }
-                return;
+                return position;
             }
         }
-        os.write(0xFF);
+        buffer[position++] = (byte) 0xFF;
         for (int i = 0; i < 8; i++) {
-            os.write((byte) (l >> (56 - i * 8)));
+            buffer[position++] = (byte) (l >> (56 - i * 8));
         }
+        return position;
     }
 }
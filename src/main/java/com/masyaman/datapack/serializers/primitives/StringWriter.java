@@ -1,32 +1,23 @@
 package com.masyaman.datapack.serializers.primitives;
 
-import com.masyaman.datapack.serializers.Serializer;
-
-import java.io.IOException;
-import java.io.OutputStream;
-
 import static com.masyaman.datapack.utils.Constants.CHARSET;
 
-public class StringWriter implements Serializer<String> {
+/**
+ * Encoder of Strings.
+ * Data format is:
+ * [Length as unsigned Long][Bytes]
+ */
+public final class StringWriter {
 
-    private OutputStream os;
-    private Serializer<Long> lengthWriter;
+    private StringWriter() {}
 
-    public StringWriter(OutputStream os, Serializer<Long> lengthWriter) {
-        this.os = os;
-        this.lengthWriter = lengthWriter;
+    public static byte[] getBytes(String s) {
+        return s.getBytes(CHARSET);
     }
 
-    @Override
-    public void serialize(String s) throws IOException {
-        if (s == null) {
-           lengthWriter.serialize(null);
-           return;
-        }
-        lengthWriter.serialize((long) s.length());
-        for (byte b : s.getBytes(CHARSET)) {
-            os.write(b);
-        }
-
+    public static int write(byte[] buffer, int position, String s, byte[] bytes) {
+        position = UnsignedLongWriter.write(buffer, position, s.length());
+        System.arraycopy(bytes, 0, buffer, position, bytes.length);
+        return position + bytes.length;
     }
 }
@@ -1,32 +1,53 @@
 package com.masyaman.datapack.serializers.primitives;
 
-import com.masyaman.datapack.serializers.Deserializer;
-
+import java.io.EOFException;
 import java.io.IOException;
 import java.io.InputStream;
 
-public class UnsignedLongReader implements Deserializer<Long> {
+/**
+ * Decoder of unsigned variable-length Longs.
+ * Length of value is defined by the first byte, see {@link #length(int)}. Caller should ensure that all bytes of
+ * value are available in the array starting from position.
+ */
+public final class UnsignedLongReader {
+
+    public static final int NULL_VALUE = 0x7F; // 127 in single byte representation
 
-    private InputStream is;
+    private UnsignedLongReader() {}
 
-    public UnsignedLongReader(InputStream is) {
-        this.is = is;
+    public static int length(int firstByte) {
+        return 1 + Integer.numberOfLeadingZeros(~(firstByte << 24));
     }
 
-    @Override
-    public Long deserialize() throws IOException {
+    public static long read(byte[] buffer, int position, int length) {
+        int bytesToRead = length - 1;
+        long result = buffer[position] & ~(0xFFFFFF80 >> bytesToRead);
+        for (int i = 1; i <= bytesToRead; i++) {
+            result = (result << 8) | (buffer[position + i] & 0xFF);
+        }
+        return result;
+    }
+
+    /**
+     * Read value from unbuffered stream.
+     */
+    public static Long read(InputStream is) throws IOException {
         int b = is.read();
-        if (b == 0x7F) {
-            return null; // -64 in single byte representation
+        if (b < 0) {
+            throw new EOFException();
         }
-        int bytesToRead = 0;
-        while ((b & (0x80 >> bytesToRead)) != 0) {
-            bytesToRead++;
+        if (b == NULL_VALUE) {
+            return null;
         }
-        long result = b & ~(0xFFFFFF80 >> bytesToRead);
-        for (int i = 0; i < bytesToRead; i++) {
-            result = (result << 8) | is.read();
+        byte[] bytes = new byte[length(b)];
+        bytes[0] = (byte) b;
+        for (int i = 1; i < bytes.length; i++) {
+            int next = is.read();
+            if (next < 0) {
+                throw new EOFException();
+            }
+            bytes[i] = (byte) next;
         }
-        return result;
+        return read(bytes, 0, bytes.length);
     }
 }
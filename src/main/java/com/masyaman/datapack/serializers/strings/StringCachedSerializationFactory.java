@@ -11,6 +11,8 @@ import com.masyaman.datapack.streams.DataReader;
 import com.masyaman.datapack.streams.DataWriter;
 
 import java.io.IOException;
+import java.util.Collections;
+import java.util.List;
 
 import static com.masyaman.datapack.serializers.formats.FormatsDeserializerWrappers.*;
 
@@ -40,12 +42,32 @@ public class StringCachedSerializationFactory extends SerializationFactory<Strin
 
     @Override
     public <E extends String> Serializer<E> createSerializer(DataWriter os, TypeDescriptor<E> type) throws IOException {
-        return (Serializer<E>) new LatestFirstCachedSerializer(os, new StringSerializer(os), AnnotationsHelper.getCacheSize(type));
+        return createSerializer(os, type, os.getStringDictionary() == null
+                ? Collections.<String>emptyList() : os.getStringDictionary().getValues());
+    }
+
+    /**
+     * Create serializer with given strings preloaded into cache instead of whole string dictionary.
+     */
+    public <E extends String> Serializer<E> createSerializer(DataWriter os, TypeDescriptor<E> type, List<String> preloaded) throws IOException {
+        LatestFirstCachedSerializer serializer = new LatestFirstCachedSerializer(os, new StringSerializer(os), AnnotationsHelper.getCacheSize(type));
+        serializer.preload(preloaded);
+        return serializer;
     }
 
     @Override
     public <E> Deserializer<E> createDeserializer(DataReader is, TypeDescriptor<E> type) throws IOException {
-        return wrap(new LatestFirstCachedDeserializer(is, new StringDeserializer(is)), type);
+        return createDeserializer(is, type, is.getStringDictionary() == null
+                ? Collections.<String>emptyList() : is.getStringDictionary().getValues());
+    }
+
+    /**
+     * Create deserializer with given strings preloaded into cache, see {@link #createSerializer(DataWriter, TypeDescriptor, List)}.
+     */
+    public <E> Deserializer<E> createDeserializer(DataReader is, TypeDescriptor<E> type, List<String> preloaded) throws IOException {
+        LatestFirstCachedDeserializer deserializer = new LatestFirstCachedDeserializer(is, new StringDeserializer(is));
+        deserializer.preload(preloaded);
+        return wrap(deserializer, type);
     }
 
 
@@ -10,6 +10,8 @@ import com.masyaman.datapack.streams.DataReader;
 import com.masyaman.datapack.streams.DataWriter;
 
 import java.io.IOException;
+import java.util.Collections;
+import java.util.List;
 
 import static com.masyaman.datapack.serializers.formats.FormatsDeserializerWrappers.wrap;
 
@@ -39,12 +41,32 @@ public class StringConstantsSerializationFactory extends SerializationFactory<St
 
     @Override
     public <E extends String> Serializer<E> createSerializer(DataWriter os, TypeDescriptor<E> type) throws IOException {
-        return (Serializer<E>) new SimpleCachedSerializer(os, new StringSerializer(os));
+        return createSerializer(os, type, os.getStringDictionary() == null
+                ? Collections.<String>emptyList() : os.getStringDictionary().getValues());
+    }
+
+    /**
+     * Create serializer with given strings preloaded into cache instead of whole string dictionary.
+     */
+    public <E extends String> Serializer<E> createSerializer(DataWriter os, TypeDescriptor<E> type, List<String> preloaded) throws IOException {
+        SimpleCachedSerializer serializer = new SimpleCachedSerializer(os, new StringSerializer(os));
+        serializer.preload(preloaded);
+        return serializer;
     }
 
     @Override
     public <E> Deserializer<E> createDeserializer(DataReader is, TypeDescriptor<E> type) throws IOException {
-        return wrap(new SimpleCachedDeserializer(is, new StringDeserializer(is)), type);
+        return createDeserializer(is, type, is.getStringDictionary() == null
+                ? Collections.<String>emptyList() : is.getStringDictionary().getValues());
+    }
+
+    /**
+     * Create deserializer with given strings preloaded into cache, see {@link #createSerializer(DataWriter, TypeDescriptor, List)}.
+     */
+    public <E> Deserializer<E> createDeserializer(DataReader is, TypeDescriptor<E> type, List<String> preloaded) throws IOException {
+        SimpleCachedDeserializer deserializer = new SimpleCachedDeserializer(is, new StringDeserializer(is));
+        deserializer.preload(preloaded);
+        return wrap(deserializer, type);
     }
 
 }
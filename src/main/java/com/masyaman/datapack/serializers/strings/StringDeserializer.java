@@ -17,4 +17,9 @@ public class StringDeserializer implements Deserializer<String> {
     public String deserialize() throws IOException {
         return is.readString();
     }
+
+    @Override
+    public boolean skip() throws IOException {
+        return is.skipString();
+    }
 }
@@ -0,0 +1,199 @@
+package com.masyaman.datapack.streams;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.io.OutputStream;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CountDownLatch;
+
+/**
+ * Output stream which passes data to underlying stream on background thread.
+ * Data is collected into one buffer while other filled buffers are written by background thread, buffers are passed
+ * between threads without copying. Writing blocks only if all buffers are waiting to be written.
+ * Underlying stream could do compression, like {@link java.util.zip.GZIPOutputStream}, so it's done in background too.
+ * <p>
+ * {@link #flush()} returns after all data written before is passed to underlying stream and it's flushed.
+ * {@link #close()} writes all data and closes underlying stream. Errors of underlying stream are reported by
+ * next call of any method.
+ */
+public class AsyncOutputStream extends OutputStream {
+
+    public static final int DEFAULT_BUFFER_SIZE = 65536;
+    public static final int DEFAULT_BUFFER_COUNT = 2;
+
+    private OutputStream os;
+    private BlockingQueue<Chunk> filled;
+    private BlockingQueue<Chunk> free;
+    private Thread thread;
+
+    private Chunk current;
+    private boolean closed = false;
+    private volatile Throwable error = null;
+
+    public AsyncOutputStream(OutputStream os) {
+        this(os, DEFAULT_BUFFER_SIZE, DEFAULT_BUFFER_COUNT);
+    }
+
+    /**
+     * @param bufferCount number of buffers, at least 2
+     */
+    public AsyncOutputStream(OutputStream os, int bufferSize, int bufferCount) {
+        if (bufferSize <= 0 || bufferCount < 2) {
+            throw new IllegalArgumentException("Incorrect buffers " + bufferCount + " x " + bufferSize);
+        }
+        this.os = os;
+        this.filled = new ArrayBlockingQueue<>(bufferCount + 1);
+        this.free = new ArrayBlockingQueue<>(bufferCount);
+        for (int i = 1; i < bufferCount; i++) {
+            free.add(new Chunk(new byte[bufferSize]));
+        }
+        current = new Chunk(new byte[bufferSize]);
+
+        thread = new Thread(new Runnable() {
+            @Override
+            public void run() {
+                drain();
+            }
+        }, "AsyncOutputStream");
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    @Override
+    public void write(int b) throws IOException {
+        checkState();
+        if (current.length == current.data.length) {
+            handOff();
+        }
+        current.data[current.length++] = (byte) b;
+    }
+
+    @Override
+    public void write(byte[] b, int off, int len) throws IOException {
+        checkState();
+        while (len > 0) {
+            if (current.length == current.data.length) {
+                handOff();
+                checkError();
+            }
+            int length = Math.min(len, current.data.length - current.length);
+            System.arraycopy(b, off, current.data, current.length, length);
+            current.length += length;
+            off += length;
+            len -= length;
+        }
+    }
+
+    @Override
+    public void flush() throws IOException {
+        checkState();
+        sync(false);
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (closed) {
+            return;
+        }
+        try {
+            sync(true);
+        } finally {
+            closed = true;
+        }
+    }
+
+    /**
+     * Pass current buffer to background thread and take free one.
+     */
+    private void handOff() throws IOException {
+        try {
+            filled.put(current);
+            current = free.take();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while waiting for free buffer");
+        }
+        current.length = 0;
+    }
+
+    private void sync(boolean close) throws IOException {
+        Chunk signal = new Chunk(null);
+        signal.close = close;
+        signal.done = new CountDownLatch(1);
+        try {
+            if (current.length > 0) {
+                handOff();
+            }
+            filled.put(signal);
+            signal.done.await();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while waiting for data to be written");
+        }
+        checkError();
+    }
+
+    private void checkState() throws IOException {
+        if (closed) {
+            throw new IOException("Stream is closed");
+        }
+        checkError();
+    }
+
+    private void checkError() throws IOException {
+        Throwable e = error;
+        if (e instanceof IOException) {
+            throw (IOException) e;
+        } else if (e != null) {
+            throw new IOException("Unable to write data", e);
+        }
+    }
+
+    private void drain() {
+        while (true) {
+            Chunk chunk;
+            try {
+                chunk = filled.take();
+            } catch (InterruptedException e) {
+                error = new InterruptedIOException("Background writer is interrupted");
+                return;
+            }
+            try {
+                if (chunk.done == null) {
+                    if (error == null) {
+                        os.write(chunk.data, 0, chunk.length);
+                    }
+                } else if (chunk.close) {
+                    os.close();
+                } else if (error == null) {
+                    os.flush();
+                }
+            } catch (Throwable e) {
+                if (error == null) {
+                    error = e;
+                }
+            } finally {
+                if (chunk.done == null) {
+                    free.add(chunk);
+                } else {
+                    chunk.done.countDown();
+                }
+            }
+            if (chunk.close) {
+                return;
+            }
+        }
+    }
+
+    private static class Chunk {
+        private final byte[] data;
+        private int length = 0;
+        private boolean close = false;
+        private CountDownLatch done = null;
+
+        private Chunk(byte[] data) {
+            this.data = data;
+        }
+    }
+}
@@ -0,0 +1,29 @@
+package com.masyaman.datapack.streams;
+
+import java.util.Map;
+
+/**
+ * Predicate over block statistics, used to skip blocks which could not contain matching objects.
+ */
+public interface BlockFilter {
+
+    /**
+     * @param stats column statistics by column name, see {@link ColumnStats#getName()}
+     * @return false if block could be skipped
+     */
+    boolean mightMatch(Map<String, ColumnStats> stats);
+
+    /**
+     * Filter for blocks which could contain values of given column in range, bounds inclusive.
+     * Blocks without statistics for column are not skipped.
+     */
+    static BlockFilter range(final String column, final double from, final double to) {
+        return new BlockFilter() {
+            @Override
+            public boolean mightMatch(Map<String, ColumnStats> stats) {
+                ColumnStats columnStats = stats.get(column);
+                return columnStats == null || columnStats.mightContain(from, to);
+            }
+        };
+    }
+}
@@ -0,0 +1,114 @@
+package com.masyaman.datapack.streams;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.Buffer;
+import java.nio.ByteBuffer;
+
+/**
+ * Output stream writing into heap or direct {@link ByteBuffer}.
+ * When buffer has not enough space, {@link OverflowHandler} is called. It could fail, replace buffer with bigger one or
+ * drain buffer somewhere and return it cleared.
+ */
+public class ByteBufferOutputStream extends OutputStream {
+
+    /**
+     * Fail on overflow, data is not written to buffer.
+     */
+    public static final OverflowHandler FAIL = new OverflowHandler() {
+        @Override
+        public ByteBuffer onOverflow(ByteBuffer buffer, int required) throws IOException {
+            throw new IOException("Not enough space in buffer, " + required + " bytes required but only " +
+                    buffer.remaining() + " remaining");
+        }
+    };
+
+    /**
+     * Replace buffer with new one of the same kind (heap or direct) and bigger capacity.
+     */
+    public static final OverflowHandler GROW = new OverflowHandler() {
+        @Override
+        public ByteBuffer onOverflow(ByteBuffer buffer, int required) throws IOException {
+            int capacity = Math.max(buffer.capacity() * 2, buffer.position() + required);
+            ByteBuffer newBuffer = buffer.isDirect() ? ByteBuffer.allocateDirect(capacity) : ByteBuffer.allocate(capacity);
+            // Called through Buffer, ByteBuffer.flip() doesn't exist before Java 9
+            ((Buffer) buffer).flip();
+            newBuffer.put(buffer);
+            return newBuffer;
+        }
+    };
+
+    public interface OverflowHandler {
+        /**
+         * @param buffer full buffer
+         * @param required number of bytes to be written
+         * @return buffer to continue writing into, it should have some space remaining
+         */
+        ByteBuffer onOverflow(ByteBuffer buffer, int required) throws IOException;
+    }
+
+    private ByteBuffer buffer;
+    private OverflowHandler overflowHandler;
+
+    public ByteBufferOutputStream(ByteBuffer buffer) {
+        this(buffer, FAIL);
+    }
+
+    public ByteBufferOutputStream(ByteBuffer buffer, OverflowHandler overflowHandler) {
+        this.buffer = buffer;
+        this.overflowHandler = overflowHandler;
+    }
+
+    /**
+     * @return current buffer, it may be different from initial one if it was replaced by {@link OverflowHandler}
+     */
+    public ByteBuffer getBuffer() {
+        return buffer;
+    }
+
+    public int size() {
+        return buffer.position();
+    }
+
+    @Override
+    public void write(int b) throws IOException {
+        if (!buffer.hasRemaining()) {
+            buffer = overflowHandler.onOverflow(buffer, 1);
+        }
+        buffer.put((byte) b);
+    }
+
+    @Override
+    public void write(byte[] b, int off, int len) throws IOException {
+        if (len > buffer.remaining()) {
+            buffer = overflowHandler.onOverflow(buffer, len);
+        }
+        while (len > buffer.remaining()) {
+            // Handler made only part of required space available, i.e. by draining buffer
+            int chunk = buffer.remaining();
+            buffer.put(b, off, chunk);
+            off += chunk;
+            len -= chunk;
+            buffer = overflowHandler.onOverflow(buffer, len);
+        }
+        buffer.put(b, off, len);
+    }
+
+    /**
+     * Write buffer content to another stream.
+     */
+    public void writeTo(OutputStream out) throws IOException {
+        ByteBuffer data = buffer.duplicate();
+        ((Buffer) data).flip();
+        if (data.hasArray()) {
+            out.write(data.array(), data.arrayOffset(), data.remaining());
+        } else {
+            byte[] chunk = new byte[Math.min(data.remaining(), DataWriter.DEFAULT_BUFFER_SIZE)];
+            while (data.hasRemaining()) {
+                int length = Math.min(chunk.length, data.remaining());
+                data.get(chunk, 0, length);
+                out.write(chunk, 0, length);
+            }
+        }
+    }
+}
@@ -1,18 +1,30 @@
 package com.masyaman.datapack.streams;
 
 import com.masyaman.datapack.annotations.Alias;
+import com.masyaman.datapack.serializers.objects.ObjectPlan;
 
 import java.util.Collection;
 import java.util.HashMap;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 
 /**
  * Manage class alias and mix-in.
+ * Object plans are cached, so class manager could be shared by many streams to avoid reflection on creation of
+ * each of them. Plans of class manager without mix-ins are shared globally.
  */
 public class ClassManager {
 
     protected Map<String, Class> aliasToClass = new HashMap<>();
     protected Map<Class, Class> mixInClasses = new HashMap<>();
+    protected Map<Class, ObjectPlan> plans = new ConcurrentHashMap<>();
+
+    private static final ClassValue<ObjectPlan> DEFAULT_PLANS = new ClassValue<ObjectPlan>() {
+        @Override
+        protected ObjectPlan computeValue(Class<?> type) {
+            return new ObjectPlan<>(type, new ClassManager());
+        }
+    };
 
     public ClassManager() {
     }
@@ -31,6 +43,7 @@ public class ClassManager {
 
     public void addMixIn(Class<?> clazz, Class<?> mixIn) {
         mixInClasses.put(clazz, mixIn);
+        plans.clear();
         addAlias(clazz, clazz.getAnnotation(Alias.class));
         addAlias(clazz, mixIn.getAnnotation(Alias.class));
     }
@@ -53,6 +66,21 @@ public class ClassManager {
         return mixInClasses.get(clazz);
     }
 
+    /**
+     * @return plan of object serialization, it's built once per class and could be used from any thread
+     */
+    public <T> ObjectPlan<T> getObjectPlan(Class<T> clazz) {
+        if (mixInClasses.isEmpty() && getClass() == ClassManager.class) {
+            return DEFAULT_PLANS.get(clazz);
+        }
+        ObjectPlan<T> plan = plans.get(clazz);
+        if (plan == null) {
+            plan = new ObjectPlan<>(clazz, this);
+            plans.put(clazz, plan);
+        }
+        return plan;
+    }
+
     public Class<?> getMixInForField(Class<?> clazz, String fieldName) {
         Class c = clazz;
         while (c != null) {
@@ -0,0 +1,133 @@
+package com.masyaman.datapack.streams;
+
+import com.masyaman.datapack.reflection.TypeDescriptor;
+import com.masyaman.datapack.serializers.SerializationFactory;
+import com.masyaman.datapack.streams.codecs.ColumnCodec;
+import com.masyaman.datapack.streams.codecs.DeflateCodec;
+
+import java.io.ByteArrayOutputStream;
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.zip.Deflater;
+
+/**
+ * Builds preset dictionaries of {@link DeflateCodec} for columns of multi-stream format from sample objects.
+ * Samples are serialized the same way as by {@link MultiGzipDataWriter}, so dictionary of each column consists of
+ * the last bytes of its sample data. Result is passed to {@link MultiGzipDataWriter.Options#columnCodecs(Map)}
+ * and the same codecs are registered in reader with {@link MultiGzipDataReader.Options#codecs(java.util.Collection)}.
+ * <p>
+ * Dictionaries are stored by caller, e.g. with {@link DeflateCodec#getDictionary()}.
+ */
+public class ColumnDictionaryTrainer {
+
+    private final Map<String, ByteArrayOutputStream> samples = new HashMap<>();
+    private final MultiGzipDataWriter writer;
+
+    public ColumnDictionaryTrainer() throws IOException {
+        this(new ClassManager(), new SerializationFactoryLookup());
+    }
+
+    /**
+     * Class manager and serialization factories should be the same as used by writer.
+     */
+    public ColumnDictionaryTrainer(ClassManager classManager, SerializationFactoryLookup serializationFactoryLookup) throws IOException {
+        OutputStream discard = new OutputStream() {
+            @Override
+            public void write(int b) {
+            }
+
+            @Override
+            public void write(byte[] b, int off, int len) {
+            }
+        };
+        writer = new MultiGzipDataWriter(discard, classManager, serializationFactoryLookup) {
+            @Override
+            protected ColumnCodec selectCodec(SerializationFactory factory, TypeDescriptor<?> type) {
+                return new SampleCodec(getFieldPath());
+            }
+        };
+    }
+
+    public ColumnDictionaryTrainer add(Object o) throws IOException {
+        writer.writeObject(o);
+        return this;
+    }
+
+    /**
+     * Add all objects of sample stream.
+     */
+    public ColumnDictionaryTrainer train(ObjectReader reader) throws IOException {
+        while (reader.hasObjects()) {
+            add(reader.readObject());
+        }
+        return this;
+    }
+
+    /**
+     * @param maxSize maximal dictionary size, at most {@link DeflateCodec#MAX_DICTIONARY_SIZE}
+     * @return codecs by column path, columns without sample data are skipped
+     */
+    public Map<String, DeflateCodec> build(int maxSize) throws IOException {
+        return build(maxSize, Deflater.DEFAULT_COMPRESSION, Deflater.DEFAULT_STRATEGY);
+    }
+
+    public Map<String, DeflateCodec> build(int maxSize, int level, int strategy) throws IOException {
+        writer.close();
+        Map<String, DeflateCodec> codecs = new HashMap<>();
+        for (Map.Entry<String, ByteArrayOutputStream> entry : samples.entrySet()) {
+            byte[] data = entry.getValue().toByteArray();
+            int size = Math.min(data.length, Math.min(maxSize, DeflateCodec.MAX_DICTIONARY_SIZE));
+            if (size > 0) {
+                byte[] dictionary = Arrays.copyOfRange(data, data.length - size, data.length);
+                codecs.put(entry.getKey(), new DeflateCodec(level, strategy, dictionary));
+            }
+        }
+        return codecs;
+    }
+
+    /**
+     * Collects uncompressed data of columns, data of columns with the same path is joined.
+     */
+    private class SampleCodec implements ColumnCodec {
+        private final String path;
+
+        private SampleCodec(String path) {
+            this.path = path;
+        }
+
+        @Override
+        public String getName() {
+            return "sample";
+        }
+
+        @Override
+        public OutputStream encode(OutputStream os) throws IOException {
+            ByteArrayOutputStream sample = samples.get(path);
+            if (sample == null) {
+                sample = new ByteArrayOutputStream();
+                samples.put(path, sample);
+            }
+            return new FilterOutputStream(sample) {
+                @Override
+                public void write(byte[] b, int off, int len) throws IOException {
+                    out.write(b, off, len);
+                }
+
+                @Override
+                public void close() {
+                    // Sample is kept open for other columns of the same path
+                }
+            };
+        }
+
+        @Override
+        public InputStream decode(InputStream is) throws IOException {
+            throw new IOException("Sample codec is not readable");
+        }
+    }
+}
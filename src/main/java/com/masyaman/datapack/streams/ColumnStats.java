@@ -0,0 +1,96 @@
+package com.masyaman.datapack.streams;
+
+/**
+ * Statistics of numeric or date column in a block: min and max values, number of values and nulls.
+ * Dates are recorded as milliseconds. Min and max of long values are rounded outwards when they could not be
+ * represented by double exactly, so range checks never give false negatives.
+ */
+public class ColumnStats {
+
+    private final String name;
+    private long valueCount = 0;
+    private long nullCount = 0;
+    private double min = Double.POSITIVE_INFINITY;
+    private double max = Double.NEGATIVE_INFINITY;
+
+    public ColumnStats(String name) {
+        this.name = name;
+    }
+
+    public ColumnStats(String name, long valueCount, long nullCount, double min, double max) {
+        this.name = name;
+        this.valueCount = valueCount;
+        this.nullCount = nullCount;
+        this.min = min;
+        this.max = max;
+    }
+
+    public void recordNull() {
+        nullCount++;
+    }
+
+    public void record(double value) {
+        valueCount++;
+        if (value < min) {
+            min = value;
+        }
+        if (value > max) {
+            max = value;
+        }
+    }
+
+    public void record(long value) {
+        double d = value;
+        if ((long) d == value) {
+            record(d);
+        } else {
+            valueCount++;
+            min = Math.min(min, (long) d > value ? Math.nextDown(d) : d);
+            max = Math.max(max, (long) d < value ? Math.nextUp(d) : d);
+        }
+    }
+
+    /**
+     * @return new statistics combining both, for columns with the same name
+     */
+    public ColumnStats merge(ColumnStats other) {
+        return new ColumnStats(name, valueCount + other.valueCount, nullCount + other.nullCount,
+                Math.min(min, other.min), Math.max(max, other.max));
+    }
+
+    /**
+     * @return field path of column starting from simple name of registered type, like "LatLon.lat", or just type name
+     * for values written directly, like "Date"
+     */
+    public String getName() {
+        return name;
+    }
+
+    public long getValueCount() {
+        return valueCount;
+    }
+
+    public long getNullCount() {
+        return nullCount;
+    }
+
+    public double getMin() {
+        return min;
+    }
+
+    public double getMax() {
+        return max;
+    }
+
+    /**
+     * @return true if column could contain values in given range, bounds inclusive
+     */
+    public boolean mightContain(double from, double to) {
+        return valueCount > 0 && min <= to && max >= from;
+    }
+
+    @Override
+    public String toString() {
+        return "ColumnStats{" + name + ": min=" + min + ", max=" + max + ", values=" + valueCount + ", nulls=" + nullCount + '}';
+    }
+}
@@ -0,0 +1,270 @@
+package com.masyaman.datapack.streams;
+
+import com.masyaman.datapack.reflection.TypeDescriptor;
+import com.masyaman.datapack.utils.MpscRingBuffer;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Thread-safe front end for {@link ObjectWriter}. Objects written from any thread are put into lock-free queue and
+ * written into underlying writer by dedicated thread, so producers only pay for enqueue.
+ * Objects are serialized later, so they should not be modified after they're written.
+ * Underlying writer is closed on close and should not be used directly while this writer is open.
+ */
+public class ConcurrentDataWriter implements ObjectWriter {
+
+    private static final Object NULL = new Object();
+    private static final long IDLE_PARK_NANOS = 1000000L;
+    private static final long FULL_PARK_NANOS = 10000L;
+
+    private final ObjectWriter writer;
+    private final Options options;
+    private final MpscRingBuffer<Object> queue;
+    private final Thread thread;
+
+    private volatile boolean waiting = false;
+    private volatile boolean closed = false;
+    private volatile Throwable error = null;
+
+    public ConcurrentDataWriter(ObjectWriter writer) {
+        this(writer, new Options());
+    }
+
+    public ConcurrentDataWriter(ObjectWriter writer, Options options) {
+        this.writer = writer;
+        this.options = options;
+        this.queue = new MpscRingBuffer<>(options.capacity);
+        this.thread = options.threadFactory.newThread(new Runnable() {
+            @Override
+            public void run() {
+                drain();
+            }
+        });
+        thread.start();
+    }
+
+    @Override
+    public <T> void writeObject(T o) throws IOException {
+        enqueue(o == null ? NULL : o, options.blocking);
+    }
+
+    @Override
+    public <T> void writeObject(T o, TypeDescriptor<T> type) throws IOException {
+        enqueue(type == null ? (o == null ? NULL : o) : new Typed(o, type), options.blocking);
+    }
+
+    /**
+     * Write object if there is free space in queue, never blocks.
+     *
+     * @return false if queue is full and object is not written
+     */
+    public <T> boolean offerObject(T o) throws IOException {
+        checkState();
+        return offer(o == null ? NULL : o);
+    }
+
+    /**
+     * @return number of objects waiting in queue
+     */
+    public int getQueueSize() {
+        return queue.size();
+    }
+
+    /**
+     * Wait until all objects written before this call are passed to underlying writer and flush it.
+     */
+    @Override
+    public void flush() throws IOException {
+        checkState();
+        Signal signal = new Signal(false);
+        signal.send();
+        signal.await();
+        checkError();
+    }
+
+    /**
+     * Write all queued objects and close underlying writer. Objects written concurrently with close may be lost.
+     */
+    @Override
+    public void close() throws IOException {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        Signal signal = new Signal(true);
+        signal.send();
+        signal.await();
+        checkError();
+    }
+
+    private void enqueue(Object element, boolean blocking) throws IOException {
+        checkState();
+        if (offer(element)) {
+            return;
+        }
+        if (!blocking) {
+            throw new IOException("Queue is full, " + queue.capacity() + " objects are waiting to be written");
+        }
+        do {
+            waitForSpace();
+            checkState();
+        } while (!offer(element));
+    }
+
+    private void waitForSpace() throws IOException {
+        LockSupport.parkNanos(this, FULL_PARK_NANOS);
+        if (Thread.interrupted()) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while waiting for free space in queue");
+        }
+    }
+
+    private boolean offer(Object element) {
+        if (!queue.offer(element)) {
+            return false;
+        }
+        if (waiting) {
+            LockSupport.unpark(thread);
+        }
+        return true;
+    }
+
+    private void checkState() throws IOException {
+        if (closed) {
+            throw new IOException("Writer is closed");
+        }
+        checkError();
+    }
+
+    private void checkError() throws IOException {
+        Throwable e = error;
+        if (e instanceof IOException) {
+            throw (IOException) e;
+        } else if (e != null) {
+            throw new IOException("Unable to write object", e);
+        }
+    }
+
+    private void drain() {
+        while (true) {
+            Object element = queue.poll();
+            if (element == null) {
+                waiting = true;
+                if (queue.size() == 0) {
+                    LockSupport.parkNanos(this, IDLE_PARK_NANOS);
+                }
+                waiting = false;
+                continue;
+            }
+            try {
+                if (element instanceof Signal) {
+                    Signal signal = (Signal) element;
+                    try {
+                        if (signal.close) {
+                            writer.close();
+                        } else if (error == null) {
+                            writer.flush();
+                        }
+                    } finally {
+                        signal.latch.countDown();
+                    }
+                    if (signal.close) {
+                        return;
+                    }
+                } else if (error != null) {
+                    continue; // Objects are dropped after failure, error is reported to producers
+                } else if (element == NULL) {
+                    writer.writeObject(null);
+                } else if (element instanceof Typed) {
+                    Typed typed = (Typed) element;
+                    writer.writeObject(typed.object, typed.type);
+                } else {
+                    writer.writeObject(element);
+                }
+            } catch (Throwable e) {
+                if (error == null) {
+                    error = e;
+                }
+            }
+        }
+    }
+
+    /**
+     * Writer options.
+     */
+    public static class Options {
+        private int capacity = 8192;
+        private boolean blocking = true;
+        private ThreadFactory threadFactory = new ThreadFactory() {
+            @Override
+            public Thread newThread(Runnable r) {
+                Thread thread = new Thread(r, "ConcurrentDataWriter");
+                thread.setDaemon(true);
+                return thread;
+            }
+        };
+
+        /**
+         * Maximal number of objects waiting to be written, rounded up to power of 2.
+         */
+        public Options capacity(int capacity) {
+            this.capacity = capacity;
+            return this;
+        }
+
+        /**
+         * Wait for free space if queue is full, enabled by default.
+         * If disabled, writeObject fails with IOException when queue is full, so producers could apply backpressure.
+         */
+        public Options blocking(boolean blocking) {
+            this.blocking = blocking;
+            return this;
+        }
+
+        /**
+         * Factory for thread which writes objects into underlying writer.
+         */
+        public Options threadFactory(ThreadFactory threadFactory) {
+            this.threadFactory = threadFactory;
+            return this;
+        }
+    }
+
+    private static class Typed {
+        private final Object object;
+        private final TypeDescriptor type;
+
+        private Typed(Object object, TypeDescriptor type) {
+            this.object = object;
+            this.type = type;
+        }
+    }
+
+    private class Signal {
+        private final boolean close;
+        private final CountDownLatch latch = new CountDownLatch(1);
+
+        private Signal(boolean close) {
+            this.close = close;
+        }
+
+        private void send() throws IOException {
+            while (!offer(this)) {
+                waitForSpace();
+            }
+        }
+
+        private void await() throws IOException {
+            try {
+                latch.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new InterruptedIOException("Interrupted while waiting for writer");
+            }
+        }
+    }
+}
@@ -6,27 +6,41 @@ import com.masyaman.datapack.serializers.primitives.SignedLongReader;
 import com.masyaman.datapack.serializers.primitives.StringReader;
 import com.masyaman.datapack.serializers.primitives.UnsignedLongReader;
 
+import java.io.EOFException;
 import java.io.IOException;
 import java.io.InputStream;
-import java.io.PushbackInputStream;
+import java.io.UncheckedIOException;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
 import java.util.Iterator;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
 
+/**
+ * Base class for all readers.
+ * Data is read from input stream in chunks into internal byte buffer and decoded from there.
+ */
 public abstract class DataReader implements ObjectReader {
 
-    protected PushbackInputStream is;
+    public static final int DEFAULT_BUFFER_SIZE = 8192;
 
-    private Deserializer<Long> signedLongDeserializer;
-    private Deserializer<Long> unsignedLongDeserializer;
-    private Deserializer<String> stringDeserializer;
+    protected InputStream is;
 
-    public DataReader(InputStream inputStream) throws IOException {
-        this.is = new PushbackInputStream(inputStream);
+    protected byte[] buffer;
+    protected int position = 0;
+    protected int limit = 0;
 
-        signedLongDeserializer = new SignedLongReader(is);
-        unsignedLongDeserializer = new UnsignedLongReader(is);
-        stringDeserializer = new StringReader(is, unsignedLongDeserializer);
+    private boolean wasNull = false;
+
+    public DataReader(InputStream is) throws IOException {
+        this(is, DEFAULT_BUFFER_SIZE);
+    }
+
+    public DataReader(InputStream is, int bufferSize) throws IOException {
+        this.is = is;
+        this.buffer = new byte[bufferSize];
     }
 
     @Override
@@ -36,33 +50,142 @@ public abstract class DataReader implements ObjectReader {
 
     @Override
     public boolean hasObjects() throws IOException {
-        int read = is.read();
-        if (read >= 0) {
-            is.unread(read);
-            return true;
-        } else {
-            return false;
-        }
+        return position < limit || fill(1);
     }
 
     public byte readByte() throws IOException {
-        return (byte) is.read();
+        return (byte) readUnsignedByte();
     }
 
     public int readUnsignedByte() throws IOException {
-        return is.read();
+        if (position >= limit && !fill(1)) {
+            return -1;
+        }
+        return buffer[position++] & 0xFF;
     }
-    
+
+    public void readBytes(byte[] bytes) throws IOException {
+        ensureAvailable(bytes.length);
+        System.arraycopy(buffer, position, bytes, 0, bytes.length);
+        position += bytes.length;
+    }
+
     public Long readSignedLong() throws IOException {
-        return signedLongDeserializer.deserialize();
+        long l = readSignedLongValue();
+        return wasNull ? null : l;
+    }
+
+    /**
+     * Read signed long without boxing. Null value is returned as 0, use {@link #wasNull()} to distinguish it.
+     */
+    public long readSignedLongValue() throws IOException {
+        ensureAvailable(1);
+        int b = buffer[position] & 0xFF;
+        wasNull = b == SignedLongReader.NULL_VALUE;
+        if (wasNull) {
+            position++;
+            return 0L;
+        }
+        int length = SignedLongReader.length(b);
+        ensureAvailable(length);
+        long l = SignedLongReader.read(buffer, position, length);
+        position += length;
+        return l;
     }
 
     public Long readUnsignedLong() throws IOException {
-        return unsignedLongDeserializer.deserialize();
+        long l = readUnsignedLongValue();
+        return wasNull ? null : l;
+    }
+
+    /**
+     * Read unsigned long without boxing. Null value is returned as 0, use {@link #wasNull()} to distinguish it.
+     */
+    public long readUnsignedLongValue() throws IOException {
+        ensureAvailable(1);
+        int b = buffer[position] & 0xFF;
+        wasNull = b == UnsignedLongReader.NULL_VALUE;
+        if (wasNull) {
+            position++;
+            return 0L;
+        }
+        int length = UnsignedLongReader.length(b);
+        ensureAvailable(length);
+        long l = UnsignedLongReader.read(buffer, position, length);
+        position += length;
+        return l;
+    }
+
+    /**
+     * @return true if last value read by {@link #readSignedLongValue()} or {@link #readUnsignedLongValue()} was null.
+     */
+    public boolean wasNull() {
+        return wasNull;
     }
 
     public String readString() throws IOException {
-        return stringDeserializer.deserialize();
+        int len = (int) readUnsignedLongValue();
+        if (wasNull) {
+            return null;
+        }
+        ensureAvailable(len);
+        String s = StringReader.read(buffer, position, len);
+        position += len;
+        return s;
+    }
+
+    /**
+     * Skip string without decoding it.
+     *
+     * @return false if skipped string was null
+     */
+    public boolean skipString() throws IOException {
+        int len = (int) readUnsignedLongValue();
+        if (wasNull) {
+            return false;
+        }
+        skipBytes(len);
+        return true;
+    }
+
+    public void skipBytes(int length) throws IOException {
+        while (limit - position < length) {
+            length -= limit - position;
+            position = limit;
+            if (!fill(1)) {
+                throw new EOFException("Unexpected end of stream");
+            }
+        }
+        position += length;
+    }
+
+    /**
+     * Make sure that at least {@code length} bytes are available in buffer starting from current position.
+     * Buffer is grown only if value does not fit into empty buffer.
+     */
+    protected void ensureAvailable(int length) throws IOException {
+        if (limit - position < length && !fill(length)) {
+            throw new EOFException("Unexpected end of stream");
+        }
+    }
+
+    private boolean fill(int length) throws IOException {
+        if (position > 0) {
+            System.arraycopy(buffer, position, buffer, 0, limit - position);
+            limit -= position;
+            position = 0;
+        }
+        if (length > buffer.length) {
+            buffer = Arrays.copyOf(buffer, Math.max(length, buffer.length * 2));
+        }
+        while (limit < length) {
+            int read = is.read(buffer, limit, buffer.length - limit);
+            if (read < 0) {
+                return false;
+            }
+            limit += read;
+        }
+        return true;
     }
 
     public Object readObject() throws IOException {
@@ -81,7 +204,7 @@ public abstract class DataReader implements ObjectReader {
                         try {
                             return hasObjects();
                         } catch (IOException e) {
-                            throw new RuntimeException(e);
+                            throw new UncheckedIOException(e);
                         }
                     }
 
@@ -90,7 +213,7 @@ public abstract class DataReader implements ObjectReader {
                         try {
                             return readObject(typeDescriptor);
                         } catch (IOException e) {
-                            throw new RuntimeException(e);
+                            throw new UncheckedIOException(e);
                         }
                     }
                 };
@@ -100,12 +223,56 @@ public abstract class DataReader implements ObjectReader {
 
     public abstract <T> T readObject(TypeDescriptor<T> type) throws IOException;
 
+    /**
+     * Skip object without creating it, see {@link Deserializer#skip()}.
+     *
+     * @return false if skipped object was null
+     */
+    public boolean skipObject(TypeDescriptor<?> type) throws IOException {
+        return readObject(type) != null;
+    }
+
     public abstract ClassManager getClassManager();
 
     public abstract SerializationFactoryLookup getSerializationFactoryLookup();
 
     public abstract <E> Deserializer<E> createAndRegisterDeserializer(TypeDescriptor<E> type) throws IOException;
 
+    /**
+     * @return false if values of given field are not needed by reader, such fields are left with default values
+     */
+    public boolean isFieldRequested(Class<?> type, String field) {
+        return true;
+    }
+
+    /**
+     * @return true if data of deserializer is stored separately from any other data, so its values could be left
+     * unread without breaking reading of other values
+     */
+    public boolean isIsolated(Deserializer<?> deserializer) {
+        return false;
+    }
+
+    /**
+     * @return true if deserializer reads values written for primitive type, they are not null for non-null objects
+     */
+    public boolean isWrittenAsPrimitive(Deserializer<?> deserializer) {
+        return false;
+    }
+
+    /**
+     * Values of isolated deserializer won't be read, so its data could be left unread or not decompressed.
+     */
+    public void markUnused(Deserializer<?> deserializer) throws IOException {
+    }
+
+    /**
+     * @return strings preloaded into string caches, see {@link DataWriter#getStringDictionary()}
+     */
+    public StringDictionary getStringDictionary() {
+        return null;
+    }
+
 
     public static class Wrapper extends DataReader {
         DataReader parent;
@@ -120,6 +287,11 @@ public abstract class DataReader implements ObjectReader {
             return parent.readObject(type);
         }
 
+        @Override
+        public boolean skipObject(TypeDescriptor<?> type) throws IOException {
+            return parent.skipObject(type);
+        }
+
         @Override
         public ClassManager getClassManager() {
             return parent.getClassManager();
@@ -134,6 +306,31 @@ public abstract class DataReader implements ObjectReader {
         public <E> Deserializer<E> createAndRegisterDeserializer(TypeDescriptor<E> type) throws IOException {
             return parent.createAndRegisterDeserializer(type);
         }
+
+        @Override
+        public boolean isFieldRequested(Class<?> type, String field) {
+            return parent.isFieldRequested(type, field);
+        }
+
+        @Override
+        public boolean isIsolated(Deserializer<?> deserializer) {
+            return parent.isIsolated(deserializer);
+        }
+
+        @Override
+        public boolean isWrittenAsPrimitive(Deserializer<?> deserializer) {
+            return parent.isWrittenAsPrimitive(deserializer);
+        }
+
+        @Override
+        public void markUnused(Deserializer<?> deserializer) throws IOException {
+            parent.markUnused(deserializer);
+        }
+
+        @Override
+        public StringDictionary getStringDictionary() {
+            return parent.getStringDictionary();
+        }
     }
 
 
@@ -143,6 +340,9 @@ public abstract class DataReader implements ObjectReader {
         protected SerializationFactoryLookup serializationFactoryLookup;
 
         protected List<Deserializer> registeredDeserializers = new ArrayList<>();
+        protected Map<Class<?>, Set<String>> projections = new HashMap<>();
+
+        private int deserializersResets = 0;
 
         public Abstract(InputStream is, ClassManager classManager, SerializationFactoryLookup serializationFactoryLookup) throws IOException {
             super(is);
@@ -151,17 +351,97 @@ public abstract class DataReader implements ObjectReader {
         }
 
         public <T> T readObject(TypeDescriptor<T> type) throws IOException {
-            Long id = readUnsignedLong();
-            if (id == null) {
+            long id = readObjectId();
+            if (wasNull()) {
                 return null;
             }
             if (id <= 0) {
                 return readAndRegisterDeserializer(type).deserialize();
             } else {
-                return (T) registeredDeserializers.get(id.intValue() - 1).deserialize();
+                return (T) registeredDeserializers.get((int) id - 1).deserialize();
             }
         }
 
+        @Override
+        public <T> int readBatch(int max, List<? super T> out, TypeDescriptor<T> type) throws IOException {
+            Batch<T> batch = new Batch<>(type);
+            int count = 0;
+            while (count < max && hasObjects()) {
+                out.add(readBatchObject(batch));
+                count++;
+            }
+            return count;
+        }
+
+        @Override
+        public <T> int readBatch(int max, T[] out) throws IOException {
+            Batch<T> batch = new Batch<>(new TypeDescriptor<>((Class<T>) out.getClass().getComponentType()));
+            int length = Math.min(max, out.length);
+            int count = 0;
+            while (count < length && hasObjects()) {
+                out[count++] = readBatchObject(batch);
+            }
+            return count;
+        }
+
+        /**
+         * Read next object of batch. Deserializer is looked up only when object id differs from previous one or
+         * registered deserializers were reset, like at sync point.
+         */
+        protected <T> T readBatchObject(Batch<T> batch) throws IOException {
+            long id = readObjectId();
+            if (wasNull()) {
+                return null;
+            }
+            if (id <= 0) {
+                int index = registeredDeserializers.size();
+                batch.deserializer = readAndRegisterDeserializer(batch.type);
+                batch.id = index + 1;
+                batch.resets = deserializersResets;
+            } else if (id != batch.id || batch.resets != deserializersResets) {
+                batch.deserializer = registeredDeserializers.get((int) id - 1);
+                batch.id = id;
+                batch.resets = deserializersResets;
+            }
+            return batch.deserializer.deserialize();
+        }
+
+        /**
+         * Forget registered deserializers, stream defines them again from this point.
+         */
+        protected void resetDeserializers() {
+            registeredDeserializers.clear();
+            deserializersResets++;
+        }
+
+        @Override
+        public boolean skipObject(TypeDescriptor<?> type) throws IOException {
+            long id = readObjectId();
+            if (wasNull()) {
+                return false;
+            }
+            if (id <= 0) {
+                readAndRegisterDeserializer(type).skip();
+            } else {
+                registeredDeserializers.get((int) id - 1).skip();
+            }
+            return true;
+        }
+
+        /**
+         * Read id of object deserializer, see {@link DataWriter.Abstract#writeObjectId(Long)}.
+         * Null object is reported with {@link #wasNull()}.
+         */
+        protected long readObjectId() throws IOException {
+            return readUnsignedLongValue();
+        }
+
+        @Override
+        public boolean isFieldRequested(Class<?> type, String field) {
+            Set<String> fields = projections.get(type);
+            return fields == null || fields.contains(field);
+        }
+
         public ClassManager getClassManager() {
             return classManager;
         }
@@ -181,6 +461,13 @@ public abstract class DataReader implements ObjectReader {
             }
         }
 
+        /**
+         * Read deserializer written by {@link DataWriter.Abstract#registerSerializer(TypeDescriptor)} and register it.
+         */
+        protected <E> Deserializer<E> registerDeserializer(TypeDescriptor<E> type) throws IOException {
+            return readAndRegisterDeserializer(type);
+        }
+
         private <E> Deserializer<E> readAndRegisterDeserializer(TypeDescriptor<E> type) throws IOException {
             int index = registeredDeserializers.size();
             registeredDeserializers.add(null);
@@ -190,5 +477,19 @@ public abstract class DataReader implements ObjectReader {
         }
 
         protected abstract <E> Deserializer<E> readDeserializer(TypeDescriptor<E> type) throws IOException;
+
+        /**
+         * Deserializer of last object read by batch.
+         */
+        protected static final class Batch<T> {
+            private final TypeDescriptor<T> type;
+            private Deserializer<T> deserializer;
+            private long id = 0;
+            private int resets;
+
+            private Batch(TypeDescriptor<T> type) {
+                this.type = type;
+            }
+        }
     }
 }
@@ -11,28 +11,48 @@ import com.masyaman.datapack.serializers.primitives.UnsignedLongWriter;
 import java.io.IOException;
 import java.io.OutputStream;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 
+/**
+ * Base class for all writers.
+ * Data is encoded into internal byte buffer and passed to output stream in bulk: when buffer is full, when outermost
+ * {@link #writeObject} call is finished, or on {@link #flush()}/{@link #close()}.
+ * Primitives written outside of {@link #writeObject} are passed to output stream immediately.
+ */
 public abstract class DataWriter implements ObjectWriter {
 
+    public static final int DEFAULT_BUFFER_SIZE = 8192;
+
     protected OutputStream os;
 
-    private Serializer<Long> signedLongSerializer;
-    private Serializer<Long> unsignedLongSerializer;
-    private Serializer<String> stringSerializer;
+    protected byte[] buffer;
+    protected int position = 0;
+
+    private int depth = 0;
+    private long flushedBytes = 0;
 
     public DataWriter(OutputStream os) throws IOException {
+        this(os, DEFAULT_BUFFER_SIZE);
+    }
+
+    public DataWriter(OutputStream os, int bufferSize) throws IOException {
         this.os = os;
+        this.buffer = new byte[bufferSize];
+    }
 
-        signedLongSerializer = new SignedLongWriter(os);
-        unsignedLongSerializer = new UnsignedLongWriter(os);
-        stringSerializer = new StringWriter(os, unsignedLongSerializer);
+    @Override
+    public void flush() throws IOException {
+        flushBuffer();
+        os.flush();
     }
 
     @Override
     public void close() throws IOException {
+        flushBuffer();
         os.close();
     }
 
@@ -41,23 +61,120 @@ public abstract class DataWriter implements ObjectWriter {
     }
 
     public void writeByte(int b) throws IOException {
-        os.write(b);
+        ensureCapacity(1);
+        buffer[position++] = (byte) b;
+        endWrite();
     }
 
     public void writeByte(long b) throws IOException {
         writeByte((int) b);
     }
 
+    public void writeBytes(byte[] bytes) throws IOException {
+        ensureCapacity(bytes.length);
+        System.arraycopy(bytes, 0, buffer, position, bytes.length);
+        position += bytes.length;
+        endWrite();
+    }
+
     public void writeSignedLong(Long l) throws IOException {
-        signedLongSerializer.serialize(l);
+        if (l == null) {
+            ensureCapacity(1);
+            position = SignedLongWriter.writeNull(buffer, position);
+            endWrite();
+        } else {
+            writeSignedLong(l.longValue());
+        }
+    }
+
+    public void writeSignedLong(long l) throws IOException {
+        ensureCapacity(SignedLongWriter.MAX_LENGTH);
+        position = SignedLongWriter.write(buffer, position, l);
+        endWrite();
     }
 
     public void writeUnsignedLong(Long l) throws IOException {
-        unsignedLongSerializer.serialize(l);
+        if (l == null) {
+            ensureCapacity(1);
+            position = UnsignedLongWriter.writeNull(buffer, position);
+            endWrite();
+        } else {
+            writeUnsignedLong(l.longValue());
+        }
+    }
+
+    public void writeUnsignedLong(long l) throws IOException {
+        ensureCapacity(UnsignedLongWriter.MAX_LENGTH);
+        position = UnsignedLongWriter.write(buffer, position, l);
+        endWrite();
     }
 
     public void writeString(String s) throws IOException {
-        stringSerializer.serialize(s);
+        if (s == null) {
+            writeUnsignedLong(null);
+            return;
+        }
+        byte[] bytes = StringWriter.getBytes(s);
+        ensureCapacity(UnsignedLongWriter.MAX_LENGTH + bytes.length);
+        position = StringWriter.write(buffer, position, s, bytes);
+        endWrite();
+    }
+
+    /**
+     * Make sure that at least {@code length} bytes could be written to buffer starting from current position.
+     * Buffer is flushed to output stream first, and grown only if single value does not fit into empty buffer.
+     */
+    protected void ensureCapacity(int length) throws IOException {
+        if (position + length > buffer.length) {
+            flushBuffer();
+            if (length > buffer.length) {
+                buffer = Arrays.copyOf(buffer, Math.max(length, buffer.length * 2));
+            }
+        }
+    }
+
+    protected void flushBuffer() throws IOException {
+        if (position > 0) {
+            os.write(buffer, 0, position);
+            flushedBytes += position;
+            position = 0;
+        }
+    }
+
+    /**
+     * @return number of bytes written so far, including buffered ones.
+     */
+    protected long getOffset() {
+        return flushedBytes + position;
+    }
+
+    /**
+     * @return true if encoded data could be kept in buffer after current write call is finished.
+     */
+    protected boolean holdsBuffer() {
+        return inObject();
+    }
+
+    /**
+     * @return true if top-level object is being written.
+     */
+    protected boolean inObject() {
+        return depth > 0;
+    }
+
+    protected void beginObject() throws IOException {
+        depth++;
+    }
+
+    protected void endObject() throws IOException {
+        depth--;
+        endWrite();
+    }
+
+    private void endWrite() throws IOException {
+        if (!holdsBuffer()) {
+            flushBuffer();
+        }
     }
 
     public <T> void writeObject(T o) throws IOException {
@@ -72,9 +189,32 @@ public abstract class DataWriter implements ObjectWriter {
 
     public abstract <E> Serializer<E> createAndRegisterSerializer(SerializationFactory factory, TypeDescriptor<E> type) throws IOException;
 
+    /**
+     * Mark start of field serializer creation, field path is used to name columns.
+     */
+    public abstract void beginField(String name);
+
+    public abstract void endField();
+
+    /**
+     * @return statistics of values written by serializer of this writer, null if statistics are not collected
+     */
+    public ColumnStats getColumnStats() {
+        return null;
+    }
+
+    /**
+     * @return strings preloaded into string caches, null if there is no dictionary
+     */
+    public StringDictionary getStringDictionary() {
+        return null;
+    }
+
 
     public static class Wrapper extends DataWriter {
         DataWriter parent;
+        ColumnStats columnStats;
+        List<String> fieldPath;
 
         public Wrapper(OutputStream os, DataWriter parent) throws IOException {
             super(os);
@@ -86,11 +226,44 @@ public abstract class DataWriter implements ObjectWriter {
             parent.writeObject(o, type);
         }
 
+        @Override
+        protected boolean holdsBuffer() {
+            return true; // Wrapped streams are consumed by parent on close only
+        }
+
         @Override
         public ClassManager getClassManager() {
             return parent.getClassManager();
         }
 
+        @Override
+        public void beginField(String name) {
+            if (fieldPath == null) {
+                parent.beginField(name);
+            } else {
+                fieldPath.add(name);
+            }
+        }
+
+        @Override
+        public void endField() {
+            if (fieldPath == null) {
+                parent.endField();
+            } else {
+                fieldPath.remove(fieldPath.size() - 1);
+            }
+        }
+
+        @Override
+        public ColumnStats getColumnStats() {
+            return columnStats;
+        }
+
+        @Override
+        public StringDictionary getStringDictionary() {
+            return parent.getStringDictionary();
+        }
+
         @Override
         public SerializationFactoryLookup getSerializationFactoryLookup() {
             return parent.getSerializationFactoryLookup();
@@ -98,7 +271,18 @@ public abstract class DataWriter implements ObjectWriter {
 
         @Override
         public <E> Serializer<E> createAndRegisterSerializer(SerializationFactory factory, TypeDescriptor<E> type) throws IOException {
-            return parent.createAndRegisterSerializer(factory, type);
+            if (fieldPath == null || !(parent instanceof Abstract)) {
+                return parent.createAndRegisterSerializer(factory, type);
+            }
+            // Serializers could be created lazily, so field path is restored to the one of this writer
+            Abstract abstractParent = (Abstract) parent;
+            List<String> parentPath = abstractParent.fieldPath;
+            abstractParent.fieldPath = new ArrayList<>(fieldPath);
+            try {
+                return parent.createAndRegisterSerializer(factory, type);
+            } finally {
+                abstractParent.fieldPath = parentPath;
+            }
         }
     }
 
@@ -110,6 +294,7 @@ public abstract class DataWriter implements ObjectWriter {
 
         protected Map<TypeDescriptor, Integer> typeToId = new HashMap<>();
         protected List<Serializer> registeredSerializers = new ArrayList<>();
+        protected List<String> fieldPath = new ArrayList<>();
 
         public Abstract(OutputStream os, ClassManager classManager, SerializationFactoryLookup serializationFactoryLookup) throws IOException {
             super(os);
@@ -118,17 +303,54 @@ public abstract class DataWriter implements ObjectWriter {
         }
 
         public <T> void writeObject(T o, TypeDescriptor<T> type) throws IOException {
-            if (o == null) {
-                writeUnsignedLong(null);
-                return;
+            beginObject();
+            try {
+                if (o == null) {
+                    writeObjectId(null);
+                } else {
+                    Serializer<T> serializer = getOrCreateSerializer(type);
+                    serializer.serialize(o);
+                }
+            } finally {
+                endObject();
+            }
+        }
+
+        /**
+         * Serializer is looked up once for each run of objects of the same class,
+         * it's only checked to be still registered as registrations could be reset between objects.
+         */
+        @Override
+        public <T> void writeAll(Collection<T> objects) throws IOException {
+            Class<?> lastClass = null;
+            int lastId = 0;
+            Serializer<Object> serializer = null;
+            for (T o : objects) {
+                beginObject();
+                try {
+                    if (o == null) {
+                        writeObjectId(null);
+                        continue;
+                    }
+                    if (o.getClass() == lastClass && lastId <= registeredSerializers.size()
+                            && registeredSerializers.get(lastId - 1) == serializer) {
+                        writeObjectId((long) lastId);
+                    } else {
+                        TypeDescriptor<?> type = new TypeDescriptor<>(o.getClass());
+                        serializer = (Serializer<Object>) getOrCreateSerializer(type);
+                        lastClass = o.getClass();
+                        lastId = typeToId.get(type);
+                    }
+                    serializer.serialize(o);
+                } finally {
+                    endObject();
+                }
             }
-            Serializer<T> serializer = getOrCreateSerializer(type);
-            serializer.serialize(o);
         }
 
         private <T> Serializer<T> getOrCreateSerializer(TypeDescriptor<T> type) throws IOException {
             Integer id = typeToId.getOrDefault(type, 0);
-            writeUnsignedLong(Long.valueOf(id));
+            writeObjectId(id.longValue());
             if (id <= 0) {
                 SerializationFactory factory = serializationFactoryLookup.getSerializationFactory(type, true);
                 return writeAndRegisterSerializer(factory, type);
@@ -137,6 +359,30 @@ public abstract class DataWriter implements ObjectWriter {
             }
         }
 
+        /**
+         * Write id of object serializer, 0 for new serializer and null for null object.
+         */
+        protected void writeObjectId(Long id) throws IOException {
+            writeUnsignedLong(id);
+        }
+
+        @Override
+        public void beginField(String name) {
+            fieldPath.add(name);
+        }
+
+        @Override
+        public void endField() {
+            fieldPath.remove(fieldPath.size() - 1);
+        }
+
+        /**
+         * @return path of field which serializer is being created, like "LatLon.lat"
+         */
+        protected String getFieldPath() {
+            return String.join(".", fieldPath);
+        }
+
         public ClassManager getClassManager() {
             return classManager;
         }
@@ -161,13 +407,28 @@ public abstract class DataWriter implements ObjectWriter {
             }
         }
 
+        /**
+         * Write serializer for objects of given type and register it, so objects of this type are written with its id.
+         */
+        protected <E> Serializer<E> registerSerializer(TypeDescriptor<E> type) throws IOException {
+            return writeAndRegisterSerializer(serializationFactoryLookup.getSerializationFactory(type, true), type);
+        }
+
         private <E> Serializer<E> writeAndRegisterSerializer(SerializationFactory factory, TypeDescriptor<E> type) throws IOException {
             int id = typeToId.size();
             typeToId.put(type, id + 1);
             registeredSerializers.add(null);
-            Serializer<E> serializer = writeSerializer(factory, type);
-            registeredSerializers.set(id, serializer);
-            return serializer;
+            // Registered serializers are shared by type, so field paths start from type name
+            List<String> parentPath = fieldPath;
+            fieldPath = new ArrayList<>();
+            fieldPath.add(type.getType().getSimpleName());
+            try {
+                Serializer<E> serializer = writeSerializer(factory, type);
+                registeredSerializers.set(id, serializer);
+                return serializer;
+            } finally {
+                fieldPath = parentPath;
+            }
         }
 
         protected abstract <E> Serializer<E> writeSerializer(SerializationFactory factory, TypeDescriptor<E> type) throws IOException;
@@ -0,0 +1,143 @@
+package com.masyaman.datapack.streams;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.Buffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Input stream over memory-mapped file.
+ * File is mapped in windows of limited size, so files larger than 2Gb are supported. Reads are served from page cache
+ * without system calls.
+ */
+public class MappedFileInputStream extends InputStream {
+
+    public static final long DEFAULT_WINDOW_SIZE = 1L << 28; // 256Mb
+
+    private FileChannel channel;
+    private long size;
+    private long windowSize;
+    private boolean shared = false;
+
+    private long windowStart = 0;
+    private MappedByteBuffer window;
+
+    public MappedFileInputStream(Path path) throws IOException {
+        this(FileChannel.open(path, StandardOpenOption.READ));
+    }
+
+    public MappedFileInputStream(FileChannel channel) throws IOException {
+        this(channel, DEFAULT_WINDOW_SIZE);
+    }
+
+    public MappedFileInputStream(FileChannel channel, long windowSize) throws IOException {
+        if (windowSize <= 0 || windowSize > Integer.MAX_VALUE) {
+            throw new IllegalArgumentException("Incorrect window size " + windowSize);
+        }
+        this.channel = channel;
+        this.size = channel.size();
+        this.windowSize = windowSize;
+        this.windowStart = channel.position();
+    }
+
+    @Override
+    public int read() throws IOException {
+        if (!nextWindow()) {
+            return -1;
+        }
+        return window.get() & 0xFF;
+    }
+
+    @Override
+    public int read(byte[] b, int off, int len) throws IOException {
+        if (len == 0) {
+            return 0;
+        }
+        if (!nextWindow()) {
+            return -1;
+        }
+        int read = Math.min(len, window.remaining());
+        window.get(b, off, read);
+        return read;
+    }
+
+    @Override
+    public long skip(long n) throws IOException {
+        long skipped = Math.max(0, Math.min(n, size - position()));
+        position(position() + skipped);
+        return skipped;
+    }
+
+    @Override
+    public int available() throws IOException {
+        return (int) Math.min(Integer.MAX_VALUE, size - position());
+    }
+
+    @Override
+    public void close() throws IOException {
+        window = null;
+        if (!shared) {
+            channel.close();
+        }
+    }
+
+    /**
+     * Create independent stream over the same file at given position, it could be used from another thread.
+     * Duplicate does not close file, so it should not be used after this stream is closed.
+     */
+    public MappedFileInputStream duplicate(long position) {
+        MappedFileInputStream duplicate = new MappedFileInputStream(channel, size, windowSize);
+        duplicate.position(position);
+        return duplicate;
+    }
+
+    private MappedFileInputStream(FileChannel channel, long size, long windowSize) {
+        this.channel = channel;
+        this.size = size;
+        this.windowSize = windowSize;
+        this.shared = true;
+    }
+
+    /**
+     * @return position in file
+     */
+    public long position() {
+        return window == null ? windowStart : windowStart + window.position();
+    }
+
+    /**
+     * Move to given position in file.
+     */
+    public void position(long newPosition) {
+        if (newPosition < 0 || newPosition > size) {
+            throw new IllegalArgumentException("Position " + newPosition + " is out of file bounds");
+        }
+        if (window != null && newPosition >= windowStart && newPosition <= windowStart + window.limit()) {
+            // Called through Buffer, MappedByteBuffer.position(int) doesn't exist before Java 13
+            ((Buffer) window).position((int) (newPosition - windowStart));
+        } else {
+            window = null;
+            windowStart = newPosition;
+        }
+    }
+
+    public long size() {
+        return size;
+    }
+
+    private boolean nextWindow() throws IOException {
+        if (window != null && window.hasRemaining()) {
+            return true;
+        }
+        long start = position();
+        if (start >= size) {
+            return false;
+        }
+        window = channel.map(FileChannel.MapMode.READ_ONLY, start, Math.min(windowSize, size - start));
+        windowStart = start;
+        return true;
+    }
+}
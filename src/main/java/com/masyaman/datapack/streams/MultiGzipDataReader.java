@@ -3,19 +3,44 @@ package com.masyaman.datapack.streams;
 import com.masyaman.datapack.reflection.TypeDescriptor;
 import com.masyaman.datapack.serializers.Deserializer;
 import com.masyaman.datapack.serializers.SerializationFactory;
+import com.masyaman.datapack.serializers.SharesParentStream;
+import com.masyaman.datapack.serializers.primitives.StringReader;
 import com.masyaman.datapack.serializers.primitives.UnsignedLongReader;
+import com.masyaman.datapack.streams.codecs.ColumnCodec;
+import com.masyaman.datapack.streams.codecs.ColumnCodecLookup;
+import com.masyaman.datapack.streams.codecs.GzipCodec;
 
 import java.io.ByteArrayInputStream;
+import java.io.DataInputStream;
+import java.io.EOFException;
 import java.io.IOException;
 import java.io.InputStream;
-import java.util.LinkedList;
-import java.util.List;
-import java.util.zip.GZIPInputStream;
+import java.io.InterruptedIOException;
+import java.io.PushbackInputStream;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.IdentityHashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
 
 // Experimental version of column-based gzipped storage
 public class MultiGzipDataReader extends DataReader.Abstract {
 
-    private List<InputStream> streams;
+    private PushbackInputStream source;
+    private Options options;
+    private Columns columns;
+    private Set<Deserializer> isolatedDeserializers = Collections.newSetFromMap(new IdentityHashMap<Deserializer, Boolean>());
+    private int sharedDeserializers = 0;
+    private Map<Deserializer, ColumnReader> columnReaders = new IdentityHashMap<>();
+    private boolean settingsInMainColumn = false;
 
     public MultiGzipDataReader(InputStream is) throws IOException {
         this(is, new ClassManager());
@@ -26,33 +51,17 @@ public class MultiGzipDataReader extends DataReader.Abstract {
     }
 
     public MultiGzipDataReader(InputStream is, ClassManager classManager, SerializationFactoryLookup serializationFactoryLookup) throws IOException {
-        this(splitStreams(is), classManager, serializationFactoryLookup);
-        readGlobalSettings();
-    }
-
-    private MultiGzipDataReader(List<InputStream> streams, ClassManager classManager, SerializationFactoryLookup serializationFactoryLookup) throws IOException {
-        super(streams.remove(0), classManager, serializationFactoryLookup);
-        this.streams = streams;
+        this(is, classManager, serializationFactoryLookup, new Options());
     }
 
-    private static List<InputStream> splitStreams(InputStream is) throws IOException {
-        // Unoptimized code
-        UnsignedLongReader lengthReader = new UnsignedLongReader(is);
-
-        int streams = lengthReader.deserialize().intValue();
-        int[] lengths = new int[streams];
-        for (int i = 0; i < streams; i++) {
-            lengths[i] = lengthReader.deserialize().intValue();
+    public MultiGzipDataReader(InputStream is, ClassManager classManager, SerializationFactoryLookup serializationFactoryLookup, Options options) throws IOException {
+        super(new ByteArrayInputStream(new byte[0]), classManager, serializationFactoryLookup);
+        this.source = new PushbackInputStream(is);
+        this.options = options;
+        this.projections.putAll(options.projections);
+        if (!nextRowGroup() && options.filter == null) {
+            throw new EOFException("No data found");
         }
-
-        List<InputStream> dataStreams = new LinkedList<>();
-        for (int i = 0; i < streams; i++) {
-            byte[] streamData = new byte[lengths[i]];
-            is.read(streamData); // TODO: check
-            dataStreams.add(new GZIPInputStream(new ByteArrayInputStream(streamData)));
-        }
-
-        return dataStreams;
     }
 
     private void readGlobalSettings() throws IOException {
@@ -61,9 +70,19 @@ public class MultiGzipDataReader extends DataReader.Abstract {
             throw new IOException("Version " + version + " is not supported!");
         }
         Long settingsNumber = readUnsignedLong();
-        if (settingsNumber == null || settingsNumber.longValue() != 0) {
+        if (settingsNumber == null) {
             throw new IOException("Settings are not supported!");
         }
+        settingsInMainColumn = false;
+        for (long i = 0; i < settingsNumber; i++) {
+            String name = readString();
+            Long value = readUnsignedLong();
+            if (MultiGzipDataWriter.SETTINGS_IN_MAIN_COLUMN_SETTING.equals(name) && value != null && value == 1) {
+                settingsInMainColumn = true;
+            } else {
+                throw new IOException("Setting " + name + "=" + value + " is not supported!");
+            }
+        }
     }
 
     @Override
@@ -73,7 +92,569 @@ public class MultiGzipDataReader extends DataReader.Abstract {
         if (serializationFactory == null) {
             throw new IOException("Unable to find serialization factory '" + name + "'");
         }
-        DataReader dr = new DataReader.Wrapper(streams.remove(0), this);
-        return serializationFactory.createDeserializer(dr, type);
+        boolean primitive = settingsInMainColumn && (readUnsignedLongValue() & MultiGzipDataWriter.PRIMITIVE_FLAG) != 0;
+        if (serializationFactory instanceof SharesParentStream) {
+            sharedDeserializers++;
+        }
+        int column = columns.add();
+        // Settings are read from main column in new files, column itself is opened on first value then
+        ColumnReader dr = new ColumnReader(settingsInMainColumn ? new SettingsInputStream(this) : columns.open(column),
+                this, column, primitive);
+        Deserializer<E> deserializer = serializationFactory.createDeserializer(dr, type);
+        dr.endSettings();
+        columnReaders.put(deserializer, dr);
+        return deserializer;
+    }
+
+    @Override
+    public <E> Deserializer<E> createAndRegisterDeserializer(TypeDescriptor<E> type) throws IOException {
+        int shared = sharedDeserializers;
+        Deserializer<E> deserializer = super.createAndRegisterDeserializer(type);
+        // Deserializer is isolated if it and all its nested deserializers read their own columns only
+        if (shared != sharedDeserializers || registeredDeserializers.contains(deserializer)) {
+            sharedDeserializers++;
+        } else {
+            isolatedDeserializers.add(deserializer);
+        }
+        return deserializer;
+    }
+
+    @Override
+    public boolean isIsolated(Deserializer<?> deserializer) {
+        return isolatedDeserializers.contains(deserializer);
+    }
+
+    @Override
+    public boolean isWrittenAsPrimitive(Deserializer<?> deserializer) {
+        ColumnReader reader = columnReaders.get(deserializer);
+        return reader != null && reader.primitive;
+    }
+
+    @Override
+    public void markUnused(Deserializer<?> deserializer) throws IOException {
+        ColumnReader reader = columnReaders.get(deserializer);
+        if (settingsInMainColumn && reader != null && isIsolated(deserializer)) {
+            columns.markUnused(reader.column, reader.end);
+        }
+    }
+
+    @Override
+    public boolean hasObjects() throws IOException {
+        return super.hasObjects() || nextRowGroup();
+    }
+
+    @Override
+    public <T> T readObject(TypeDescriptor<T> type) throws IOException {
+        if (!super.hasObjects()) {
+            nextRowGroup();
+        }
+        return super.readObject(type);
+    }
+
+    @Override
+    protected <T> T readBatchObject(Batch<T> batch) throws IOException {
+        if (!super.hasObjects()) {
+            nextRowGroup();
+        }
+        return super.readBatchObject(batch);
+    }
+
+    /**
+     * Switch to next row group, deserializers are recreated as each group is self-contained.
+     */
+    private boolean nextRowGroup() throws IOException {
+        if (columns != null) {
+            columns.finish();
+        }
+        Columns nextColumns = Columns.read(source, options);
+        if (nextColumns == null) {
+            return false;
+        }
+        is.close();
+        columns = nextColumns;
+        is = columns.open(columns.add());
+        position = 0;
+        limit = 0;
+        resetDeserializers();
+        isolatedDeserializers.clear();
+        columnReaders.clear();
+        readGlobalSettings();
+        return true;
+    }
+
+    /**
+     * @return column statistics of current row group by column name, empty if statistics were not collected
+     */
+    public Map<String, ColumnStats> getRowGroupStats() {
+        return columns == null ? Collections.<String, ColumnStats>emptyMap() : columns.stats;
+    }
+
+    @Override
+    public void close() throws IOException {
+        try {
+            super.close();
+        } finally {
+            if (columns != null) {
+                columns.finish();
+            }
+            source.close();
+        }
+    }
+
+    /**
+     * Reader options.
+     */
+    public static class Options {
+        private boolean lazy = false;
+        private ExecutorService inflationExecutor = null;
+        private ColumnCodecLookup codecLookup = new ColumnCodecLookup();
+        private BlockFilter filter = null;
+        private Map<Class<?>, Set<String>> projections = new HashMap<>();
+
+        /**
+         * Read column data from source only when it's needed.
+         * By default all columns are read on reader creation.
+         */
+        public Options lazy(boolean lazy) {
+            this.lazy = lazy;
+            return this;
+        }
+
+        /**
+         * Inflate all columns ahead of time on given executor. Columns are read on reader creation in this mode,
+         * with projection columns are read and inflated once deserializers of their row group are created, except
+         * columns of skipped fields. Executor is not shut down by reader.
+         */
+        public Options inflationExecutor(ExecutorService executor) {
+            this.inflationExecutor = executor;
+            return this;
+        }
+
+        /**
+         * Register custom codec, built-in codecs are always available.
+         */
+        public Options codec(ColumnCodec codec) {
+            codecLookup.registerCodec(codec);
+            return this;
+        }
+
+        /**
+         * Register custom codecs, like dictionary codecs used by writer for some columns.
+         */
+        public Options codecs(Collection<? extends ColumnCodec> codecs) {
+            for (ColumnCodec codec : codecs) {
+                codecLookup.registerCodec(codec);
+            }
+            return this;
+        }
+
+        /**
+         * Skip row groups which could not match filter according to their column statistics, see
+         * {@link MultiGzipDataWriter.Options#collectStats(boolean)}. Skipped groups are not decompressed.
+         */
+        public Options filter(BlockFilter filter) {
+            this.filter = filter;
+            return this;
+        }
+
+        /**
+         * Read only given fields of objects of given type, other fields are left with default values.
+         * Columns of skipped fields are not read from source nor inflated, if their values are stored in their own
+         * columns and object has field written as primitive, which tells null objects apart.
+         * Otherwise skipped values are still read with {@link Deserializer#skip()}, as they are needed to find where
+         * next value starts. Files written without {@link MultiGzipDataWriter.Options#projectable(boolean)} are always
+         * read so.
+         */
+        public Options project(Class<?> type, String... fields) {
+            projections.put(type, new HashSet<>(Arrays.asList(fields)));
+            return this;
+        }
+    }
+
+    /**
+     * Column streams of row group, columns are stored in the same order as their deserializers are created.
+     * Columns are read from source sequentially, data of columns preceding opened one is kept until they are opened
+     * or skipped if they are marked unused.
+     */
+    private static class Columns {
+        private DataInputStream source;
+        private Options options;
+        private int[] lengths;
+        private ColumnCodec[] codecs;
+        private Map<String, ColumnStats> stats = new HashMap<>();
+        private byte[][] data;
+        private Future<ByteBuffer>[] inflated;
+        private boolean[] unused;
+        private int created = 0;
+        private int loaded = 0;
+        private int submitted = 0;
+
+        /**
+         * @return columns of next row group matching filter or null if there are no more groups
+         */
+        private static Columns read(PushbackInputStream pushback, Options options) throws IOException {
+            while (true) {
+                int b = pushback.read();
+                if (b < 0) {
+                    return null;
+                }
+                pushback.unread(b);
+
+                Columns columns = new Columns(new DataInputStream(pushback), options);
+                if (options.filter == null || options.filter.mightMatch(columns.stats)) {
+                    columns.load();
+                    return columns;
+                }
+                columns.finish();
+            }
+        }
+
+        private Columns(DataInputStream source, Options options) throws IOException {
+            this.source = source;
+            this.options = options;
+            readHeader(options.codecLookup);
+        }
+
+        private void load() throws IOException {
+            int count = lengths.length;
+            data = new byte[count][];
+            inflated = new Future[count];
+            unused = new boolean[count];
+            // With projection unused columns are known only after deserializers are created
+            if (!options.projections.isEmpty() || (options.lazy && options.inflationExecutor == null)) {
+                return;
+            }
+            load(count - 1);
+            inflate();
+        }
+
+        /**
+         * @return index of column for next created deserializer
+         */
+        private int add() throws IOException {
+            if (created >= lengths.length) {
+                throw new IOException("Column " + created + " is not found, only " + lengths.length + " columns stored");
+            }
+            return created++;
+        }
+
+        private InputStream open(int column) throws IOException {
+            if (unused[column]) {
+                throw new IOException("Column " + column + " is marked unused");
+            }
+            if (column >= loaded) {
+                // Other created columns are inflated ahead, they are either needed or already marked unused
+                load(options.inflationExecutor != null ? Math.max(column, created - 1) : column);
+                inflate();
+            }
+            if (inflated[column] != null) {
+                return new InflatedInputStream(inflated[column]);
+            }
+            byte[] columnData = data[column];
+            if (columnData == null) {
+                throw new IOException("Column " + column + " is already opened");
+            }
+            data[column] = null;
+            return codecs[column].decode(new ByteArrayInputStream(columnData));
+        }
+
+        /**
+         * Columns in given range won't be opened, they are not read from source or inflated if it's not done yet.
+         */
+        private void markUnused(int from, int to) {
+            for (int i = from; i < to; i++) {
+                unused[i] = true;
+                data[i] = null;
+                if (inflated[i] != null) {
+                    inflated[i].cancel(true);
+                    inflated[i] = null;
+                }
+            }
+        }
+
+        /**
+         * Read columns from source up to given one inclusive, skipping unused ones.
+         */
+        private void load(int last) throws IOException {
+            for (; loaded <= last; loaded++) {
+                if (unused[loaded]) {
+                    skipFully(lengths[loaded]);
+                } else {
+                    data[loaded] = new byte[lengths[loaded]];
+                    source.readFully(data[loaded]);
+                }
+            }
+        }
+
+        /**
+         * Submit inflation of loaded columns if executor is set.
+         */
+        private void inflate() {
+            if (options.inflationExecutor == null) {
+                return;
+            }
+            for (; submitted < loaded; submitted++) {
+                final byte[] columnData = data[submitted];
+                if (columnData == null) {
+                    continue;
+                }
+                final ColumnCodec codec = codecs[submitted];
+                inflated[submitted] = options.inflationExecutor.submit(new Callable<ByteBuffer>() {
+                    @Override
+                    public ByteBuffer call() throws IOException {
+                        return inflate(codec, columnData);
+                    }
+                });
+                data[submitted] = null;
+            }
+        }
+
+        /**
+         * Skip data of columns which were not read and release resources.
+         */
+        private void finish() throws IOException {
+            cancel();
+            for (; loaded < lengths.length; loaded++) {
+                skipFully(lengths[loaded]);
+            }
+        }
+
+        private void cancel() {
+            if (inflated != null) {
+                for (Future<ByteBuffer> future : inflated) {
+                    if (future != null) {
+                        future.cancel(true);
+                    }
+                }
+            }
+        }
+
+        private void skipFully(int length) throws IOException {
+            while (length > 0) {
+                int skipped = source.skipBytes(length);
+                if (skipped <= 0) {
+                    if (source.read() < 0) {
+                        throw new EOFException();
+                    }
+                    skipped = 1;
+                }
+                length -= skipped;
+            }
+        }
+
+        /**
+         * For header format see {@link MultiGzipDataWriter}.
+         */
+        private void readHeader(ColumnCodecLookup codecLookup) throws IOException {
+            Long count = UnsignedLongReader.read(source);
+            ColumnCodec[] codecTable = null;
+            if (count == null) {
+                codecTable = new ColumnCodec[readLength(source)];
+                for (int i = 0; i < codecTable.length; i++) {
+                    byte[] name = new byte[readLength(source)];
+                    source.readFully(name);
+                    codecTable[i] = codecLookup.getByName(StringReader.read(name, 0, name.length));
+                    if (codecTable[i] == null) {
+                        throw new IOException("Unable to find column codec '" + StringReader.read(name, 0, name.length) + "'");
+                    }
+                }
+                count = (long) readLength(source);
+            } else if (count < 0 || count > Integer.MAX_VALUE) {
+                throw new IOException("Invalid number of columns " + count);
+            }
+
+            lengths = new int[count.intValue()];
+            codecs = new ColumnCodec[count.intValue()];
+            for (int i = 0; i < lengths.length; i++) {
+                if (codecTable != null) {
+                    int codec = readLength(source);
+                    if (codec >= codecTable.length) {
+                        throw new IOException("Invalid codec index " + codec);
+                    }
+                    codecs[i] = codecTable[codec];
+                } else {
+                    codecs[i] = GzipCodec.INSTANCE;
+                }
+                lengths[i] = readLength(source);
+            }
+
+            if (codecTable != null) {
+                int statsCount = readLength(source);
+                for (int i = 0; i < statsCount; i++) {
+                    readLength(source); // column index
+                    byte[] name = new byte[readLength(source)];
+                    source.readFully(name);
+                    ColumnStats columnStats = new ColumnStats(StringReader.read(name, 0, name.length),
+                            UnsignedLongReader.read(source), UnsignedLongReader.read(source),
+                            Double.longBitsToDouble(UnsignedLongReader.read(source)),
+                            Double.longBitsToDouble(UnsignedLongReader.read(source)));
+                    ColumnStats existing = stats.get(columnStats.getName());
+                    stats.put(columnStats.getName(), existing == null ? columnStats : existing.merge(columnStats));
+                }
+            }
+        }
+
+        private static int readLength(InputStream is) throws IOException {
+            Long length = UnsignedLongReader.read(is);
+            if (length == null || length < 0 || length > Integer.MAX_VALUE) {
+                throw new IOException("Invalid column length " + length);
+            }
+            return length.intValue();
+        }
+
+        private static ByteBuffer inflate(ColumnCodec codec, byte[] columnData) throws IOException {
+            ByteBufferOutputStream out = new ByteBufferOutputStream(ByteBuffer.allocate((int) Math.min(Integer.MAX_VALUE - 8, Math.max(256, columnData.length * 4L))), ByteBufferOutputStream.GROW);
+            try (InputStream in = codec.decode(new ByteArrayInputStream(columnData))) {
+                byte[] chunk = new byte[DEFAULT_BUFFER_SIZE];
+                int read;
+                while ((read = in.read(chunk)) >= 0) {
+                    out.write(chunk, 0, read);
+                }
+            }
+            return out.getBuffer();
+        }
+    }
+
+    /**
+     * Reader of deserializer column. Columns of nested deserializers are created between its column and end.
+     */
+    private static class ColumnReader extends DataReader.Wrapper {
+        private final int column;
+        private final boolean primitive;
+        private int end;
+
+        private ColumnReader(InputStream is, MultiGzipDataReader parent, int column, boolean primitive) throws IOException {
+            super(is, parent);
+            this.column = column;
+            this.primitive = primitive;
+        }
+
+        private void endSettings() {
+            MultiGzipDataReader parent = (MultiGzipDataReader) this.parent;
+            end = parent.columns.created;
+            if (parent.settingsInMainColumn) {
+                is = new ColumnInputStream(parent.columns, column);
+            }
+        }
+    }
+
+    /**
+     * Serializer settings stored in main column. Bytes are passed one by one, so main column is not read ahead.
+     */
+    private static class SettingsInputStream extends InputStream {
+        private final DataReader main;
+
+        private SettingsInputStream(DataReader main) {
+            this.main = main;
+        }
+
+        @Override
+        public int read() throws IOException {
+            return main.readUnsignedByte();
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) throws IOException {
+            if (len == 0) {
+                return 0;
+            }
+            int value = main.readUnsignedByte();
+            if (value < 0) {
+                return -1;
+            }
+            b[off] = (byte) value;
+            return 1;
+        }
+    }
+
+    /**
+     * Stream over column which is opened on first read.
+     */
+    private static class ColumnInputStream extends InputStream {
+        private Columns columns;
+        private int column;
+        private InputStream is;
+
+        private ColumnInputStream(Columns columns, int column) {
+            this.columns = columns;
+            this.column = column;
+        }
+
+        @Override
+        public int read() throws IOException {
+            return stream().read();
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) throws IOException {
+            return stream().read(b, off, len);
+        }
+
+        @Override
+        public int available() throws IOException {
+            return is == null ? 0 : is.available();
+        }
+
+        @Override
+        public void close() throws IOException {
+            if (is != null) {
+                is.close();
+            }
+        }
+
+        private InputStream stream() throws IOException {
+            if (is == null) {
+                is = columns.open(column);
+                columns = null;
+            }
+            return is;
+        }
+    }
+
+    /**
+     * Stream over column inflated in background, waits for inflation on first read.
+     */
+    private static class InflatedInputStream extends InputStream {
+        private Future<ByteBuffer> future;
+        private ByteArrayInputStream data;
+
+        private InflatedInputStream(Future<ByteBuffer> future) {
+            this.future = future;
+        }
+
+        @Override
+        public int read() throws IOException {
+            return data().read();
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) throws IOException {
+            return data().read(b, off, len);
+        }
+
+        @Override
+        public int available() throws IOException {
+            return data().available();
+        }
+
+        private ByteArrayInputStream data() throws IOException {
+            if (data == null) {
+                ByteBuffer buffer;
+                try {
+                    buffer = future.get();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    throw new InterruptedIOException("Interrupted while inflating column");
+                } catch (ExecutionException e) {
+                    if (e.getCause() instanceof IOException) {
+                        throw (IOException) e.getCause();
+                    }
+                    throw new IOException("Unable to inflate column", e.getCause());
+                }
+                data = new ByteArrayInputStream(buffer.array(), 0, buffer.position());
+                future = null;
+            }
+            return data;
+        }
     }
 }
@@ -3,99 +3,536 @@ package com.masyaman.datapack.streams;
 import com.masyaman.datapack.reflection.TypeDescriptor;
 import com.masyaman.datapack.serializers.SerializationFactory;
 import com.masyaman.datapack.serializers.Serializer;
+import com.masyaman.datapack.serializers.primitives.StringWriter;
 import com.masyaman.datapack.serializers.primitives.UnsignedLongWriter;
+import com.masyaman.datapack.streams.codecs.ColumnCodec;
+import com.masyaman.datapack.streams.codecs.GzipCodec;
 
 import java.io.ByteArrayOutputStream;
 import java.io.IOException;
+import java.io.InterruptedIOException;
 import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.WritableByteChannel;
+import java.nio.file.Path;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
 import java.util.List;
-import java.util.zip.GZIPOutputStream;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
 
 // Experimental version of column-based gzipped storage
 public class MultiGzipDataWriter extends DataWriter.Abstract {
 
     public static final long CURRENT_VERSION = 0;
 
+    /**
+     * Serializer settings are written to main column, so reader could leave columns of skipped fields unread.
+     * Each serializer reference there is followed by flags, see {@link #PRIMITIVE_FLAG}.
+     * Written only if {@link Options#projectable(boolean)} is set.
+     */
+    public static final String SETTINGS_IN_MAIN_COLUMN_SETTING = "settingsInMainColumn";
+
+    /**
+     * Serializer is created for primitive type, so its value is never null for non-null object.
+     */
+    public static final long PRIMITIVE_FLAG = 1;
+
     private OutputStream outputStream;
-    private List<DataWriter.Wrapper> dataWriters = new ArrayList<>();
+    private WritableByteChannel outputChannel;
+    private Options options;
+    private List<ColumnWriter> dataWriters = new ArrayList<>();
+    private long rowGroupObjects = 0;
+    private long rowGroups = 0;
 
     public MultiGzipDataWriter(OutputStream os) throws IOException {
         this(os, new ClassManager());
     }
 
+    /**
+     * Write data into caller-supplied buffer, writing fails if buffer has not enough space.
+     * Use {@link ByteBufferOutputStream} to configure overflow handling.
+     */
+    public MultiGzipDataWriter(ByteBuffer buffer) throws IOException {
+        this(new ByteBufferOutputStream(buffer));
+    }
+
+    public MultiGzipDataWriter(WritableByteChannel channel) throws IOException {
+        this(Channels.newOutputStream(channel));
+        outputChannel = channel;
+    }
+
     public MultiGzipDataWriter(OutputStream os, ClassManager classManager) throws IOException {
         this(os, classManager, new SerializationFactoryLookup());
     }
 
     public MultiGzipDataWriter(OutputStream os, ClassManager classManager, SerializationFactoryLookup serializationFactoryLookup) throws IOException {
-        super(new ByteArrayOutputWrapper(), classManager, serializationFactoryLookup);
+        this(os, classManager, serializationFactoryLookup, new Options());
+    }
+
+    public MultiGzipDataWriter(OutputStream os, ClassManager classManager, SerializationFactoryLookup serializationFactoryLookup, Options options) throws IOException {
+        super(new ByteArrayOutputStream(0), classManager, serializationFactoryLookup);
         this.serializationFactoryLookup = serializationFactoryLookup;
+        this.options = options;
+        this.os = new ColumnOutputStream(options, selectCodec(null, null));
         writeGlobalSettings();
         outputStream = os;
     }
 
     private void writeGlobalSettings() throws IOException {
         writeUnsignedLong(CURRENT_VERSION);
-        writeUnsignedLong(0L); // there will be number of settings here
+        if (options.projectable) {
+            writeUnsignedLong(1L);
+            writeString(SETTINGS_IN_MAIN_COLUMN_SETTING);
+            writeUnsignedLong(1L);
+        } else {
+            writeUnsignedLong(0L);
+        }
     }
 
     @Override
     protected  <E> Serializer<E> writeSerializer(SerializationFactory factory, TypeDescriptor<E> type) throws IOException {
         writeString(factory.getName());
-        DataWriter.Wrapper dataWriter = new DataWriter.Wrapper(new ByteArrayOutputWrapper(), this);
+        if (options.projectable) {
+            writeUnsignedLong(type != null && type.getType().isPrimitive() ? PRIMITIVE_FLAG : 0L);
+        }
+        ColumnWriter dataWriter = new ColumnWriter(new ColumnOutputStream(options, selectCodec(factory, type)), this,
+                options.projectable);
+        dataWriter.fieldPath = new ArrayList<>(fieldPath);
+        if (options.collectStats) {
+            dataWriter.columnStats = new ColumnStats(getFieldPath());
+        }
         dataWriters.add(dataWriter);
         Serializer serializer = factory.createSerializer(dataWriter, type);
+        dataWriter.endSettings();
         return serializer;
     }
 
+    @Override
+    protected boolean holdsBuffer() {
+        return true; // Streams are combined on close only
+    }
+
+    /**
+     * Codec for column of given serializer. Override to compress some columns differently.
+     * By default it's codec set for column path by {@link Options#columnCodec(String, ColumnCodec)} or common codec.
+     * Main column, which holds object ids and serializer settings, is selected with null factory and empty path.
+     */
+    protected ColumnCodec selectCodec(SerializationFactory factory, TypeDescriptor<?> type) {
+        ColumnCodec codec = options.columnCodecs.get(getFieldPath());
+        return codec != null ? codec : options.codec;
+    }
+
+    @Override
+    public void flush() throws IOException {
+        // Data could be written to output stream on close or at row group end only
+    }
+
+    @Override
+    protected void endObject() throws IOException {
+        super.endObject();
+        if (!inObject()) {
+            rowGroupObjects++;
+            if (rowGroupObjects >= options.rowGroupSize
+                    || (options.rowGroupBytes != Long.MAX_VALUE && rowGroupBytes() >= options.rowGroupBytes)) {
+                flushRowGroup();
+            }
+        }
+    }
+
+    /**
+     * Write all objects collected so far as self-contained row group. Serializers are recreated for next group,
+     * so predictor and cache state is reset as well.
+     */
+    public void flushRowGroup() throws IOException {
+        if (rowGroupObjects == 0) {
+            return;
+        }
+        writeRowGroup();
+        outputStream.flush();
+
+        os = new ColumnOutputStream(options, selectCodec(null, null));
+        dataWriters.clear();
+        typeToId.clear();
+        registeredSerializers.clear();
+        rowGroupObjects = 0;
+        writeGlobalSettings();
+    }
+
     @Override
     public void close() throws IOException {
+        if (rowGroupObjects > 0 || rowGroups == 0) {
+            writeRowGroup();
+        }
+
+        outputStream.close();
+
+        super.close();
+        ((ColumnOutputStream) os).delete();
+    }
 
-        byte[][] arrays = new byte[dataWriters.size() + 1][];
+    private long rowGroupBytes() {
+        long bytes = ((ColumnOutputStream) os).written + position;
+        for (ColumnWriter dataWriter : dataWriters) {
+            bytes += dataWriter.column.written + dataWriter.position;
+        }
+        return bytes;
+    }
 
-        os.close();
-        arrays[0] = ((ByteArrayOutputWrapper) os).toByteArray();
+    private void writeRowGroup() throws IOException {
+        ColumnOutputStream[] columns = new ColumnOutputStream[dataWriters.size() + 1];
+        ColumnStats[] stats = new ColumnStats[columns.length];
+
+        flushBuffer();
+        columns[0] = (ColumnOutputStream) os;
 
         int i = 1;
-        for (DataWriter.Wrapper dataWriter : dataWriters) {
+        for (ColumnWriter dataWriter : dataWriters) {
             dataWriter.close();
-            arrays[i++] = ((ByteArrayOutputWrapper) dataWriter.os).toByteArray();
+            ColumnStats columnStats = dataWriter.getColumnStats();
+            if (columnStats != null && columnStats.getValueCount() + columnStats.getNullCount() > 0) {
+                stats[i] = columnStats;
+            }
+            columns[i++] = dataWriter.column;
         }
 
-        UnsignedLongWriter lengthWriter = new UnsignedLongWriter(outputStream);
-        lengthWriter.serialize((long) arrays.length);
-        for (byte[] array : arrays) {
-            lengthWriter.serialize((long) array.length);
+        try {
+            compress(columns);
+
+            writeHeader(columns, stats);
+
+            WritableByteChannel channel = outputChannel != null ? outputChannel : Channels.newChannel(outputStream);
+            for (ColumnOutputStream column : columns) {
+                column.writeTo(channel);
+                column.delete();
+            }
+        } finally {
+            for (ColumnOutputStream column : columns) {
+                column.delete();
+            }
         }
+        rowGroups++;
+    }
 
-        for (byte[] array : arrays) {
-            outputStream.write(array);
+    /**
+     * File is sequence of row groups, each group has its own header and columns.
+     * Header format is:
+     * [Number of columns][Column lengths...]
+     * if all columns are gzipped and statistics are not collected, otherwise:
+     * [NULL][Number of codecs][Codec names...][Number of columns][Codec index, Column length...]
+     * [Number of column statistics][Column index, Column name, Value count, Null count, Min, Max...]
+     * Min and max are written as double bits.
+     */
+    private void writeHeader(ColumnOutputStream[] columns, ColumnStats[] stats) throws IOException {
+        List<String> codecs = new ArrayList<>();
+        for (ColumnOutputStream column : columns) {
+            if (!codecs.contains(column.codec.getName())) {
+                codecs.add(column.codec.getName());
+            }
         }
+        boolean legacy = codecs.size() == 1 && codecs.get(0).equals(GzipCodec.INSTANCE.getName()) && !options.collectStats;
 
-        outputStream.close();
+        int headerSize = (columns.length * 2 + codecs.size() + 4) * UnsignedLongWriter.MAX_LENGTH;
+        List<byte[]> codecNames = new ArrayList<>();
+        for (String codec : codecs) {
+            byte[] bytes = StringWriter.getBytes(codec);
+            codecNames.add(bytes);
+            headerSize += bytes.length;
+        }
+        int statsCount = 0;
+        byte[][] statsNames = new byte[stats.length][];
+        for (int i = 0; i < stats.length; i++) {
+            if (stats[i] != null) {
+                statsNames[i] = StringWriter.getBytes(stats[i].getName());
+                headerSize += 6 * UnsignedLongWriter.MAX_LENGTH + statsNames[i].length;
+                statsCount++;
+            }
+        }
 
-        super.close();
+        byte[] header = new byte[headerSize];
+        int position = 0;
+        if (!legacy) {
+            position = UnsignedLongWriter.writeNull(header, position);
+            position = UnsignedLongWriter.write(header, position, codecs.size());
+            for (byte[] codecName : codecNames) {
+                position = writeName(header, position, codecName);
+            }
+        }
+        position = UnsignedLongWriter.write(header, position, columns.length);
+        for (ColumnOutputStream column : columns) {
+            if (!legacy) {
+                position = UnsignedLongWriter.write(header, position, codecs.indexOf(column.codec.getName()));
+            }
+            position = UnsignedLongWriter.write(header, position, column.size());
+        }
+        if (!legacy) {
+            position = UnsignedLongWriter.write(header, position, statsCount);
+            for (int i = 0; i < stats.length; i++) {
+                if (stats[i] != null) {
+                    position = UnsignedLongWriter.write(header, position, i);
+                    position = writeName(header, position, statsNames[i]);
+                    position = UnsignedLongWriter.write(header, position, stats[i].getValueCount());
+                    position = UnsignedLongWriter.write(header, position, stats[i].getNullCount());
+                    position = UnsignedLongWriter.write(header, position, Double.doubleToLongBits(stats[i].getMin()));
+                    position = UnsignedLongWriter.write(header, position, Double.doubleToLongBits(stats[i].getMax()));
+                }
+            }
+        }
+        outputStream.write(header, 0, position);
     }
 
-    //public static class ByteArrayOutputWrapper extends ByteArrayOutputStream {}
-    public static class ByteArrayOutputWrapper extends GZIPOutputStream {
+    private static int writeName(byte[] header, int position, byte[] name) {
+        position = UnsignedLongWriter.write(header, position, name.length);
+        System.arraycopy(name, 0, header, position, name.length);
+        return position + name.length;
+    }
+
+    private void compress(ColumnOutputStream[] columns) throws IOException {
+        if (options.compressionExecutor == null) {
+            return;
+        }
+        List<Future<?>> futures = new ArrayList<>(columns.length);
+        for (final ColumnOutputStream column : columns) {
+            futures.add(options.compressionExecutor.submit(new Callable<Void>() {
+                @Override
+                public Void call() throws IOException {
+                    column.compress();
+                    return null;
+                }
+            }));
+        }
+        try {
+            for (Future<?> future : futures) {
+                future.get();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while compressing columns");
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof IOException) {
+                throw (IOException) e.getCause();
+            }
+            throw new IOException("Unable to compress column", e.getCause());
+        } finally {
+            for (Future<?> future : futures) {
+                future.cancel(true);
+            }
+        }
+    }
+
+    /**
+     * Writer options.
+     */
+    public static class Options {
+        private long rowGroupSize = Long.MAX_VALUE;
+        private long rowGroupBytes = Long.MAX_VALUE;
+        private long spillThreshold = Long.MAX_VALUE;
+        private Path spillDirectory = null;
+        private ExecutorService compressionExecutor = null;
+        private ColumnCodec codec = GzipCodec.INSTANCE;
+        private Map<String, ColumnCodec> columnCodecs = new HashMap<>();
+        private boolean collectStats = false;
+        private boolean projectable = false;
+
+        /**
+         * Write row group after given number of objects. Each row group has its own header and columns, it's
+         * written to output stream as soon as it's complete and could be read independently of others.
+         * By default all objects are written as one group on close.
+         */
+        public Options rowGroupSize(long objects) {
+            this.rowGroupSize = objects;
+            return this;
+        }
+
+        /**
+         * Write row group once its uncompressed data exceeds given size.
+         */
+        public Options rowGroupBytes(long bytes) {
+            this.rowGroupBytes = bytes;
+            return this;
+        }
+
+        /**
+         * Column data exceeding threshold is moved from memory to temporary file, see {@link SpillingOutputStream}.
+         * By default all data is kept in memory.
+         */
+        public Options spillThreshold(long bytes) {
+            this.spillThreshold = bytes;
+            return this;
+        }
+
+        /**
+         * Directory for temporary files, default temporary-file directory is used if not set.
+         */
+        public Options spillDirectory(Path directory) {
+            this.spillDirectory = directory;
+            return this;
+        }
+
+        /**
+         * Compress columns in parallel on given executor during {@link #close()}. Uncompressed column data is
+         * buffered (and spilled) until then. By default columns are compressed on the fly by the writing thread.
+         * Executor is not shut down by writer.
+         */
+        public Options compressionExecutor(ExecutorService executor) {
+            this.compressionExecutor = executor;
+            return this;
+        }
+
+        /**
+         * Codec for column data, gzip by default. Could be changed per column with
+         * {@link MultiGzipDataWriter#selectCodec(SerializationFactory, TypeDescriptor)}.
+         */
+        public Options codec(ColumnCodec codec) {
+            this.codec = codec;
+            return this;
+        }
 
-        private ByteArrayOutputStream byteArrayOutputStream;
+        /**
+         * Codec for columns with given field path, like "LatLon.lat". Columns of the same path share codec.
+         * Dictionary codecs trained for columns are set this way, see {@link ColumnDictionaryTrainer}.
+         */
+        public Options columnCodec(String path, ColumnCodec codec) {
+            this.columnCodecs.put(path, codec);
+            return this;
+        }
 
+        public Options columnCodecs(Map<String, ? extends ColumnCodec> codecs) {
+            this.columnCodecs.putAll(codecs);
+            return this;
+        }
 
-        private ByteArrayOutputWrapper() throws IOException {
-            this(new ByteArrayOutputStream());
+        /**
+         * Record statistics of numeric and date columns in row group headers, so readers could skip row groups,
+         * see {@link MultiGzipDataReader.Options#filter(BlockFilter)}.
+         */
+        public Options collectStats(boolean collectStats) {
+            this.collectStats = collectStats;
+            return this;
         }
 
-        private ByteArrayOutputWrapper(ByteArrayOutputStream out) throws IOException {
-            super(out);
-            byteArrayOutputStream = out;
+        /**
+         * Write serializer settings to main column, so readers with projection could leave columns of skipped
+         * fields unread, see {@link MultiGzipDataReader.Options#project(Class, String...)}.
+         * Such files could not be read by readers of earlier versions, so it's disabled by default.
+         */
+        public Options projectable(boolean projectable) {
+            this.projectable = projectable;
+            return this;
         }
+    }
+
+    /**
+     * Writer of serializer column. In projectable files settings written while serializer is created go to main
+     * column instead, in the same order as serializer references.
+     */
+    private static class ColumnWriter extends DataWriter.Wrapper {
+        private final ColumnOutputStream column;
+        private boolean settings;
+
+        private ColumnWriter(ColumnOutputStream column, final MultiGzipDataWriter parent, boolean settingsInMainColumn) throws IOException {
+            super(!settingsInMainColumn ? column : new OutputStream() {
+                @Override
+                public void write(int b) throws IOException {
+                    parent.writeByte(b);
+                }
 
-        public byte[] toByteArray() throws IOException {
+                @Override
+                public void write(byte[] b, int off, int len) throws IOException {
+                    parent.writeBytes(Arrays.copyOfRange(b, off, off + len));
+                }
+            }, parent);
+            this.column = column;
+            this.settings = settingsInMainColumn;
+        }
+
+        private void endSettings() throws IOException {
+            flushBuffer();
+            settings = false;
+            os = column;
+        }
+
+        @Override
+        protected boolean holdsBuffer() {
+            return !settings; // Settings are passed to main column right away to keep their order
+        }
+    }
+
+    /**
+     * Compressed column data, kept in memory or spilled to temporary file.
+     * When compression executor is set data is stored uncompressed until {@link #compress()} is called.
+     */
+    public static class ColumnOutputStream extends OutputStream {
+
+        private ColumnCodec codec;
+        private SpillingOutputStream data;
+        private SpillingOutputStream raw;
+        private OutputStream out;
+        private long written = 0;
+        private boolean closed = false;
+
+        private ColumnOutputStream(Options options, ColumnCodec codec) throws IOException {
+            this.codec = codec;
+            data = new SpillingOutputStream(options.spillThreshold, options.spillDirectory);
+            if (options.compressionExecutor == null) {
+                out = codec.encode(data);
+            } else {
+                raw = new SpillingOutputStream(options.spillThreshold, options.spillDirectory);
+                out = raw;
+            }
+        }
+
+        @Override
+        public void write(int b) throws IOException {
+            out.write(b);
+            written++;
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) throws IOException {
+            out.write(b, off, len);
+            written += len;
+        }
+
+        @Override
+        public void close() throws IOException {
+            if (!closed) {
+                closed = true;
+                out.close();
+            }
+        }
+
+        public void compress() throws IOException {
             close();
-            return byteArrayOutputStream.toByteArray();
+            if (raw != null) {
+                try (OutputStream encoder = codec.encode(data)) {
+                    raw.writeTo(encoder);
+                }
+                raw.delete();
+                raw = null;
+            }
+        }
+
+        public long size() throws IOException {
+            compress();
+            return data.size();
+        }
+
+        public void writeTo(WritableByteChannel out) throws IOException {
+            compress();
+            data.writeTo(out);
+        }
+
+        public void delete() throws IOException {
+            data.delete();
+            if (raw != null) {
+                raw.delete();
+            }
         }
     }
 }
@@ -4,6 +4,8 @@ import com.masyaman.datapack.reflection.TypeDescriptor;
 
 import java.io.Closeable;
 import java.io.IOException;
+import java.util.List;
+import java.util.stream.Stream;
 
 public interface ObjectReader extends Closeable {
     Object readObject() throws IOException;
@@ -11,4 +13,51 @@ public interface ObjectReader extends Closeable {
     boolean hasObjects() throws IOException;
 
     <T> Iterable<T> asIterable(Class<T> clazz);
+
+    /**
+     * Stream of objects which are not read yet, reader is closed when stream is closed.
+     * IO errors are reported as {@link java.io.UncheckedIOException}.
+     * Parallel stream could split at block boundaries if reader supports it, otherwise objects are split in batches.
+     */
+    default <T> Stream<T> stream(Class<T> clazz) {
+        return ReaderSpliterator.stream(new ReaderSpliterator<>(this, new TypeDescriptor<>(clazz)), this);
+    }
+
+    /**
+     * Read up to max objects of given type and add them to list.
+     *
+     * @return number of objects read, 0 if there are no more objects
+     */
+    default <T> int readBatch(int max, List<? super T> out, TypeDescriptor<T> type) throws IOException {
+        int count = 0;
+        while (count < max && hasObjects()) {
+            out.add(readObject(type));
+            count++;
+        }
+        return count;
+    }
+
+    /**
+     * Read up to max objects and add them to list.
+     *
+     * @return number of objects read, 0 if there are no more objects
+     */
+    default <T> int readBatch(int max, List<T> out) throws IOException {
+        return readBatch(max, (List) out, new TypeDescriptor<>(Object.class));
+    }
+
+    /**
+     * Read up to max objects of array component type into the beginning of array.
+     *
+     * @return number of objects read, 0 if there are no more objects
+     */
+    default <T> int readBatch(int max, T[] out) throws IOException {
+        TypeDescriptor<T> type = new TypeDescriptor<>((Class<T>) out.getClass().getComponentType());
+        int length = Math.min(max, out.length);
+        int count = 0;
+        while (count < length && hasObjects()) {
+            out[count++] = readObject(type);
+        }
+        return count;
+    }
 }
@@ -3,9 +3,25 @@ package com.masyaman.datapack.streams;
 import com.masyaman.datapack.reflection.TypeDescriptor;
 
 import java.io.Closeable;
+import java.io.Flushable;
 import java.io.IOException;
+import java.util.Arrays;
+import java.util.Collection;
 
-public interface ObjectWriter extends Closeable {
+public interface ObjectWriter extends Closeable, Flushable {
     <T> void writeObject(T o) throws IOException;
     <T> void writeObject(T o, TypeDescriptor<T> type) throws IOException;
+
+    /**
+     * Write all objects in order, same as {@link #writeObject(Object)} for each of them.
+     */
+    default <T> void writeAll(Collection<T> objects) throws IOException {
+        for (T o : objects) {
+            writeObject(o);
+        }
+    }
+
+    default <T> void writeAll(T[] objects) throws IOException {
+        writeAll(Arrays.asList(objects));
+    }
 }
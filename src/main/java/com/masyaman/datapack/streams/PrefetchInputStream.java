@@ -0,0 +1,205 @@
+package com.masyaman.datapack.streams;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+
+/**
+ * Input stream which reads data from underlying stream ahead of time on background thread.
+ * Background thread fills free buffers while reader consumes filled ones, buffers are passed between threads without
+ * copying. Underlying stream could do decompression, like {@link java.util.zip.GZIPInputStream}, so it's done in
+ * background too, e.g. {@code new SerialDataReader(new PrefetchInputStream(new GZIPInputStream(is)))}.
+ * <p>
+ * Errors of underlying stream are reported after all data read before error is consumed.
+ * Stream is not seekable, so {@link MappedFileInputStream} should not be wrapped.
+ */
+public class PrefetchInputStream extends InputStream {
+
+    public static final int DEFAULT_BUFFER_SIZE = 65536;
+    public static final int DEFAULT_BUFFER_COUNT = 4;
+
+    private InputStream is;
+    private BlockingQueue<Chunk> filled;
+    private BlockingQueue<Chunk> free;
+    private Thread thread;
+
+    private Chunk current;
+    private int position = 0;
+    private volatile boolean closed = false;
+
+    public PrefetchInputStream(InputStream is) {
+        this(is, DEFAULT_BUFFER_SIZE, DEFAULT_BUFFER_COUNT);
+    }
+
+    /**
+     * @param bufferCount number of buffers, at least 2
+     */
+    public PrefetchInputStream(InputStream is, int bufferSize, int bufferCount) {
+        if (bufferSize <= 0 || bufferCount < 2) {
+            throw new IllegalArgumentException("Incorrect buffers " + bufferCount + " x " + bufferSize);
+        }
+        this.is = is;
+        this.filled = new ArrayBlockingQueue<>(bufferCount);
+        this.free = new ArrayBlockingQueue<>(bufferCount);
+        for (int i = 1; i < bufferCount; i++) {
+            free.add(new Chunk(new byte[bufferSize]));
+        }
+        current = new Chunk(new byte[bufferSize]);
+
+        thread = new Thread(new Runnable() {
+            @Override
+            public void run() {
+                fill();
+            }
+        }, "PrefetchInputStream");
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    @Override
+    public int read() throws IOException {
+        if (!next()) {
+            return -1;
+        }
+        return current.data[position++] & 0xFF;
+    }
+
+    @Override
+    public int read(byte[] b, int off, int len) throws IOException {
+        if (len == 0) {
+            return 0;
+        }
+        if (!next()) {
+            return -1;
+        }
+        int length = Math.min(len, current.length - position);
+        System.arraycopy(current.data, position, b, off, length);
+        position += length;
+        return length;
+    }
+
+    @Override
+    public long skip(long n) throws IOException {
+        long skipped = 0;
+        while (skipped < n && next()) {
+            int length = (int) Math.min(n - skipped, current.length - position);
+            position += length;
+            skipped += length;
+        }
+        return skipped;
+    }
+
+    /**
+     * @return number of bytes in current buffer
+     */
+    @Override
+    public int available() throws IOException {
+        return closed || current.length < 0 ? 0 : current.length - position;
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        try {
+            // Closing underlying stream first unblocks background thread if it waits in read
+            is.close();
+        } finally {
+            thread.interrupt();
+            try {
+                thread.join();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new InterruptedIOException("Interrupted while waiting for background reader");
+            }
+        }
+    }
+
+    /**
+     * Make sure current buffer has data, take next filled one if it's consumed.
+     *
+     * @return false if end of stream is reached
+     */
+    private boolean next() throws IOException {
+        if (closed) {
+            throw new IOException("Stream is closed");
+        }
+        while (position >= current.length) {
+            if (current.length < 0) {
+                return false;
+            }
+            if (current.error != null) {
+                if (current.error instanceof IOException) {
+                    throw (IOException) current.error;
+                }
+                throw new IOException("Unable to read data", current.error);
+            }
+            try {
+                Chunk chunk = filled.take();
+                free.put(current);
+                current = chunk;
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new InterruptedIOException("Interrupted while waiting for data");
+            }
+            position = 0;
+        }
+        return true;
+    }
+
+    private void fill() {
+        try {
+            while (!closed) {
+                Chunk chunk = free.take();
+                chunk.length = 0;
+                Throwable error = null;
+                boolean end = false;
+                try {
+                    // Read until buffer is full, but don't wait for more data if part of it is already available
+                    while (chunk.length < chunk.data.length) {
+                        int read = is.read(chunk.data, chunk.length, chunk.data.length - chunk.length);
+                        if (read < 0) {
+                            end = true;
+                            break;
+                        }
+                        chunk.length += read;
+                        if (is.available() <= 0) {
+                            break;
+                        }
+                    }
+                } catch (Throwable e) {
+                    error = e;
+                }
+                if (!end && error == null) {
+                    (chunk.length > 0 ? filled : free).put(chunk);
+                    continue;
+                }
+                if (chunk.length > 0) {
+                    filled.put(chunk);
+                    chunk = free.take();
+                }
+                // End of stream or error is reported after all data read before
+                chunk.length = error == null ? -1 : 0;
+                chunk.error = error;
+                filled.put(chunk);
+                return;
+            }
+        } catch (InterruptedException e) {
+            // Stream is closed
+        }
+    }
+
+    private static class Chunk {
+        private final byte[] data;
+        private int length = 0;
+        private Throwable error = null;
+
+        private Chunk(byte[] data) {
+            this.data = data;
+        }
+    }
+}
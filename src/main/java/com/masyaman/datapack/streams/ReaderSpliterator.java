@@ -0,0 +1,57 @@
+package com.masyaman.datapack.streams;
+
+import com.masyaman.datapack.reflection.TypeDescriptor;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+/**
+ * Spliterator over objects of reader which is not aware of block boundaries, splits are done by copying
+ * batches of objects. IO errors are reported as {@link UncheckedIOException}.
+ */
+class ReaderSpliterator<T> extends Spliterators.AbstractSpliterator<T> {
+
+    private final ObjectReader reader;
+    private final TypeDescriptor<T> type;
+
+    ReaderSpliterator(ObjectReader reader, TypeDescriptor<T> type) {
+        super(Long.MAX_VALUE, Spliterator.ORDERED);
+        this.reader = reader;
+        this.type = type;
+    }
+
+    @Override
+    public boolean tryAdvance(Consumer<? super T> action) {
+        try {
+            if (!reader.hasObjects()) {
+                return false;
+            }
+            action.accept(reader.readObject(type));
+            return true;
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Create stream which closes given reader when it's closed.
+     */
+    static <T> Stream<T> stream(Spliterator<T> spliterator, final Closeable reader) {
+        return StreamSupport.stream(spliterator, false).onClose(new Runnable() {
+            @Override
+            public void run() {
+                try {
+                    reader.close();
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            }
+        });
+    }
+}
@@ -0,0 +1,180 @@
+package com.masyaman.datapack.streams;
+
+import com.masyaman.datapack.reflection.TypeDescriptor;
+import com.masyaman.datapack.serializers.primitives.StringReader;
+import com.masyaman.datapack.serializers.primitives.StringWriter;
+import com.masyaman.datapack.serializers.primitives.UnsignedLongReader;
+import com.masyaman.datapack.serializers.primitives.UnsignedLongWriter;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.SequenceInputStream;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.zip.CRC32;
+
+/**
+ * Schema shared by writer and reader out of band, so stream carries only schema id and data.
+ * Schema contains stream settings and serializers of given root types, exactly as they're written to the beginning of
+ * regular stream. Serializers of types not known in advance, like values of fields of unknown type, are still written
+ * to stream when they're met first time.
+ * <p>
+ * Stream format: [schema id][objects...], where schema id is fingerprint of schema.
+ * See {@link SerialDataWriter.Options#schema(Schema)} and
+ * {@link SerialDataReader#SerialDataReader(InputStream, ClassManager, SerializationFactoryLookup, Schema...)}.
+ */
+public final class Schema {
+
+    public static final long CURRENT_VERSION = 0;
+
+    private final List<TypeDescriptor<?>> types;
+    private final byte[] definitions;
+    private final byte[] bytes;
+    private final long id;
+
+    private Schema(List<TypeDescriptor<?>> types, byte[] definitions) {
+        this.types = Collections.unmodifiableList(types);
+        this.definitions = definitions;
+
+        ByteArrayOutputStream os = new ByteArrayOutputStream();
+        writeValue(os, CURRENT_VERSION);
+        writeValue(os, types.size());
+        for (TypeDescriptor<?> type : types) {
+            byte[] name = StringWriter.getBytes(type.getType().getName());
+            writeValue(os, name.length);
+            os.write(name, 0, name.length);
+        }
+        writeValue(os, definitions.length);
+        os.write(definitions, 0, definitions.length);
+        this.bytes = os.toByteArray();
+
+        CRC32 crc = new CRC32();
+        crc.update(bytes);
+        this.id = crc.getValue();
+    }
+
+    /**
+     * Create schema for given root types. Writers and readers using it should have the same class manager and
+     * serialization factories.
+     */
+    public static Schema create(ClassManager classManager, SerializationFactoryLookup serializationFactoryLookup, Class<?>... types) throws IOException {
+        return create(classManager, serializationFactoryLookup, Arrays.asList(types));
+    }
+
+    public static Schema create(ClassManager classManager, SerializationFactoryLookup serializationFactoryLookup, Collection<Class<?>> types) throws IOException {
+        List<TypeDescriptor<?>> descriptors = new ArrayList<>();
+        for (Class<?> type : types) {
+            descriptors.add(new TypeDescriptor<>(type));
+        }
+        ByteArrayOutputStream os = new ByteArrayOutputStream();
+        try (SerialDataWriter writer = new SerialDataWriter(os, classManager, serializationFactoryLookup)) {
+            for (TypeDescriptor<?> type : descriptors) {
+                writer.registerSerializer(type);
+            }
+        }
+        return new Schema(descriptors, os.toByteArray());
+    }
+
+    /**
+     * Import schema exported by {@link #toBytes()}.
+     */
+    public static Schema fromBytes(byte[] bytes) throws IOException {
+        InputStream is = new ByteArrayInputStream(bytes);
+        long version = readValue(is);
+        if (version != CURRENT_VERSION) {
+            throw new IOException("Schema version " + version + " is not supported!");
+        }
+        long count = readValue(is);
+        List<TypeDescriptor<?>> types = new ArrayList<>();
+        for (long i = 0; i < count; i++) {
+            byte[] name = readBytes(is, readValue(is));
+            String className = StringReader.read(name, 0, name.length);
+            try {
+                types.add(new TypeDescriptor<>(Class.forName(className)));
+            } catch (ClassNotFoundException e) {
+                throw new IOException("Unable to find class for name " + className);
+            }
+        }
+        byte[] definitions = readBytes(is, readValue(is));
+        return new Schema(types, definitions);
+    }
+
+    /**
+     * @return schema as bytes which could be stored or sent to reader
+     */
+    public byte[] toBytes() {
+        return bytes.clone();
+    }
+
+    /**
+     * @return id written to streams, it's fingerprint of schema
+     */
+    public long getId() {
+        return id;
+    }
+
+    List<TypeDescriptor<?>> getTypes() {
+        return types;
+    }
+
+    byte[] getDefinitions() {
+        return definitions;
+    }
+
+    /**
+     * Read schema id from stream and return stream which starts with schema definitions followed by data.
+     */
+    static SchemaInputStream open(InputStream is, Schema... schemas) throws IOException {
+        Long id = UnsignedLongReader.read(is);
+        if (id == null) {
+            throw new IOException("Schema id is not found");
+        }
+        for (Schema schema : schemas) {
+            if (schema.id == id) {
+                return new SchemaInputStream(schema, is);
+            }
+        }
+        throw new IOException("Unknown schema " + id);
+    }
+
+    static void writeValue(ByteArrayOutputStream os, long value) {
+        byte[] buffer = new byte[UnsignedLongWriter.MAX_LENGTH];
+        os.write(buffer, 0, UnsignedLongWriter.write(buffer, 0, value));
+    }
+
+    static long readValue(InputStream is) throws IOException {
+        Long value = UnsignedLongReader.read(is);
+        if (value == null || value < 0) {
+            throw new IOException("Invalid value " + value);
+        }
+        return value;
+    }
+
+    static byte[] readBytes(InputStream is, long length) throws IOException {
+        if (length > is.available()) {
+            throw new EOFException("Unexpected end of data");
+        }
+        byte[] bytes = new byte[(int) length];
+        is.read(bytes);
+        return bytes;
+    }
+
+    static class SchemaInputStream extends SequenceInputStream {
+        private final Schema schema;
+
+        private SchemaInputStream(Schema schema, InputStream is) {
+            super(new ByteArrayInputStream(schema.definitions), is);
+            this.schema = schema;
+        }
+
+        Schema getSchema() {
+            return schema;
+        }
+    }
+}
@@ -0,0 +1,442 @@
+package com.masyaman.datapack.streams;
+
+import com.masyaman.datapack.reflection.TypeDescriptor;
+import com.masyaman.datapack.serializers.primitives.UnsignedLongReader;
+
+import java.io.ByteArrayInputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Spliterator;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletionService;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+
+/**
+ * Reader of segmented container written by {@link SegmentedDataWriter}.
+ * Segments are decoded one by one in reading thread, or ahead of time on executor if it's set in options.
+ * Data should be seekable, as segments directory is stored at the end.
+ */
+public class SegmentedDataReader implements ObjectReader {
+
+    private FileChannel channel;
+    private byte[] data;
+    private ClassManager classManager;
+    private SerializationFactoryLookup serializationFactoryLookup;
+    private Options options;
+
+    private SegmentedDataWriter.Format format;
+    private long[] offsets;
+    private long[] lengths;
+    private long[] counts;
+
+    private int nextSegment = 0;
+    private DataReader segmentReader;
+    private Iterator<Object> decoded = Collections.emptyIterator();
+    private Deque<Future<List<Object>>> pending = new ArrayDeque<>();
+    private CompletionService<List<Object>> completionService;
+
+    public SegmentedDataReader(Path path) throws IOException {
+        this(path, new ClassManager(), new SerializationFactoryLookup(), new Options());
+    }
+
+    public SegmentedDataReader(Path path, ClassManager classManager, SerializationFactoryLookup serializationFactoryLookup, Options options) throws IOException {
+        this.channel = FileChannel.open(path, StandardOpenOption.READ);
+        try {
+            init(classManager, serializationFactoryLookup, options, channel.size());
+        } catch (IOException | RuntimeException e) {
+            channel.close();
+            throw e;
+        }
+    }
+
+    public SegmentedDataReader(byte[] data) throws IOException {
+        this(data, new ClassManager(), new SerializationFactoryLookup(), new Options());
+    }
+
+    public SegmentedDataReader(byte[] data, ClassManager classManager, SerializationFactoryLookup serializationFactoryLookup, Options options) throws IOException {
+        this.data = data;
+        init(classManager, serializationFactoryLookup, options, data.length);
+    }
+
+    private void init(ClassManager classManager, SerializationFactoryLookup serializationFactoryLookup, Options options, long size) throws IOException {
+        this.classManager = classManager;
+        this.serializationFactoryLookup = serializationFactoryLookup;
+        this.options = options;
+        if (size < 8) {
+            throw new EOFException("Segments directory is not found");
+        }
+
+        InputStream header = open(0, Math.min(size, 2 * 9));
+        Long version = UnsignedLongReader.read(header);
+        if (version == null || version != SegmentedDataWriter.CURRENT_VERSION) {
+            throw new IOException("Version " + version + " is not supported!");
+        }
+        Long formatId = UnsignedLongReader.read(header);
+        if (formatId == null || formatId < 0 || formatId >= SegmentedDataWriter.Format.values().length) {
+            throw new IOException("Segment format " + formatId + " is not supported!");
+        }
+        format = SegmentedDataWriter.Format.values()[formatId.intValue()];
+        long dataStart = Math.min(size, 2 * 9) - header.available();
+
+        long directoryOffset = 0;
+        InputStream trailer = open(size - 8, 8);
+        for (int i = 0; i < 8; i++) {
+            directoryOffset = (directoryOffset << 8) | trailer.read();
+        }
+        if (directoryOffset < dataStart || directoryOffset > size - 8) {
+            throw new IOException("Invalid segments directory offset " + directoryOffset);
+        }
+
+        InputStream directory = open(directoryOffset, size - 8 - directoryOffset);
+        int count = (int) readValue(directory);
+        offsets = new long[count];
+        lengths = new long[count];
+        counts = new long[count];
+        long offset = dataStart;
+        for (int i = 0; i < count; i++) {
+            offsets[i] = offset;
+            lengths[i] = readValue(directory);
+            counts[i] = readValue(directory);
+            offset += lengths[i];
+        }
+        if (offset != directoryOffset) {
+            throw new IOException("Segments directory does not match data");
+        }
+
+        if (options.executor != null && !options.ordered) {
+            completionService = new ExecutorCompletionService<>(options.executor);
+        }
+    }
+
+    private static long readValue(InputStream is) throws IOException {
+        Long value = UnsignedLongReader.read(is);
+        if (value == null || value < 0) {
+            throw new IOException("Invalid segments directory");
+        }
+        return value;
+    }
+
+    private InputStream open(long offset, long length) throws IOException {
+        if (length > Integer.MAX_VALUE) {
+            throw new IOException("Segment is too large: " + length);
+        }
+        if (data != null) {
+            return new ByteArrayInputStream(data, (int) offset, (int) length);
+        }
+        ByteBuffer buffer = ByteBuffer.allocate((int) length);
+        while (buffer.hasRemaining()) {
+            if (channel.read(buffer, offset + buffer.position()) < 0) {
+                throw new EOFException("Unexpected end of file");
+            }
+        }
+        return new ByteArrayInputStream(buffer.array());
+    }
+
+    /**
+     * @return number of segments in container
+     */
+    public int getSegmentCount() {
+        return offsets.length;
+    }
+
+    /**
+     * @return total number of objects in container
+     */
+    public long getObjectCount() {
+        long total = 0;
+        for (long count : counts) {
+            total += count;
+        }
+        return total;
+    }
+
+    @Override
+    public boolean hasObjects() throws IOException {
+        while (!decoded.hasNext()) {
+            if (segmentReader != null) {
+                if (segmentReader.hasObjects()) {
+                    return true;
+                }
+                segmentReader.close();
+                segmentReader = null;
+            }
+            if (!nextSegment()) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    @Override
+    public Object readObject() throws IOException {
+        if (!hasObjects()) {
+            throw new EOFException("No more objects");
+        }
+        return segmentReader != null ? segmentReader.readObject() : decoded.next();
+    }
+
+    /**
+     * Segments decoded on executor are read with type from options, so given type is only checked.
+     */
+    @Override
+    public <T> T readObject(TypeDescriptor<T> type) throws IOException {
+        if (!hasObjects()) {
+            throw new EOFException("No more objects");
+        }
+        if (segmentReader != null) {
+            return segmentReader.readObject(type);
+        }
+        Object o = decoded.next();
+        if (o != null && !type.getType().isInstance(o)) {
+            throw new IOException("Object of type " + o.getClass().getName() + " is found, but " + type.getType().getName() + " is expected");
+        }
+        return (T) o;
+    }
+
+    @Override
+    public <T> Iterable<T> asIterable(Class<T> clazz) {
+        TypeDescriptor<T> typeDescriptor = new TypeDescriptor<T>(clazz);
+        return new Iterable<T>() {
+            @Override
+            public Iterator<T> iterator() {
+                return new Iterator<T>() {
+                    @Override
+                    public boolean hasNext() {
+                        try {
+                            return hasObjects();
+                        } catch (IOException e) {
+                            throw new UncheckedIOException(e);
+                        }
+                    }
+
+                    @Override
+                    public T next() {
+                        try {
+                            return readObject(typeDescriptor);
+                        } catch (IOException e) {
+                            throw new UncheckedIOException(e);
+                        }
+                    }
+                };
+            }
+        };
+    }
+
+    /**
+     * If no objects are read yet, parallel stream is split at segment boundaries and each segment is decoded
+     * by its own reader, size of stream is known.
+     */
+    @Override
+    public <T> Stream<T> stream(Class<T> clazz) {
+        TypeDescriptor<T> type = new TypeDescriptor<>(clazz);
+        if (segmentReader != null || decoded.hasNext() || !pending.isEmpty()) {
+            return ReaderSpliterator.stream(new ReaderSpliterator<>(this, type), this);
+        }
+        int from = nextSegment;
+        nextSegment = offsets.length;
+        return ReaderSpliterator.stream(new SegmentSpliterator<>(type, from, offsets.length), this);
+    }
+
+    private boolean nextSegment() throws IOException {
+        if (options.executor == null) {
+            if (nextSegment >= offsets.length) {
+                return false;
+            }
+            int segment = nextSegment++;
+            segmentReader = format.createReader(open(offsets[segment], lengths[segment]), classManager, serializationFactoryLookup);
+            return true;
+        }
+
+        while (pending.size() < options.readAhead && nextSegment < offsets.length) {
+            pending.add(submit(nextSegment++));
+        }
+        if (pending.isEmpty()) {
+            return false;
+        }
+        List<Object> objects;
+        try {
+            if (completionService != null) {
+                Future<List<Object>> future = completionService.take();
+                pending.remove(future);
+                objects = future.get();
+            } else {
+                objects = pending.pollFirst().get();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while decoding segment");
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof IOException) {
+                throw (IOException) e.getCause();
+            }
+            throw new IOException("Unable to decode segment", e.getCause());
+        }
+        decoded = objects.iterator();
+        return true;
+    }
+
+    private Future<List<Object>> submit(final int segment) {
+        Callable<List<Object>> task = new Callable<List<Object>>() {
+            @Override
+            public List<Object> call() throws IOException {
+                List<Object> objects = new ArrayList<>((int) Math.min(counts[segment], 1 << 20));
+                try (DataReader reader = format.createReader(open(offsets[segment], lengths[segment]), classManager, serializationFactoryLookup)) {
+                    while (reader.hasObjects()) {
+                        objects.add(reader.readObject(options.type));
+                    }
+                }
+                return objects;
+            }
+        };
+        return completionService != null ? completionService.submit(task) : options.executor.submit(task);
+    }
+
+    @Override
+    public void close() throws IOException {
+        for (Future<List<Object>> future : pending) {
+            future.cancel(true);
+        }
+        pending.clear();
+        try {
+            if (segmentReader != null) {
+                segmentReader.close();
+            }
+        } finally {
+            if (channel != null) {
+                channel.close();
+            }
+        }
+    }
+
+    private class SegmentSpliterator<T> implements Spliterator<T> {
+        private final TypeDescriptor<T> type;
+        private DataReader reader;
+        private long readerRemaining;
+        private int next;
+        private final int end;
+
+        private SegmentSpliterator(TypeDescriptor<T> type, int next, int end) {
+            this.type = type;
+            this.next = next;
+            this.end = end;
+        }
+
+        @Override
+        public boolean tryAdvance(Consumer<? super T> action) {
+            try {
+                while (reader == null || readerRemaining == 0) {
+                    if (reader != null) {
+                        reader.close();
+                        reader = null;
+                    }
+                    if (next >= end) {
+                        return false;
+                    }
+                    reader = format.createReader(open(offsets[next], lengths[next]), classManager, serializationFactoryLookup);
+                    readerRemaining = counts[next];
+                    next++;
+                }
+                readerRemaining--;
+                action.accept(reader.readObject(type));
+                return true;
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+
+        /**
+         * Segment which is being read is passed to prefix along with first half of remaining segments.
+         */
+        @Override
+        public Spliterator<T> trySplit() {
+            int mid = next + (end - next) / 2;
+            if (mid == next && (reader == null || next == end)) {
+                return null;
+            }
+            SegmentSpliterator<T> prefix = new SegmentSpliterator<>(type, next, mid);
+            prefix.reader = reader;
+            prefix.readerRemaining = readerRemaining;
+            reader = null;
+            next = mid;
+            return prefix;
+        }
+
+        @Override
+        public long estimateSize() {
+            long size = reader == null ? 0 : readerRemaining;
+            for (int i = next; i < end; i++) {
+                size += counts[i];
+            }
+            return size;
+        }
+
+        @Override
+        public int characteristics() {
+            return ORDERED | SIZED | SUBSIZED;
+        }
+    }
+
+    /**
+     * Reader options.
+     */
+    public static class Options {
+        private ExecutorService executor = null;
+        private int readAhead = 4;
+        private boolean ordered = true;
+        private TypeDescriptor<?> type = new TypeDescriptor<>(Object.class);
+
+        /**
+         * Decode segments ahead of time on given executor. Executor is not shut down by reader.
+         */
+        public Options executor(ExecutorService executor) {
+            this.executor = executor;
+            return this;
+        }
+
+        /**
+         * Maximal number of segments decoded ahead of time.
+         */
+        public Options readAhead(int readAhead) {
+            if (readAhead <= 0) {
+                throw new IllegalArgumentException("Number of segments to read ahead should be positive");
+            }
+            this.readAhead = readAhead;
+            return this;
+        }
+
+        /**
+         * Return objects in the order they were written, enabled by default.
+         * If disabled, segments decoded on executor are returned as soon as they're ready.
+         */
+        public Options ordered(boolean ordered) {
+            this.ordered = ordered;
+            return this;
+        }
+
+        /**
+         * Type used to read objects of segments decoded on executor, Object by default.
+         */
+        public Options type(TypeDescriptor<?> type) {
+            this.type = type;
+            return this;
+        }
+    }
+}
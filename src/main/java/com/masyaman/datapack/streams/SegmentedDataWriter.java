@@ -0,0 +1,290 @@
+package com.masyaman.datapack.streams;
+
+import com.masyaman.datapack.reflection.TypeDescriptor;
+import com.masyaman.datapack.serializers.primitives.UnsignedLongWriter;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.io.OutputStream;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
+
+/**
+ * Writer of segmented container. Objects are split into segments of fixed number of objects, each segment is
+ * independent stream written by its own {@link SerialDataWriter} or {@link MultiGzipDataWriter}, so segments could be
+ * encoded and decoded in parallel. See {@link SegmentedDataReader}.
+ * <p>
+ * Format: [version][segment format][segment data...][directory][8 bytes big-endian offset of directory],
+ * where directory is [segments count][(segment length, objects count)...].
+ * <p>
+ * Objects are serialized later if executor is used, so they should not be modified after they're written.
+ */
+public class SegmentedDataWriter implements ObjectWriter {
+
+    public static final long CURRENT_VERSION = 0;
+
+    private OutputStream os;
+    private ClassManager classManager;
+    private SerializationFactoryLookup serializationFactoryLookup;
+    private Options options;
+
+    private List<Object> objects = new ArrayList<>();
+    private List<TypeDescriptor> types = new ArrayList<>();
+    private Deque<Future<Segment>> pending = new ArrayDeque<>();
+    private List<Segment> segments = new ArrayList<>();
+    private long offset = 0;
+    private boolean closed = false;
+
+    public SegmentedDataWriter(OutputStream os) throws IOException {
+        this(os, new ClassManager());
+    }
+
+    public SegmentedDataWriter(OutputStream os, ClassManager classManager) throws IOException {
+        this(os, classManager, new SerializationFactoryLookup());
+    }
+
+    public SegmentedDataWriter(OutputStream os, ClassManager classManager, SerializationFactoryLookup serializationFactoryLookup) throws IOException {
+        this(os, classManager, serializationFactoryLookup, new Options());
+    }
+
+    public SegmentedDataWriter(OutputStream os, ClassManager classManager, SerializationFactoryLookup serializationFactoryLookup, Options options) throws IOException {
+        this.os = os;
+        this.classManager = classManager;
+        this.serializationFactoryLookup = serializationFactoryLookup;
+        this.options = options;
+
+        byte[] header = new byte[UnsignedLongWriter.MAX_LENGTH * 2];
+        int position = UnsignedLongWriter.write(header, 0, CURRENT_VERSION);
+        position = UnsignedLongWriter.write(header, position, options.format.ordinal());
+        write(header, position);
+    }
+
+    @Override
+    public <T> void writeObject(T o) throws IOException {
+        writeObject(o, null);
+    }
+
+    @Override
+    public <T> void writeObject(T o, TypeDescriptor<T> type) throws IOException {
+        if (closed) {
+            throw new IOException("Writer is closed");
+        }
+        objects.add(o);
+        types.add(type);
+        if (objects.size() >= options.segmentSize) {
+            endSegment();
+        }
+    }
+
+    /**
+     * Finish current segment and write all encoded segments. Segments which are still being encoded are not waited.
+     */
+    @Override
+    public void flush() throws IOException {
+        endSegment();
+        while (!pending.isEmpty() && pending.peekFirst().isDone()) {
+            writeSegment(pending.pollFirst());
+        }
+        os.flush();
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        try {
+            endSegment();
+            while (!pending.isEmpty()) {
+                writeSegment(pending.pollFirst());
+            }
+            writeDirectory();
+        } finally {
+            for (Future<Segment> future : pending) {
+                future.cancel(true);
+            }
+            os.close();
+        }
+    }
+
+    private void endSegment() throws IOException {
+        if (objects.isEmpty()) {
+            return;
+        }
+        final List<Object> segmentObjects = objects;
+        final List<TypeDescriptor> segmentTypes = types;
+        objects = new ArrayList<>();
+        types = new ArrayList<>();
+
+        Callable<Segment> task = new Callable<Segment>() {
+            @Override
+            public Segment call() throws IOException {
+                return encode(segmentObjects, segmentTypes);
+            }
+        };
+        if (options.executor == null) {
+            FutureTask<Segment> future = new FutureTask<>(task);
+            future.run();
+            pending.add(future);
+        } else {
+            pending.add(options.executor.submit(task));
+        }
+        while (pending.size() > options.maxPendingSegments) {
+            writeSegment(pending.pollFirst());
+        }
+    }
+
+    private Segment encode(List<Object> objects, List<TypeDescriptor> types) throws IOException {
+        ByteArrayOutputStream data = new ByteArrayOutputStream();
+        try (DataWriter writer = options.format.createWriter(data, classManager, serializationFactoryLookup)) {
+            for (int i = 0; i < objects.size(); i++) {
+                if (types.get(i) == null) {
+                    writer.writeObject(objects.get(i));
+                } else {
+                    writer.writeObject(objects.get(i), types.get(i));
+                }
+            }
+        }
+        return new Segment(data.toByteArray(), objects.size());
+    }
+
+    private void writeSegment(Future<Segment> future) throws IOException {
+        Segment segment;
+        try {
+            segment = future.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while encoding segment");
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof IOException) {
+                throw (IOException) e.getCause();
+            }
+            throw new IOException("Unable to encode segment", e.getCause());
+        }
+        write(segment.data, segment.data.length);
+        segments.add(segment);
+        segment.data = null;
+    }
+
+    private void writeDirectory() throws IOException {
+        long directoryOffset = offset;
+        byte[] directory = new byte[UnsignedLongWriter.MAX_LENGTH * (segments.size() * 2 + 1) + 8];
+        int position = UnsignedLongWriter.write(directory, 0, segments.size());
+        for (Segment segment : segments) {
+            position = UnsignedLongWriter.write(directory, position, segment.length);
+            position = UnsignedLongWriter.write(directory, position, segment.objects);
+        }
+        for (int i = 7; i >= 0; i--) {
+            directory[position++] = (byte) (directoryOffset >>> (i * 8));
+        }
+        write(directory, position);
+    }
+
+    private void write(byte[] bytes, int length) throws IOException {
+        os.write(bytes, 0, length);
+        offset += length;
+    }
+
+    /**
+     * Format of segments.
+     */
+    public enum Format {
+        SERIAL {
+            @Override
+            DataWriter createWriter(OutputStream os, ClassManager classManager, SerializationFactoryLookup lookup) throws IOException {
+                return new SerialDataWriter(os, classManager, lookup);
+            }
+
+            @Override
+            DataReader createReader(InputStream is, ClassManager classManager, SerializationFactoryLookup lookup) throws IOException {
+                return new SerialDataReader(is, classManager, lookup);
+            }
+        },
+        MULTI_GZIP {
+            @Override
+            DataWriter createWriter(OutputStream os, ClassManager classManager, SerializationFactoryLookup lookup) throws IOException {
+                return new MultiGzipDataWriter(os, classManager, lookup);
+            }
+
+            @Override
+            DataReader createReader(InputStream is, ClassManager classManager, SerializationFactoryLookup lookup) throws IOException {
+                return new MultiGzipDataReader(is, classManager, lookup);
+            }
+        };
+
+        abstract DataWriter createWriter(OutputStream os, ClassManager classManager, SerializationFactoryLookup lookup) throws IOException;
+
+        abstract DataReader createReader(InputStream is, ClassManager classManager, SerializationFactoryLookup lookup) throws IOException;
+    }
+
+    /**
+     * Writer options.
+     */
+    public static class Options {
+        private Format format = Format.SERIAL;
+        private int segmentSize = 65536;
+        private ExecutorService executor = null;
+        private int maxPendingSegments = 4;
+
+        /**
+         * Format of segments, {@link Format#SERIAL} by default.
+         */
+        public Options format(Format format) {
+            this.format = format;
+            return this;
+        }
+
+        /**
+         * Number of objects in each segment.
+         */
+        public Options segmentSize(int segmentSize) {
+            if (segmentSize <= 0) {
+                throw new IllegalArgumentException("Segment size should be positive");
+            }
+            this.segmentSize = segmentSize;
+            return this;
+        }
+
+        /**
+         * Encode segments on given executor. By default segments are encoded in writing thread.
+         * Executor is not shut down by writer.
+         */
+        public Options executor(ExecutorService executor) {
+            this.executor = executor;
+            return this;
+        }
+
+        /**
+         * Maximal number of segments which are encoded but not written yet, writing blocks when it's reached.
+         */
+        public Options maxPendingSegments(int maxPendingSegments) {
+            if (maxPendingSegments <= 0) {
+                throw new IllegalArgumentException("Number of pending segments should be positive");
+            }
+            this.maxPendingSegments = maxPendingSegments;
+            return this;
+        }
+    }
+
+    private static class Segment {
+        private byte[] data;
+        private final long length;
+        private final long objects;
+
+        private Segment(byte[] data, long objects) {
+            this.data = data;
+            this.length = data.length;
+            this.objects = objects;
+        }
+    }
+}
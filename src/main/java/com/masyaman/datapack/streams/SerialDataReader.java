@@ -3,12 +3,37 @@ package com.masyaman.datapack.streams;
 import com.masyaman.datapack.reflection.TypeDescriptor;
 import com.masyaman.datapack.serializers.Deserializer;
 import com.masyaman.datapack.serializers.SerializationFactory;
+import com.masyaman.datapack.serializers.primitives.UnsignedLongReader;
 
+import java.io.EOFException;
 import java.io.IOException;
 import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Spliterator;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
 
 public class SerialDataReader extends DataReader.Abstract {
 
+    private boolean syncPoints = false;
+    private boolean finished = false;
+    private int depth = 0;
+    private long ordinal = 0;
+
+    private MappedFileInputStream mapped;
+    private long start;
+    private long dataStart;
+    private List<SyncPoint> index;
+
+    private Options options;
+    private StringDictionary dictionary;
+
     public SerialDataReader(InputStream is) throws IOException {
         this(is, new ClassManager());
     }
@@ -17,9 +42,51 @@ public class SerialDataReader extends DataReader.Abstract {
         this(is, classManager, new SerializationFactoryLookup());
     }
 
+    public SerialDataReader(Path path) throws IOException {
+        this(path, new ClassManager());
+    }
+
+    public SerialDataReader(Path path, ClassManager classManager) throws IOException {
+        this(path, classManager, new SerializationFactoryLookup());
+    }
+
+    /**
+     * Read data from memory-mapped file, see {@link MappedFileInputStream}.
+     */
+    public SerialDataReader(Path path, ClassManager classManager, SerializationFactoryLookup serializationFactoryLookup) throws IOException {
+        this(new MappedFileInputStream(path), classManager, serializationFactoryLookup);
+    }
+
+    /**
+     * Stream is seekable if it's {@link MappedFileInputStream}, see {@link #seek(long)}.
+     */
     public SerialDataReader(InputStream is, ClassManager classManager, SerializationFactoryLookup serializationFactoryLookup) throws IOException {
-        super(is, classManager, serializationFactoryLookup);
+        this(is, classManager, serializationFactoryLookup, new Options());
+    }
+
+    /**
+     * Read stream written with one of given schemas, see {@link SerialDataWriter.Options#schema(Schema)}.
+     */
+    public SerialDataReader(InputStream is, ClassManager classManager, SerializationFactoryLookup serializationFactoryLookup, Schema... schemas) throws IOException {
+        this(is, classManager, serializationFactoryLookup, new Options().schemas(schemas));
+    }
+
+    public SerialDataReader(InputStream is, ClassManager classManager, SerializationFactoryLookup serializationFactoryLookup, Options options) throws IOException {
+        super(options.schemas.length > 0 ? Schema.open(is, options.schemas) : is, classManager, serializationFactoryLookup);
+        this.options = options;
+        if (is instanceof MappedFileInputStream && options.schemas.length == 0) {
+            mapped = (MappedFileInputStream) is;
+            start = mapped.position();
+        }
         readGlobalSettings();
+        if (mapped != null) {
+            dataStart = mapped.position() - start - (limit - position);
+        }
+        if (this.is instanceof Schema.SchemaInputStream) {
+            for (TypeDescriptor<?> type : ((Schema.SchemaInputStream) this.is).getSchema().getTypes()) {
+                registerDeserializer(type);
+            }
+        }
     }
 
     private void readGlobalSettings() throws IOException {
@@ -28,9 +95,280 @@ public class SerialDataReader extends DataReader.Abstract {
             throw new IOException("Version " + version + " is not supported!");
         }
         Long settingsNumber = readUnsignedLong();
-        if (settingsNumber == null || settingsNumber.longValue() != 0) {
+        if (settingsNumber == null) {
             throw new IOException("Settings are not supported!");
         }
+        for (long i = 0; i < settingsNumber; i++) {
+            String name = readString();
+            Long value = readUnsignedLong();
+            if (SerialDataWriter.SYNC_POINTS_SETTING.equals(name) && value != null && value == 1) {
+                syncPoints = true;
+            } else if (SerialDataWriter.STRING_DICTIONARY_SETTING.equals(name) && value != null) {
+                dictionary = findDictionary(value);
+            } else {
+                throw new IOException("Setting " + name + "=" + value + " is not supported!");
+            }
+        }
+    }
+
+    @Override
+    public boolean hasObjects() throws IOException {
+        if (!syncPoints) {
+            return super.hasObjects();
+        }
+        return !finished && super.hasObjects() && buffer[position] != (byte) SerialDataWriter.END_MARKER;
+    }
+
+    @Override
+    public <T> T readObject(TypeDescriptor<T> type) throws IOException {
+        depth++;
+        try {
+            T o = super.readObject(type);
+            if (depth == 1) {
+                ordinal++;
+            }
+            return o;
+        } finally {
+            depth--;
+        }
+    }
+
+    @Override
+    protected <T> T readBatchObject(Batch<T> batch) throws IOException {
+        depth++;
+        try {
+            T o = super.readBatchObject(batch);
+            if (depth == 1) {
+                ordinal++;
+            }
+            return o;
+        } finally {
+            depth--;
+        }
+    }
+
+    @Override
+    public boolean skipObject(TypeDescriptor<?> type) throws IOException {
+        depth++;
+        try {
+            boolean notNull = super.skipObject(type);
+            if (depth == 1) {
+                ordinal++;
+            }
+            return notNull;
+        } finally {
+            depth--;
+        }
+    }
+
+    @Override
+    protected long readObjectId() throws IOException {
+        if (!syncPoints || depth != 1) {
+            return super.readObjectId();
+        }
+        long id = super.readObjectId();
+        while (!wasNull() && id == SerialDataWriter.SYNC_MARKER) {
+            resetDeserializers();
+            id = super.readObjectId();
+        }
+        if (wasNull()) {
+            return id;
+        }
+        if (id == SerialDataWriter.END_MARKER) {
+            finished = true;
+            throw new EOFException("End of stream is reached");
+        }
+        return id - SerialDataWriter.ID_SHIFT;
+    }
+
+    private StringDictionary findDictionary(long id) throws IOException {
+        for (StringDictionary dictionary : options.dictionaries) {
+            if (dictionary.getId() == id) {
+                return dictionary;
+            }
+        }
+        throw new IOException("Unknown string dictionary " + id);
+    }
+
+    @Override
+    public StringDictionary getStringDictionary() {
+        return dictionary;
+    }
+
+    /**
+     * Read only given fields of objects of given type, other fields are skipped and left with default values.
+     */
+    public void project(Class<?> type, String... fields) {
+        projections.put(type, new HashSet<>(Arrays.asList(fields)));
+    }
+
+    /**
+     * @return sync points from stream index, including stream start
+     */
+    public List<SyncPoint> getSyncPoints() throws IOException {
+        if (mapped == null || !syncPoints) {
+            throw new IOException("Stream is not seekable, it should be written with sync points and read from file");
+        }
+        if (index == null) {
+            long current = mapped.position();
+            try {
+                mapped.position(mapped.size() - 8);
+                long endOffset = 0;
+                for (int i = 0; i < 8; i++) {
+                    endOffset = (endOffset << 8) | mapped.read();
+                }
+                mapped.position(start + endOffset);
+                Long marker = UnsignedLongReader.read(mapped);
+                if (marker == null || marker != SerialDataWriter.END_MARKER) {
+                    throw new IOException("Sync points index is not found");
+                }
+                long count = UnsignedLongReader.read(mapped);
+                List<SyncPoint> syncPoints = new ArrayList<>();
+                syncPoints.add(new SyncPoint(0, dataStart));
+                for (long i = 0; i < count; i++) {
+                    syncPoints.add(new SyncPoint(UnsignedLongReader.read(mapped), UnsignedLongReader.read(mapped)));
+                }
+                index = Collections.unmodifiableList(syncPoints);
+            } finally {
+                mapped.position(current);
+            }
+        }
+        return index;
+    }
+
+    /**
+     * Move to object with given ordinal. Reading is started from closest preceding sync point.
+     */
+    public void seek(long ordinal) throws IOException {
+        SyncPoint from = null;
+        for (SyncPoint syncPoint : getSyncPoints()) {
+            if (syncPoint.getOrdinal() > ordinal) {
+                break;
+            }
+            from = syncPoint;
+        }
+        seek(from);
+        TypeDescriptor<Object> type = new TypeDescriptor<>(Object.class);
+        for (long i = from.getOrdinal(); i < ordinal; i++) {
+            skipObject(type);
+        }
+    }
+
+    /**
+     * Move to given sync point, see {@link #getSyncPoints()}.
+     */
+    public void seek(SyncPoint syncPoint) throws IOException {
+        if (mapped == null || !syncPoints) {
+            throw new IOException("Stream is not seekable, it should be written with sync points and read from file");
+        }
+        mapped.position(start + syncPoint.getOffset());
+        position = 0;
+        limit = 0;
+        resetDeserializers();
+        finished = false;
+        ordinal = syncPoint.getOrdinal();
+    }
+
+    /**
+     * If stream is seekable, parallel stream is split at sync points and each part is read by its own reader
+     * over the same file. Size of stream is not known, as number of objects after last sync point is not stored.
+     */
+    @Override
+    public <T> Stream<T> stream(Class<T> clazz) {
+        TypeDescriptor<T> type = new TypeDescriptor<>(clazz);
+        if (mapped == null || !syncPoints) {
+            return ReaderSpliterator.stream(new ReaderSpliterator<>(this, type), this);
+        }
+        List<SyncPoint> points;
+        try {
+            points = getSyncPoints();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        int next = 0;
+        while (next < points.size() && points.get(next).getOrdinal() <= ordinal) {
+            next++;
+        }
+        SyncPointSpliterator<T> spliterator = new SyncPointSpliterator<>(type, points, next, points.size());
+        spliterator.reader = this;
+        spliterator.readerOrdinal = ordinal;
+        spliterator.readerEnd = next < points.size() ? points.get(next).getOrdinal() : Long.MAX_VALUE;
+        return ReaderSpliterator.stream(spliterator, this);
+    }
+
+    private class SyncPointSpliterator<T> implements Spliterator<T> {
+        private final TypeDescriptor<T> type;
+        private final List<SyncPoint> points;
+        private SerialDataReader reader;
+        private long readerOrdinal;
+        private long readerEnd;
+        private int next;
+        private final int end;
+
+        private SyncPointSpliterator(TypeDescriptor<T> type, List<SyncPoint> points, int next, int end) {
+            this.type = type;
+            this.points = points;
+            this.next = next;
+            this.end = end;
+        }
+
+        @Override
+        public boolean tryAdvance(Consumer<? super T> action) {
+            try {
+                while (reader == null || readerOrdinal >= readerEnd || (readerEnd == Long.MAX_VALUE && !reader.hasObjects())) {
+                    if (reader != null && reader != SerialDataReader.this) {
+                        reader.close();
+                    }
+                    reader = null;
+                    if (next >= end) {
+                        return false;
+                    }
+                    reader = new SerialDataReader(mapped.duplicate(start), classManager, serializationFactoryLookup, options);
+                    reader.projections = projections;
+                    reader.seek(points.get(next));
+                    readerOrdinal = points.get(next).getOrdinal();
+                    readerEnd = next + 1 < points.size() ? points.get(next + 1).getOrdinal() : Long.MAX_VALUE;
+                    next++;
+                }
+                readerOrdinal++;
+                action.accept(reader.readObject(type));
+                return true;
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+
+        /**
+         * Part which is being read is passed to prefix along with first half of remaining parts.
+         */
+        @Override
+        public Spliterator<T> trySplit() {
+            int mid = next + (end - next) / 2;
+            if (mid == next && (reader == null || next == end)) {
+                return null;
+            }
+            SyncPointSpliterator<T> prefix = new SyncPointSpliterator<>(type, points, next, mid);
+            prefix.reader = reader;
+            prefix.readerOrdinal = readerOrdinal;
+            prefix.readerEnd = readerEnd;
+            reader = null;
+            next = mid;
+            return prefix;
+        }
+
+        @Override
+        public long estimateSize() {
+            if (end >= points.size()) {
+                return Long.MAX_VALUE;
+            }
+            long from = reader != null ? readerOrdinal : points.get(next).getOrdinal();
+            return points.get(end).getOrdinal() - from;
+        }
+
+        @Override
+        public int characteristics() {
+            return end < points.size() ? ORDERED | SIZED | SUBSIZED : ORDERED;
+        }
     }
 
     @Override
@@ -42,4 +380,28 @@ public class SerialDataReader extends DataReader.Abstract {
         }
         return serializationFactory.createDeserializer(this, type);
     }
+
+    /**
+     * Reader options.
+     */
+    public static class Options {
+        private Schema[] schemas = new Schema[0];
+        private StringDictionary[] dictionaries = new StringDictionary[0];
+
+        /**
+         * Schemas which could be used by stream, stream starts with id of one of them.
+         */
+        public Options schemas(Schema... schemas) {
+            this.schemas = schemas;
+            return this;
+        }
+
+        /**
+         * String dictionaries which could be referenced by stream settings.
+         */
+        public Options dictionaries(StringDictionary... dictionaries) {
+            this.dictionaries = dictionaries;
+            return this;
+        }
+    }
 }
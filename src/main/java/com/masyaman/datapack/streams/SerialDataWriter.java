@@ -4,30 +4,99 @@ import com.masyaman.datapack.reflection.TypeDescriptor;
 import com.masyaman.datapack.serializers.SerializationFactory;
 import com.masyaman.datapack.serializers.Serializer;
 
+import java.io.ByteArrayOutputStream;
 import java.io.IOException;
 import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.WritableByteChannel;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
 
 public class SerialDataWriter extends DataWriter.Abstract {
 
     public static final long CURRENT_VERSION = 0;
 
+    public static final String SYNC_POINTS_SETTING = "syncPoints";
+    public static final String STRING_DICTIONARY_SETTING = "stringDictionary";
+
+    static final long SYNC_MARKER = 0;
+    static final long END_MARKER = 1;
+    static final long ID_SHIFT = 2;
+
+    private Options options;
+    private boolean topLevel = false;
+    private long objects = 0;
+    private boolean closed = false;
+    private List<SyncPoint> syncPoints = new ArrayList<>();
+
     public SerialDataWriter(OutputStream os) throws IOException {
         this(os, new ClassManager());
     }
 
+    /**
+     * Write data into caller-supplied buffer, writing fails if buffer has not enough space.
+     * Use {@link ByteBufferOutputStream} to configure overflow handling.
+     */
+    public SerialDataWriter(ByteBuffer buffer) throws IOException {
+        this(new ByteBufferOutputStream(buffer));
+    }
+
+    public SerialDataWriter(WritableByteChannel channel) throws IOException {
+        this(Channels.newOutputStream(channel));
+    }
+
     public SerialDataWriter(OutputStream os, ClassManager classManager) throws IOException {
         this(os, classManager, new SerializationFactoryLookup());
     }
 
     public SerialDataWriter(OutputStream os, ClassManager classManager, SerializationFactoryLookup serializationFactoryLookup) throws IOException {
-        super(os, classManager, serializationFactoryLookup);
+        this(os, classManager, serializationFactoryLookup, new Options());
+    }
+
+    /**
+     * With schema, settings and serializers of schema are written to memory and checked to match it,
+     * stream starts with schema id.
+     */
+    public SerialDataWriter(OutputStream os, ClassManager classManager, SerializationFactoryLookup serializationFactoryLookup, Options options) throws IOException {
+        super(options.schema != null ? new ByteArrayOutputStream() : os, classManager, serializationFactoryLookup);
         this.serializationFactoryLookup = serializationFactoryLookup;
+        this.options = options;
         writeGlobalSettings();
+        if (options.schema != null) {
+            if (options.syncInterval != Long.MAX_VALUE) {
+                throw new IOException("Sync points are not supported with schema");
+            }
+            for (TypeDescriptor<?> type : options.schema.getTypes()) {
+                registerSerializer(type);
+            }
+            flushBuffer();
+            if (!Arrays.equals(((ByteArrayOutputStream) this.os).toByteArray(), options.schema.getDefinitions())) {
+                throw new IOException("Schema does not match class manager and serialization factories of writer");
+            }
+            this.os = os;
+            writeUnsignedLong(options.schema.getId());
+        }
     }
 
     private void writeGlobalSettings() throws IOException {
         writeUnsignedLong(CURRENT_VERSION);
-        writeUnsignedLong(0L); // there will be number of settings here
+        long settingsNumber = (options.syncInterval != Long.MAX_VALUE ? 1 : 0) + (options.dictionary != null ? 1 : 0);
+        writeUnsignedLong(settingsNumber);
+        if (options.syncInterval != Long.MAX_VALUE) {
+            writeString(SYNC_POINTS_SETTING);
+            writeUnsignedLong(1L);
+        }
+        if (options.dictionary != null) {
+            writeString(STRING_DICTIONARY_SETTING);
+            writeUnsignedLong(options.dictionary.getId());
+        }
+    }
+
+    @Override
+    public StringDictionary getStringDictionary() {
+        return options.dictionary;
     }
 
     @Override
@@ -36,4 +105,106 @@ public class SerialDataWriter extends DataWriter.Abstract {
         Serializer serializer = factory.createSerializer(this, type);
         return serializer;
     }
+
+    /**
+     * Sync point is written before first object after each sync interval.
+     */
+    @Override
+    protected void beginObject() throws IOException {
+        topLevel = !inObject();
+        if (topLevel && objects > 0 && objects % options.syncInterval == 0) {
+            syncPoints.add(new SyncPoint(objects, getOffset()));
+            writeUnsignedLong(SYNC_MARKER);
+            typeToId.clear();
+            registeredSerializers.clear();
+        }
+        super.beginObject();
+    }
+
+    @Override
+    protected void endObject() throws IOException {
+        super.endObject();
+        if (!inObject()) {
+            objects++;
+        }
+    }
+
+    /**
+     * With sync points top-level object ids are shifted to reserve values for sync point and end of stream markers.
+     */
+    @Override
+    protected void writeObjectId(Long id) throws IOException {
+        if (!topLevel || options.syncInterval == Long.MAX_VALUE) {
+            super.writeObjectId(id);
+            return;
+        }
+        topLevel = false;
+        super.writeObjectId(id == null ? null : id + ID_SHIFT);
+    }
+
+    /**
+     * With sync points stream is finished with end marker followed by index:
+     * [Number of sync points][Ordinal, Offset...][Offset of end marker: 8 bytes]
+     * Repeated calls do nothing.
+     */
+    @Override
+    public void close() throws IOException {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        if (options.syncInterval != Long.MAX_VALUE) {
+            long endOffset = getOffset();
+            writeUnsignedLong(END_MARKER);
+            writeUnsignedLong((long) syncPoints.size());
+            for (SyncPoint syncPoint : syncPoints) {
+                writeUnsignedLong(syncPoint.getOrdinal());
+                writeUnsignedLong(syncPoint.getOffset());
+            }
+            for (int i = 7; i >= 0; i--) {
+                writeByte((int) (endOffset >>> (i * 8)));
+            }
+        }
+        super.close();
+    }
+
+    /**
+     * Writer options.
+     */
+    public static class Options {
+        private long syncInterval = Long.MAX_VALUE;
+        private Schema schema = null;
+        private StringDictionary dictionary = null;
+
+        /**
+         * Write sync point every given number of objects, serializers are reset at sync points so reading could be
+         * started from any of them. Sync points are indexed at the end of stream, see
+         * {@link SerialDataReader#seek(long)}. Such streams should be closed to be readable.
+         */
+        public Options syncInterval(long objects) {
+            if (objects <= 0) {
+                throw new IllegalArgumentException("Sync interval should be positive");
+            }
+            this.syncInterval = objects;
+            return this;
+        }
+
+        /**
+         * Write stream using schema shared with reader out of band, stream starts with schema id instead of
+         * settings and serializers of schema types. Sync points are not supported.
+         */
+        public Options schema(Schema schema) {
+            this.schema = schema;
+            return this;
+        }
+
+        /**
+         * Preload string caches with given dictionary, reader should have the same dictionary.
+         * Dictionary id is written to stream settings.
+         */
+        public Options dictionary(StringDictionary dictionary) {
+            this.dictionary = dictionary;
+            return this;
+        }
+    }
 }
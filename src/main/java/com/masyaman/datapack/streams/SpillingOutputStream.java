@@ -0,0 +1,115 @@
+package com.masyaman.datapack.streams;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.Buffer;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Output stream keeping data in memory until threshold is reached. After that data is moved to temporary file, so
+ * memory usage stays limited by threshold.
+ * Data is kept after {@link #close()} and should be released with {@link #delete()} once it's consumed.
+ */
+public class SpillingOutputStream extends OutputStream {
+
+    public static final int INITIAL_CAPACITY = 256;
+
+    private static final int MAX_CAPACITY = Integer.MAX_VALUE - 8;
+
+    private ByteBufferOutputStream memory;
+    private Path directory;
+
+    private FileChannel file;
+    private long spilled = 0;
+
+    /**
+     * @param threshold max size of data in memory, in bytes
+     * @param directory directory for temporary file, null for default temporary-file directory
+     */
+    public SpillingOutputStream(long threshold, Path directory) {
+        this.directory = directory;
+        int maxCapacity = (int) Math.max(1, Math.min(threshold, MAX_CAPACITY));
+        memory = new ByteBufferOutputStream(ByteBuffer.allocate(Math.min(INITIAL_CAPACITY, maxCapacity)), new ByteBufferOutputStream.OverflowHandler() {
+            @Override
+            public ByteBuffer onOverflow(ByteBuffer buffer, int required) throws IOException {
+                if (buffer.capacity() < maxCapacity) {
+                    int capacity = (int) Math.min(Math.max(buffer.capacity() * 2L, (long) buffer.position() + required), maxCapacity);
+                    ByteBuffer newBuffer = ByteBuffer.allocate(capacity);
+                    ((Buffer) buffer).flip();
+                    newBuffer.put(buffer);
+                    return newBuffer;
+                }
+                spill(buffer);
+                return buffer;
+            }
+        });
+    }
+
+    public long size() {
+        return spilled + memory.size();
+    }
+
+    public boolean isSpilled() {
+        return file != null;
+    }
+
+    @Override
+    public void write(int b) throws IOException {
+        memory.write(b);
+    }
+
+    @Override
+    public void write(byte[] b, int off, int len) throws IOException {
+        memory.write(b, off, len);
+    }
+
+    public void writeTo(OutputStream out) throws IOException {
+        writeTo(Channels.newChannel(out));
+    }
+
+    /**
+     * Write all data to channel. Spilled data is transferred with {@link FileChannel#transferTo}.
+     */
+    public void writeTo(WritableByteChannel out) throws IOException {
+        long position = 0;
+        while (position < spilled) {
+            position += file.transferTo(position, spilled - position, out);
+        }
+        ByteBuffer data = memory.getBuffer().duplicate();
+        ((Buffer) data).flip();
+        while (data.hasRemaining()) {
+            out.write(data);
+        }
+    }
+
+    /**
+     * Release memory and remove temporary file.
+     */
+    public void delete() throws IOException {
+        memory = new ByteBufferOutputStream(ByteBuffer.allocate(0));
+        spilled = 0;
+        if (file != null) {
+            file.close();
+            file = null;
+        }
+    }
+
+    private void spill(ByteBuffer buffer) throws IOException {
+        if (file == null) {
+            Path path = directory == null ? Files.createTempFile("column", ".tmp") : Files.createTempFile(directory, "column", ".tmp");
+            file = FileChannel.open(path, StandardOpenOption.READ, StandardOpenOption.WRITE, StandardOpenOption.DELETE_ON_CLOSE);
+        }
+        // Buffer methods are called through Buffer, ByteBuffer overrides don't exist before Java 9
+        ((Buffer) buffer).flip();
+        while (buffer.hasRemaining()) {
+            spilled += file.write(buffer, spilled);
+        }
+        ((Buffer) buffer).clear();
+    }
+}
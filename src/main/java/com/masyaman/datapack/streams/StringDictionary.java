@@ -0,0 +1,193 @@
+package com.masyaman.datapack.streams;
+
+import com.masyaman.datapack.serializers.objects.ObjectPlan;
+import com.masyaman.datapack.serializers.primitives.StringReader;
+import com.masyaman.datapack.serializers.primitives.StringWriter;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.lang.reflect.Array;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.zip.CRC32;
+
+/**
+ * Strings preloaded into caches of cached string and enum serializers before first value, so short streams don't pay
+ * for writing frequent strings in full. Dictionary is shared by writer and reader out of band and referenced by id
+ * in stream settings, see {@link SerialDataWriter.Options#dictionary(StringDictionary)}.
+ * Dictionaries are built by {@link Trainer} from sample objects.
+ */
+public final class StringDictionary {
+
+    public static final long CURRENT_VERSION = 0;
+
+    private final List<String> values;
+    private final byte[] bytes;
+    private final long id;
+
+    /**
+     * @param values dictionary strings, most frequent first
+     */
+    public StringDictionary(Collection<String> values) {
+        this.values = Collections.unmodifiableList(new ArrayList<>(new LinkedHashSet<>(values)));
+
+        ByteArrayOutputStream os = new ByteArrayOutputStream();
+        Schema.writeValue(os, CURRENT_VERSION);
+        Schema.writeValue(os, this.values.size());
+        for (String value : this.values) {
+            byte[] encoded = StringWriter.getBytes(value);
+            Schema.writeValue(os, encoded.length);
+            os.write(encoded, 0, encoded.length);
+        }
+        this.bytes = os.toByteArray();
+
+        CRC32 crc = new CRC32();
+        crc.update(bytes);
+        this.id = crc.getValue();
+    }
+
+    /**
+     * Import dictionary exported by {@link #toBytes()}.
+     */
+    public static StringDictionary fromBytes(byte[] bytes) throws IOException {
+        InputStream is = new ByteArrayInputStream(bytes);
+        long version = Schema.readValue(is);
+        if (version != CURRENT_VERSION) {
+            throw new IOException("Dictionary version " + version + " is not supported!");
+        }
+        long count = Schema.readValue(is);
+        List<String> values = new ArrayList<>();
+        for (long i = 0; i < count; i++) {
+            byte[] value = Schema.readBytes(is, Schema.readValue(is));
+            values.add(StringReader.read(value, 0, value.length));
+        }
+        return new StringDictionary(values);
+    }
+
+    public List<String> getValues() {
+        return values;
+    }
+
+    /**
+     * @return id written to stream settings, it's fingerprint of dictionary
+     */
+    public long getId() {
+        return id;
+    }
+
+    public byte[] toBytes() {
+        return bytes.clone();
+    }
+
+    /**
+     * Collects strings and enum names from sample objects, including nested objects, collections and maps.
+     */
+    public static class Trainer {
+
+        private final ClassManager classManager;
+        private final Map<String, Integer> counts = new HashMap<>();
+
+        public Trainer() {
+            this(new ClassManager());
+        }
+
+        public Trainer(ClassManager classManager) {
+            this.classManager = classManager;
+        }
+
+        /**
+         * Add all objects of sample stream.
+         */
+        public Trainer train(ObjectReader reader) throws IOException {
+            while (reader.hasObjects()) {
+                add(reader.readObject());
+            }
+            return this;
+        }
+
+        public Trainer add(Object o) throws IOException {
+            add(o, Collections.newSetFromMap(new IdentityHashMap<>()));
+            return this;
+        }
+
+        /**
+         * @return dictionary of at most maxSize strings which occurred at least minCount times, most frequent first
+         */
+        public StringDictionary build(int maxSize, int minCount) {
+            List<Map.Entry<String, Integer>> entries = new ArrayList<>();
+            for (Map.Entry<String, Integer> entry : counts.entrySet()) {
+                if (entry.getValue() >= minCount) {
+                    entries.add(entry);
+                }
+            }
+            Collections.sort(entries, new Comparator<Map.Entry<String, Integer>>() {
+                @Override
+                public int compare(Map.Entry<String, Integer> e1, Map.Entry<String, Integer> e2) {
+                    int compare = Integer.compare(e2.getValue(), e1.getValue());
+                    return compare != 0 ? compare : e1.getKey().compareTo(e2.getKey());
+                }
+            });
+            List<String> values = new ArrayList<>();
+            for (int i = 0; i < entries.size() && i < maxSize; i++) {
+                values.add(entries.get(i).getKey());
+            }
+            return new StringDictionary(values);
+        }
+
+        private void count(String value) {
+            counts.put(value, counts.getOrDefault(value, 0) + 1);
+        }
+
+        private void add(Object o, Set<Object> visited) throws IOException {
+            if (o == null || o instanceof Number || o instanceof Boolean || o instanceof Character || o instanceof Date) {
+                return;
+            }
+            if (o instanceof String) {
+                count((String) o);
+                return;
+            }
+            if (o instanceof Enum) {
+                count(((Enum) o).name());
+                return;
+            }
+            if (!visited.add(o)) {
+                return;
+            }
+            if (o instanceof Collection) {
+                for (Object element : (Collection) o) {
+                    add(element, visited);
+                }
+            } else if (o instanceof Map) {
+                for (Map.Entry entry : ((Map<?, ?>) o).entrySet()) {
+                    add(entry.getKey(), visited);
+                    add(entry.getValue(), visited);
+                }
+            } else if (o.getClass().isArray()) {
+                if (!o.getClass().getComponentType().isPrimitive()) {
+                    for (int i = 0; i < Array.getLength(o); i++) {
+                        add(Array.get(o, i), visited);
+                    }
+                }
+            } else if (!o.getClass().getName().startsWith("java")) {
+                for (ObjectPlan.Field field : classManager.getObjectPlan(o.getClass()).getFields()) {
+                    try {
+                        add(field.getGetter().get(o), visited);
+                    } catch (ReflectiveOperationException e) {
+                        throw new IOException("Unable to read field " + field.getName(), e);
+                    }
+                }
+            }
+        }
+    }
+}
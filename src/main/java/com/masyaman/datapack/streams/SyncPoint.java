@@ -0,0 +1,47 @@
+package com.masyaman.datapack.streams;
+
+/**
+ * Position in serial stream where all serializers are reset, so reading could be started from it.
+ */
+public final class SyncPoint {
+
+    private final long ordinal;
+    private final long offset;
+
+    public SyncPoint(long ordinal, long offset) {
+        this.ordinal = ordinal;
+        this.offset = offset;
+    }
+
+    /**
+     * @return number of objects written before sync point
+     */
+    public long getOrdinal() {
+        return ordinal;
+    }
+
+    /**
+     * @return byte offset from stream start
+     */
+    public long getOffset() {
+        return offset;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (o == null || getClass() != o.getClass()) return false;
+        SyncPoint syncPoint = (SyncPoint) o;
+        return ordinal == syncPoint.ordinal && offset == syncPoint.offset;
+    }
+
+    @Override
+    public int hashCode() {
+        return 31 * Long.hashCode(ordinal) + Long.hashCode(offset);
+    }
+
+    @Override
+    public String toString() {
+        return "SyncPoint{ordinal=" + ordinal + ", offset=" + offset + '}';
+    }
+}
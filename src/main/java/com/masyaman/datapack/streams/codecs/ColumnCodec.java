@@ -0,0 +1,22 @@
+package com.masyaman.datapack.streams.codecs;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+
+/**
+ * Compression codec of column data in multi-stream format.
+ * Codec name is recorded in file header and used to find codec for decoding, see {@link ColumnCodecLookup}.
+ */
+public interface ColumnCodec {
+
+    String getName();
+
+    /**
+     * Wrap stream to compress data written into it. Closing returned stream finishes compression and closes
+     * underlying stream.
+     */
+    OutputStream encode(OutputStream os) throws IOException;
+
+    InputStream decode(InputStream is) throws IOException;
+}
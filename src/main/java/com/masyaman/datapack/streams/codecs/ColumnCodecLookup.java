@@ -0,0 +1,32 @@
+package com.masyaman.datapack.streams.codecs;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+public class ColumnCodecLookup {
+
+    static List<ColumnCodec> DEFAULT_CODECS = Arrays.asList(
+            GzipCodec.INSTANCE,
+            DeflateCodec.INSTANCE,
+            RawCodec.INSTANCE,
+            LzCodec.INSTANCE
+    );
+
+    private Map<String, ColumnCodec> codecs = new HashMap<>();
+
+    public ColumnCodecLookup() {
+        for (ColumnCodec codec : DEFAULT_CODECS) {
+            codecs.put(codec.getName(), codec);
+        }
+    }
+
+    public ColumnCodec getByName(String name) {
+        return codecs.get(name);
+    }
+
+    public void registerCodec(ColumnCodec codec) {
+        codecs.put(codec.getName(), codec);
+    }
+}
@@ -0,0 +1,120 @@
+package com.masyaman.datapack.streams.codecs;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.Arrays;
+import java.util.zip.CRC32;
+import java.util.zip.Deflater;
+import java.util.zip.DeflaterOutputStream;
+import java.util.zip.Inflater;
+import java.util.zip.InflaterInputStream;
+
+/**
+ * Raw deflate stream with configurable level and strategy.
+ * Unlike gzip there is no header and trailer, so it's cheaper for small columns.
+ * Level and strategy affect compression only, so all instances without dictionary share the same name.
+ * <p>
+ * Preset dictionary primes LZ77 window, so even small columns could refer to data typical for them. Dictionary is
+ * needed for decoding, so its fingerprint is part of codec name recorded in file header and reader should register
+ * codec with the same dictionary.
+ */
+public class DeflateCodec implements ColumnCodec {
+
+    public static final DeflateCodec INSTANCE = new DeflateCodec(Deflater.DEFAULT_COMPRESSION, Deflater.DEFAULT_STRATEGY);
+
+    public static final int BUFFER_SIZE = 8192;
+
+    /**
+     * Deflate window size, only the last bytes of longer dictionary are used.
+     */
+    public static final int MAX_DICTIONARY_SIZE = 32768;
+
+    private final int level;
+    private final int strategy;
+    private final byte[] dictionary;
+    private final String name;
+
+    /**
+     * @param level compression level from {@link Deflater#NO_COMPRESSION} to {@link Deflater#BEST_COMPRESSION}
+     * @param strategy one of {@link Deflater#DEFAULT_STRATEGY}, {@link Deflater#FILTERED}, {@link Deflater#HUFFMAN_ONLY}
+     */
+    public DeflateCodec(int level, int strategy) {
+        this(level, strategy, null);
+    }
+
+    /**
+     * @param dictionary preset dictionary, the most frequent data should be at its end
+     */
+    public DeflateCodec(int level, int strategy, byte[] dictionary) {
+        if (level < Deflater.DEFAULT_COMPRESSION || level > Deflater.BEST_COMPRESSION) {
+            throw new IllegalArgumentException("Invalid compression level " + level);
+        }
+        if (strategy != Deflater.DEFAULT_STRATEGY && strategy != Deflater.FILTERED && strategy != Deflater.HUFFMAN_ONLY) {
+            throw new IllegalArgumentException("Invalid compression strategy " + strategy);
+        }
+        this.level = level;
+        this.strategy = strategy;
+        if (dictionary != null && dictionary.length > MAX_DICTIONARY_SIZE) {
+            dictionary = Arrays.copyOfRange(dictionary, dictionary.length - MAX_DICTIONARY_SIZE, dictionary.length);
+        }
+        this.dictionary = dictionary == null || dictionary.length == 0 ? null : dictionary.clone();
+        if (this.dictionary == null) {
+            name = "deflate";
+        } else {
+            CRC32 crc = new CRC32();
+            crc.update(this.dictionary);
+            name = "deflate:" + Long.toHexString(crc.getValue());
+        }
+    }
+
+    @Override
+    public String getName() {
+        return name;
+    }
+
+    /**
+     * @return preset dictionary, null if it's not used
+     */
+    public byte[] getDictionary() {
+        return dictionary == null ? null : dictionary.clone();
+    }
+
+    @Override
+    public OutputStream encode(OutputStream os) throws IOException {
+        final Deflater deflater = new Deflater(level, true);
+        deflater.setStrategy(strategy);
+        if (dictionary != null) {
+            deflater.setDictionary(dictionary);
+        }
+        return new DeflaterOutputStream(os, deflater, BUFFER_SIZE) {
+            @Override
+            public void close() throws IOException {
+                try {
+                    super.close();
+                } finally {
+                    deflater.end();
+                }
+            }
+        };
+    }
+
+    @Override
+    public InputStream decode(InputStream is) throws IOException {
+        final Inflater inflater = new Inflater(true);
+        if (dictionary != null) {
+            // Raw inflater doesn't ask for dictionary, so it's set in advance
+            inflater.setDictionary(dictionary);
+        }
+        return new InflaterInputStream(is, inflater, BUFFER_SIZE) {
+            @Override
+            public void close() throws IOException {
+                try {
+                    super.close();
+                } finally {
+                    inflater.end();
+                }
+            }
+        };
+    }
+}
@@ -0,0 +1,30 @@
+package com.masyaman.datapack.streams.codecs;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Gzip with default compression level. Default codec, files written with it only keep legacy header.
+ */
+public class GzipCodec implements ColumnCodec {
+
+    public static final GzipCodec INSTANCE = new GzipCodec();
+
+    @Override
+    public String getName() {
+        return "gzip";
+    }
+
+    @Override
+    public OutputStream encode(OutputStream os) throws IOException {
+        return new GZIPOutputStream(os);
+    }
+
+    @Override
+    public InputStream decode(InputStream is) throws IOException {
+        return new GZIPInputStream(is);
+    }
+}
@@ -0,0 +1,29 @@
+package com.masyaman.datapack.streams.codecs;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+
+/**
+ * Fast LZ77-family compression implemented in pure Java, see {@link LzOutputStream} for data format.
+ * Compresses worse than deflate, but several times faster on both ends.
+ */
+public class LzCodec implements ColumnCodec {
+
+    public static final LzCodec INSTANCE = new LzCodec();
+
+    @Override
+    public String getName() {
+        return "lz";
+    }
+
+    @Override
+    public OutputStream encode(OutputStream os) throws IOException {
+        return new LzOutputStream(os);
+    }
+
+    @Override
+    public InputStream decode(InputStream is) throws IOException {
+        return new LzInputStream(is);
+    }
+}
@@ -0,0 +1,124 @@
+package com.masyaman.datapack.streams.codecs;
+
+import java.io.DataInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+
+import static com.masyaman.datapack.streams.codecs.LzOutputStream.BLOCK_SIZE;
+import static com.masyaman.datapack.streams.codecs.LzOutputStream.MIN_MATCH;
+
+/**
+ * Decompresses data written by {@link LzOutputStream}.
+ */
+public class LzInputStream extends InputStream {
+
+    private DataInputStream is;
+    private byte[] block = new byte[BLOCK_SIZE];
+    private byte[] compressed = new byte[BLOCK_SIZE];
+    private int position = 0;
+    private int limit = 0;
+
+    public LzInputStream(InputStream is) {
+        this.is = new DataInputStream(is);
+    }
+
+    @Override
+    public int read() throws IOException {
+        if (position >= limit && !readBlock()) {
+            return -1;
+        }
+        return block[position++] & 0xFF;
+    }
+
+    @Override
+    public int read(byte[] b, int off, int len) throws IOException {
+        if (len == 0) {
+            return 0;
+        }
+        if (position >= limit && !readBlock()) {
+            return -1;
+        }
+        int chunk = Math.min(len, limit - position);
+        System.arraycopy(block, position, b, off, chunk);
+        position += chunk;
+        return chunk;
+    }
+
+    @Override
+    public int available() throws IOException {
+        return limit - position;
+    }
+
+    @Override
+    public void close() throws IOException {
+        is.close();
+    }
+
+    private boolean readBlock() throws IOException {
+        int first = is.read();
+        if (first < 0) {
+            return false;
+        }
+        int length = (first << 24) | (is.readUnsignedByte() << 16) | is.readUnsignedShort();
+        int compressedLength = is.readInt();
+        if (length <= 0 || length > BLOCK_SIZE || compressedLength < 0 || compressedLength >= length) {
+            throw new IOException("Corrupted LZ block header");
+        }
+        if (compressedLength == 0) {
+            is.readFully(block, 0, length);
+        } else {
+            is.readFully(compressed, 0, compressedLength);
+            decompress(compressed, compressedLength, block, length);
+        }
+        position = 0;
+        limit = length;
+        return true;
+    }
+
+    private static void decompress(byte[] src, int srcLength, byte[] dst, int dstLength) throws IOException {
+        try {
+            int pos = 0;
+            int dstPos = 0;
+            while (pos < srcLength) {
+                int token = src[pos++] & 0xFF;
+                int literals = token >>> 4;
+                if (literals == 15) {
+                    int b;
+                    do {
+                        b = src[pos++] & 0xFF;
+                        literals += b;
+                    } while (b == 255);
+                }
+                System.arraycopy(src, pos, dst, dstPos, literals);
+                pos += literals;
+                dstPos += literals;
+                if (pos >= srcLength) {
+                    break;
+                }
+
+                int offset = (src[pos++] & 0xFF) | (src[pos++] & 0xFF) << 8;
+                int matchLength = token & 0x0F;
+                if (matchLength == 15) {
+                    int b;
+                    do {
+                        b = src[pos++] & 0xFF;
+                        matchLength += b;
+                    } while (b == 255);
+                }
+                matchLength += MIN_MATCH;
+                int ref = dstPos - offset;
+                if (offset == 0 || ref < 0 || dstPos + matchLength > dstLength) {
+                    throw new IOException("Corrupted LZ block");
+                }
+                for (int i = 0; i < matchLength; i++) {
+                    dst[dstPos++] = dst[ref++];
+                }
+            }
+            if (dstPos != dstLength) {
+                throw new IOException("Corrupted LZ block");
+            }
+        } catch (IndexOutOfBoundsException e) {
+            throw new IOException("Corrupted LZ block", e);
+        }
+    }
+}
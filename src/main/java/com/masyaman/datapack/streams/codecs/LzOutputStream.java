@@ -0,0 +1,159 @@
+package com.masyaman.datapack.streams.codecs;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.Arrays;
+
+/**
+ * Compresses data with simple LZ77 scheme in independent blocks of up to {@link #BLOCK_SIZE} bytes.
+ * Data format is sequence of blocks:
+ * [Uncompressed length: 4 bytes][Compressed length: 4 bytes, 0 if block is stored uncompressed][Data]
+ * Compressed data is sequence of:
+ * [Token: literals length (4 high bits), match length - 4 (4 low bits)][Extra literals length][Literals]
+ * [Match offset: 2 bytes, little-endian][Extra match length]
+ * Lengths of 15 are continued by extra bytes, 255 means next byte follows.
+ * Last sequence has literals only.
+ */
+public class LzOutputStream extends OutputStream {
+
+    public static final int BLOCK_SIZE = 1 << 16;
+
+    static final int MIN_MATCH = 4;
+    static final int MAX_OFFSET = 0xFFFF;
+
+    private static final int HASH_BITS = 14;
+
+    private OutputStream os;
+    private byte[] block = new byte[BLOCK_SIZE];
+    private int size = 0;
+    private byte[] compressed = new byte[8 + BLOCK_SIZE + BLOCK_SIZE / 255 + 16];
+    private int[] hashTable = new int[1 << HASH_BITS];
+
+    public LzOutputStream(OutputStream os) {
+        this.os = os;
+    }
+
+    @Override
+    public void write(int b) throws IOException {
+        block[size++] = (byte) b;
+        if (size == BLOCK_SIZE) {
+            writeBlock();
+        }
+    }
+
+    @Override
+    public void write(byte[] b, int off, int len) throws IOException {
+        while (len > 0) {
+            int chunk = Math.min(len, BLOCK_SIZE - size);
+            System.arraycopy(b, off, block, size, chunk);
+            size += chunk;
+            off += chunk;
+            len -= chunk;
+            if (size == BLOCK_SIZE) {
+                writeBlock();
+            }
+        }
+    }
+
+    @Override
+    public void flush() throws IOException {
+        writeBlock();
+        os.flush();
+    }
+
+    @Override
+    public void close() throws IOException {
+        try {
+            writeBlock();
+        } finally {
+            os.close();
+        }
+    }
+
+    private void writeBlock() throws IOException {
+        if (size == 0) {
+            return;
+        }
+        int compressedSize = compress(block, size, compressed, 8, hashTable) - 8;
+        writeInt(compressed, 0, size);
+        if (compressedSize < size) {
+            writeInt(compressed, 4, compressedSize);
+            os.write(compressed, 0, 8 + compressedSize);
+        } else {
+            writeInt(compressed, 4, 0);
+            os.write(compressed, 0, 8);
+            os.write(block, 0, size);
+        }
+        size = 0;
+    }
+
+    private static int compress(byte[] src, int length, byte[] dst, int position, int[] hashTable) {
+        Arrays.fill(hashTable, -1);
+        int anchor = 0;
+        int pos = 0;
+        int limit = length - MIN_MATCH;
+        while (pos <= limit) {
+            int sequence = readInt(src, pos);
+            int hash = (sequence * -1640531535) >>> (32 - HASH_BITS);
+            int ref = hashTable[hash];
+            hashTable[hash] = pos;
+            if (ref < 0 || pos - ref > MAX_OFFSET || readInt(src, ref) != sequence) {
+                pos++;
+                continue;
+            }
+            int matchLength = MIN_MATCH;
+            while (pos + matchLength < length && src[ref + matchLength] == src[pos + matchLength]) {
+                matchLength++;
+            }
+
+            int literals = pos - anchor;
+            int token = position++;
+            position = writeLiterals(src, anchor, literals, dst, position);
+            dst[position++] = (byte) (pos - ref);
+            dst[position++] = (byte) ((pos - ref) >>> 8);
+            int extraMatch = matchLength - MIN_MATCH;
+            if (extraMatch >= 15) {
+                position = writeLength(dst, position, extraMatch - 15);
+            }
+            dst[token] = (byte) ((Math.min(literals, 15) << 4) | Math.min(extraMatch, 15));
+
+            pos += matchLength;
+            anchor = pos;
+        }
+        if (anchor < length) {
+            int literals = length - anchor;
+            int token = position++;
+            position = writeLiterals(src, anchor, literals, dst, position);
+            dst[token] = (byte) (Math.min(literals, 15) << 4);
+        }
+        return position;
+    }
+
+    private static int writeLiterals(byte[] src, int offset, int literals, byte[] dst, int position) {
+        if (literals >= 15) {
+            position = writeLength(dst, position, literals - 15);
+        }
+        System.arraycopy(src, offset, dst, position, literals);
+        return position + literals;
+    }
+
+    private static int writeLength(byte[] dst, int position, int length) {
+        while (length >= 255) {
+            dst[position++] = (byte) 255;
+            length -= 255;
+        }
+        dst[position++] = (byte) length;
+        return position;
+    }
+
+    private static int readInt(byte[] src, int pos) {
+        return (src[pos] & 0xFF) | (src[pos + 1] & 0xFF) << 8 | (src[pos + 2] & 0xFF) << 16 | (src[pos + 3] & 0xFF) << 24;
+    }
+
+    private static void writeInt(byte[] dst, int pos, int value) {
+        dst[pos] = (byte) (value >>> 24);
+        dst[pos + 1] = (byte) (value >>> 16);
+        dst[pos + 2] = (byte) (value >>> 8);
+        dst[pos + 3] = (byte) value;
+    }
+}
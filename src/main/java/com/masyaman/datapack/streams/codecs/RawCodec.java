@@ -0,0 +1,34 @@
+package com.masyaman.datapack.streams.codecs;
+
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+
+/**
+ * Stores data without compression.
+ */
+public class RawCodec implements ColumnCodec {
+
+    public static final RawCodec INSTANCE = new RawCodec();
+
+    @Override
+    public String getName() {
+        return "raw";
+    }
+
+    @Override
+    public OutputStream encode(OutputStream os) throws IOException {
+        return new FilterOutputStream(os) {
+            @Override
+            public void write(byte[] b, int off, int len) throws IOException {
+                out.write(b, off, len);
+            }
+        };
+    }
+
+    @Override
+    public InputStream decode(InputStream is) throws IOException {
+        return is;
+    }
+}
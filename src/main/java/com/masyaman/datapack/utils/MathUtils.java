@@ -36,6 +36,10 @@ public class MathUtils {
         }
     }
 
+    public static long pow10(int power) {
+        return longScales[power];
+    }
+
     public static <E extends Number> E scale(E number, int scale, RoundingMode roundingMode) {
         if (number == null) {
             return null;
@@ -0,0 +1,104 @@
+package com.masyaman.datapack.utils;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * Bounded lock-free queue for multiple producers and single consumer.
+ * Each slot has sequence number which tells whether it's free for producer or ready for consumer,
+ * so producers only compete on single CAS of tail counter.
+ * Null elements are not allowed.
+ */
+public final class MpscRingBuffer<E> {
+
+    private final int mask;
+    private final AtomicReferenceArray<E> elements;
+    private final AtomicLongArray sequences;
+    private final AtomicLong tail = new AtomicLong();
+    private volatile long head = 0;
+
+    /**
+     * @param capacity maximal number of elements, rounded up to power of 2
+     */
+    public MpscRingBuffer(int capacity) {
+        if (capacity <= 0 || capacity > (1 << 30)) {
+            throw new IllegalArgumentException("Invalid capacity " + capacity);
+        }
+        int size = Integer.highestOneBit(capacity);
+        if (size < capacity) {
+            size <<= 1;
+        }
+        mask = size - 1;
+        elements = new AtomicReferenceArray<>(size);
+        sequences = new AtomicLongArray(size);
+        for (int i = 0; i < size; i++) {
+            sequences.set(i, i);
+        }
+    }
+
+    /**
+     * Add element to queue, could be called from any thread.
+     *
+     * @return false if queue is full
+     */
+    public boolean offer(E e) {
+        if (e == null) {
+            throw new NullPointerException();
+        }
+        while (true) {
+            long t = tail.get();
+            int index = (int) t & mask;
+            long diff = sequences.get(index) - t;
+            if (diff == 0) {
+                if (tail.compareAndSet(t, t + 1)) {
+                    elements.lazySet(index, e);
+                    sequences.set(index, t + 1);
+                    return true;
+                }
+            } else if (diff < 0) {
+                return false;
+            }
+        }
+    }
+
+    /**
+     * Take element from queue, should be called from consumer thread only.
+     *
+     * @return null if queue is empty
+     */
+    public E poll() {
+        long h = head;
+        int index = (int) h & mask;
+        if (sequences.get(index) != h + 1) {
+            return null;
+        }
+        E e = elements.get(index);
+        elements.lazySet(index, null);
+        sequences.lazySet(index, h + mask + 1);
+        head = h + 1;
+        return e;
+    }
+
+    /**
+     * @return number of elements offered to queue so far
+     */
+    public long offered() {
+        return tail.get();
+    }
+
+    /**
+     * @return number of elements taken from queue so far
+     */
+    public long polled() {
+        return head;
+    }
+
+    public int size() {
+        return (int) Math.max(0, tail.get() - head);
+    }
+
+    public int capacity() {
+        return mask + 1;
+    }
+}
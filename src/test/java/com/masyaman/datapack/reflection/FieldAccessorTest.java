@@ -0,0 +1,67 @@
+package com.masyaman.datapack.reflection;
+
+import org.junit.Test;
+
+import java.lang.reflect.Field;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class FieldAccessorTest {
+
+    @Test
+    public void testPrimitiveAccess() throws Exception {
+        Sample sample = new Sample();
+        setter("l").setLong(sample, 1L << 40);
+        setter("i").setInt(sample, -5);
+        setter("d").setDouble(sample, 1.5);
+        setter("f").setFloat(sample, 2.5f);
+        setter("boxed").setLong(sample, 7L);
+
+        assertThat(getter("l").getLong(sample)).isEqualTo(1L << 40);
+        assertThat(getter("i").getInt(sample)).isEqualTo(-5);
+        assertThat(getter("d").getDouble(sample)).isEqualTo(1.5);
+        assertThat(getter("f").getFloat(sample)).isEqualTo(2.5f);
+        assertThat(getter("boxed").getLong(sample)).isEqualTo(7L);
+
+        // Mismatched primitive variants convert values
+        assertThat(getter("i").getLong(sample)).isEqualTo(-5L);
+        assertThat(getter("f").getDouble(sample)).isEqualTo(2.5);
+        assertThat(getter("l").get(sample)).isEqualTo(1L << 40);
+    }
+
+    @Test
+    public void testBoxedAccess() throws Exception {
+        Sample sample = new Sample();
+        setter("l").set(sample, 3L);
+        setter("l").set(sample, 4); // widened like Field.set
+        setter("boxed").set(sample, null);
+        assertThat(sample.l).isEqualTo(4L);
+        assertThat(sample.boxed).isNull();
+        assertThat(getter("boxed").get(sample)).isNull();
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testNullToPrimitive() throws Exception {
+        setter("i").set(new Sample(), null);
+    }
+
+    private static FieldGetter<?> getter(String name) throws Exception {
+        Field field = Sample.class.getDeclaredField(name);
+        field.setAccessible(true);
+        return new FieldGetter<>(field, new TypeDescriptor(field));
+    }
+
+    private static FieldSetter setter(String name) throws Exception {
+        Field field = Sample.class.getDeclaredField(name);
+        field.setAccessible(true);
+        return new FieldSetter(field, new TypeDescriptor(field));
+    }
+
+    private static class Sample {
+        private long l;
+        private int i;
+        private double d;
+        private float f;
+        private Long boxed;
+    }
+}
@@ -1,5 +1,6 @@
 package com.masyaman.datapack.serializers.objects;
 
+import com.masyaman.datapack.annotations.serialization.Precision;
 import com.masyaman.datapack.reflection.TypeDescriptor;
 import com.masyaman.datapack.serializers.Deserializer;
 import com.masyaman.datapack.serializers.Serializer;
@@ -14,6 +15,7 @@ import java.io.ByteArrayInputStream;
 import java.io.ByteArrayOutputStream;
 import java.util.Arrays;
 import java.util.Date;
+import java.util.Objects;
 
 import static org.assertj.core.api.Assertions.assertThat;
 
@@ -285,4 +287,57 @@ public class ObjectSerializationFactoryTest {
         assertThat(dr.readObject()).isEqualTo(new ObjectWithDate(null));
     }
 
-}
\ No newline at end of file
+    @Test
+    public void testPrimitiveFields() throws Exception {
+        ByteArrayOutputStream os = new ByteArrayOutputStream();
+        DataWriter dw = new SerialDataWriter(os);
+        dw.writeObject(new Primitives(Long.MAX_VALUE, Integer.MIN_VALUE, 1.23456, 2.5f));
+        dw.writeObject(new Primitives(0L, 0, 0.0, 0.0f));
+        dw.writeObject(null);
+        dw.writeObject(new Primitives(-7L, 42, -0.004, -1.25f));
+        dw.close();
+
+        DataReader dr = new SerialDataReader(new ByteArrayInputStream(os.toByteArray()));
+        assertThat(dr.readObject()).isEqualTo(new Primitives(Long.MAX_VALUE, Integer.MIN_VALUE, 1.23, 2.5f));
+        assertThat(dr.readObject()).isEqualTo(new Primitives(0L, 0, 0.0, 0.0f));
+        assertThat(dr.readObject()).isNull();
+        assertThat(dr.readObject()).isEqualTo(new Primitives(-7L, 42, 0.0, -1.25f));
+    }
+
+    public static class Primitives {
+        private long l;
+        private int i;
+        @Precision(2)
+        private double d;
+        @Precision(2)
+        private float f;
+
+        public Primitives() {
+        }
+
+        public Primitives(long l, int i, double d, float f) {
+            this.l = l;
+            this.i = i;
+            this.d = d;
+            this.f = f;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) return true;
+            if (o == null || getClass() != o.getClass()) return false;
+            Primitives that = (Primitives) o;
+            return l == that.l && i == that.i && Double.compare(that.d, d) == 0 && Float.compare(that.f, f) == 0;
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(l, i, d, f);
+        }
+
+        @Override
+        public String toString() {
+            return l + ", " + i + ", " + d + ", " + f;
+        }
+    }
+}
@@ -0,0 +1,121 @@
+package com.masyaman.datapack.streams;
+
+import com.masyaman.datapack.serializers.objects.samples.LatLon;
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.Random;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.Assert.fail;
+
+public class AsyncOutputStreamTest {
+
+    @Test
+    public void testWriteAndFlush() throws Exception {
+        byte[] data = new byte[100000];
+        new Random(1).nextBytes(data);
+
+        SlowOutputStream target = new SlowOutputStream();
+        AsyncOutputStream os = new AsyncOutputStream(target, 1000, 3);
+        int pos = 0;
+        for (int len = 0; pos + len <= data.length; len = (len * 7 + 13) % 3000) {
+            os.write(data, pos, len);
+            pos += len;
+            os.write(data[pos++]);
+        }
+        os.flush();
+        assertThat(target.flushes).isEqualTo(1);
+        assertThat(target.toByteArray()).hasSize(pos);
+
+        os.write(data, pos, data.length - pos);
+        os.close();
+        assertThat(target.closed).isTrue();
+        assertThat(target.toByteArray()).isEqualTo(data);
+
+        try {
+            os.write(1);
+            fail("Stream should be closed");
+        } catch (IOException e) {
+            // expected
+        }
+        os.close();
+    }
+
+    @Test
+    public void testErrorIsReported() throws Exception {
+        SlowOutputStream target = new SlowOutputStream();
+        target.fail = true;
+        AsyncOutputStream os = new AsyncOutputStream(target, 10, 2);
+        try {
+            os.write(new byte[100]);
+            os.flush();
+            fail("Error should be reported");
+        } catch (IOException e) {
+            assertThat(e.getMessage()).isEqualTo("Disk is full");
+        }
+        try {
+            os.close();
+            fail("Error should be reported");
+        } catch (IOException e) {
+            // expected
+        }
+        assertThat(target.closed).isTrue();
+    }
+
+    @Test
+    public void testCompressedWriter() throws Exception {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (DataWriter dw = new SerialDataWriter(new AsyncOutputStream(new GZIPOutputStream(bytes), 256, 2))) {
+            for (int i = 0; i < 1000; i++) {
+                dw.writeObject(new LatLon(i, -i));
+            }
+        }
+
+        DataReader dr = new SerialDataReader(new GZIPInputStream(new ByteArrayInputStream(bytes.toByteArray())));
+        for (int i = 0; i < 1000; i++) {
+            assertThat(dr.readObject()).isEqualTo(new LatLon(i, -i));
+        }
+        assertThat(dr.hasObjects()).isFalse();
+    }
+
+    private static class SlowOutputStream extends OutputStream {
+        private final ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        private volatile int flushes = 0;
+        private volatile boolean closed = false;
+        private volatile boolean fail = false;
+
+        @Override
+        public void write(int b) throws IOException {
+            write(new byte[] {(byte) b}, 0, 1);
+        }
+
+        @Override
+        public synchronized void write(byte[] b, int off, int len) throws IOException {
+            if (fail) {
+                throw new IOException("Disk is full");
+            }
+            Thread.yield();
+            bytes.write(b, off, len);
+        }
+
+        @Override
+        public void flush() {
+            flushes++;
+        }
+
+        @Override
+        public void close() {
+            closed = true;
+        }
+
+        public synchronized byte[] toByteArray() {
+            return bytes.toByteArray();
+        }
+    }
+}
@@ -0,0 +1,91 @@
+package com.masyaman.datapack.streams;
+
+import com.masyaman.datapack.reflection.TypeDescriptor;
+import com.masyaman.datapack.serializers.objects.samples.LatLon;
+import com.masyaman.datapack.serializers.objects.samples.LatLonAlt;
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class BatchTest {
+
+    @Test
+    public void testWriteAllIsSameAsWriteObject() throws Exception {
+        List<Object> objects = new ArrayList<>();
+        for (int i = 0; i < 100; i++) {
+            objects.add(i % 7 == 0 ? null : i % 5 == 0 ? new LatLonAlt(i, -i, i * 2) : new LatLon(i, -i));
+        }
+
+        ByteArrayOutputStream single = new ByteArrayOutputStream();
+        try (DataWriter dw = new SerialDataWriter(single, new ClassManager(), new SerializationFactoryLookup(),
+                new SerialDataWriter.Options().syncInterval(10))) {
+            for (Object o : objects) {
+                dw.writeObject(o);
+            }
+        }
+        ByteArrayOutputStream batch = new ByteArrayOutputStream();
+        try (DataWriter dw = new SerialDataWriter(batch, new ClassManager(), new SerializationFactoryLookup(),
+                new SerialDataWriter.Options().syncInterval(10))) {
+            dw.writeAll(objects.subList(0, 50));
+            dw.writeAll(objects.subList(50, 100).toArray());
+        }
+        assertThat(batch.toByteArray()).isEqualTo(single.toByteArray());
+
+        DataReader dr = new SerialDataReader(new ByteArrayInputStream(batch.toByteArray()));
+        List<Object> read = new ArrayList<>();
+        assertThat(dr.readBatch(30, read)).isEqualTo(30);
+        assertThat(dr.readBatch(100, read)).isEqualTo(70);
+        assertThat(dr.readBatch(100, read)).isEqualTo(0);
+        assertThat(read).isEqualTo(objects);
+    }
+
+    @Test
+    public void testReadBatchIntoArray() throws Exception {
+        List<LatLon> objects = new ArrayList<>();
+        for (int i = 0; i < 25; i++) {
+            objects.add(new LatLon(i, -i));
+        }
+        ByteArrayOutputStream os = new ByteArrayOutputStream();
+        try (DataWriter dw = new MultiGzipDataWriter(os, new ClassManager(), new SerializationFactoryLookup(),
+                new MultiGzipDataWriter.Options().rowGroupSize(10))) {
+            dw.writeAll(objects);
+        }
+
+        DataReader dr = new MultiGzipDataReader(new ByteArrayInputStream(os.toByteArray()));
+        LatLon[] batch = new LatLon[20];
+        assertThat(dr.readBatch(15, batch)).isEqualTo(15);
+        assertThat(batch[14]).isEqualTo(objects.get(14));
+        assertThat(batch[15]).isNull();
+        assertThat(dr.readBatch(100, batch)).isEqualTo(10);
+        assertThat(batch[9]).isEqualTo(objects.get(24));
+
+        List<LatLon> typed = new ArrayList<>();
+        dr = new MultiGzipDataReader(new ByteArrayInputStream(os.toByteArray()));
+        assertThat(dr.readBatch(100, typed, new TypeDescriptor<>(LatLon.class))).isEqualTo(25);
+        assertThat(typed).isEqualTo(objects);
+    }
+
+    @Test
+    public void testReadBatchAcrossRowGroups() throws Exception {
+        List<Object> objects = new ArrayList<>();
+        for (int i = 0; i < 35; i++) {
+            objects.add(i % 3 == 0 ? new LatLonAlt(i, -i, i * 2) : i % 4 == 0 ? null : new LatLon(i, -i));
+        }
+        ByteArrayOutputStream os = new ByteArrayOutputStream();
+        try (DataWriter dw = new MultiGzipDataWriter(os, new ClassManager(), new SerializationFactoryLookup(),
+                new MultiGzipDataWriter.Options().rowGroupSize(10))) {
+            dw.writeAll(objects);
+        }
+
+        // Deserializers cached by batch are recreated in each row group
+        DataReader dr = new MultiGzipDataReader(new ByteArrayInputStream(os.toByteArray()));
+        List<Object> read = new ArrayList<>();
+        assertThat(dr.readBatch(100, read)).isEqualTo(35);
+        assertThat(read).isEqualTo(objects);
+    }
+}
@@ -0,0 +1,100 @@
+package com.masyaman.datapack.streams;
+
+import com.masyaman.datapack.serializers.objects.samples.LatLon;
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.Assert.fail;
+
+public class ByteBufferOutputStreamTest {
+
+    @Test
+    public void testWriteToHeapBuffer() throws Exception {
+        ByteBuffer buffer = ByteBuffer.allocate(1000);
+        DataWriter dw = new SerialDataWriter(buffer);
+        dw.writeObject(new LatLon(1.1, 2.2));
+        dw.writeObject(null);
+
+        buffer.flip();
+        byte[] bytes = new byte[buffer.remaining()];
+        buffer.get(bytes);
+
+        DataReader dr = new SerialDataReader(new ByteArrayInputStream(bytes));
+        assertThat(dr.readObject()).isEqualTo(new LatLon(1.1, 2.2));
+        assertThat(dr.readObject()).isNull();
+        assertThat(dr.hasObjects()).isFalse();
+    }
+
+    @Test
+    public void testOverflowFails() throws Exception {
+        ByteBuffer buffer = ByteBuffer.allocate(10);
+        DataWriter dw = new SerialDataWriter(buffer);
+        try {
+            dw.writeObject(new LatLon(1.1, 2.2));
+            fail("Overflow expected");
+        } catch (IOException e) {
+            assertThat(buffer.position()).isEqualTo(2); // header only
+        }
+    }
+
+    @Test
+    public void testOverflowGrowsDirectBuffer() throws Exception {
+        ByteBufferOutputStream stream = new ByteBufferOutputStream(ByteBuffer.allocateDirect(4), ByteBufferOutputStream.GROW);
+        DataWriter dw = new SerialDataWriter(stream);
+        for (int i = 0; i < 100; i++) {
+            dw.writeObject(new LatLon(i, -i));
+        }
+        assertThat(stream.getBuffer().isDirect()).isTrue();
+
+        ByteArrayOutputStream os = new ByteArrayOutputStream();
+        stream.writeTo(os);
+        assertThat(os.size()).isEqualTo(stream.size());
+
+        DataReader dr = new SerialDataReader(new ByteArrayInputStream(os.toByteArray()));
+        for (int i = 0; i < 100; i++) {
+            assertThat(dr.readObject()).isEqualTo(new LatLon(i, -i));
+        }
+        assertThat(dr.hasObjects()).isFalse();
+    }
+
+    @Test
+    public void testOverflowDrains() throws Exception {
+        ByteArrayOutputStream drained = new ByteArrayOutputStream();
+        ByteBufferOutputStream stream = new ByteBufferOutputStream(ByteBuffer.allocate(4), new ByteBufferOutputStream.OverflowHandler() {
+            @Override
+            public ByteBuffer onOverflow(ByteBuffer buffer, int required) throws IOException {
+                buffer.flip();
+                while (buffer.hasRemaining()) {
+                    drained.write(buffer.get());
+                }
+                buffer.clear();
+                return buffer;
+            }
+        });
+        stream.write(new byte[] {1, 2, 3});
+        stream.write(new byte[] {4, 5, 6, 7, 8, 9, 10});
+        stream.writeTo(drained);
+        assertThat(drained.toByteArray()).containsExactly(new byte[] {1, 2, 3, 4, 5, 6, 7, 8, 9, 10});
+    }
+
+    @Test
+    public void testMultiGzipToChannel() throws Exception {
+        ByteArrayOutputStream os = new ByteArrayOutputStream();
+        try (DataWriter dw = new MultiGzipDataWriter(Channels.newChannel(os))) {
+            for (int i = 0; i < 1000; i++) {
+                dw.writeObject(new LatLon(i, -i));
+            }
+        }
+
+        DataReader dr = new MultiGzipDataReader(new ByteArrayInputStream(os.toByteArray()));
+        for (int i = 0; i < 1000; i++) {
+            assertThat(dr.readObject()).isEqualTo(new LatLon(i, -i));
+        }
+    }
+}
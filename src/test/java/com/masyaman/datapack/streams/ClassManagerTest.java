@@ -1,6 +1,7 @@
 package com.masyaman.datapack.streams;
 
 import com.masyaman.datapack.annotations.Alias;
+import com.masyaman.datapack.serializers.objects.ObjectPlan;
 import com.masyaman.datapack.serializers.objects.samples.LatLon;
 import com.masyaman.datapack.serializers.objects.samples.LatLonAlt;
 import org.junit.Test;
@@ -34,6 +35,22 @@ public class ClassManagerTest {
         assertThat(dr.readObject()).isEqualTo(new LatLon(1.1, 2.2));
     }
 
+    @Test
+    public void testObjectPlanIsCached() throws Exception {
+        assertThat(new ClassManager().getObjectPlan(LatLon.class)).isSameAs(new ClassManager().getObjectPlan(LatLon.class));
+
+        ClassManager classManager = new ClassManager();
+        classManager.addMixIn(LatLonAlt.class, LatLonMixIn.class);
+        ObjectPlan<LatLon> plan = classManager.getObjectPlan(LatLon.class);
+        assertThat(plan.getName()).isEqualTo(LatLon.class.getName());
+        assertThat(classManager.getObjectPlan(LatLon.class)).isSameAs(plan);
+
+        classManager.addMixIn(LatLon.class, LatLonMixIn.class);
+        plan = classManager.getObjectPlan(LatLon.class);
+        assertThat(plan.getName()).isEqualTo("LLClass");
+        assertThat(plan.getFields()).extracting("name").containsExactly("Latitude", "Longitude");
+    }
+
     @Test
     public void testFieldsAliasJson() throws Exception {
         ClassManager classManager = new ClassManager();
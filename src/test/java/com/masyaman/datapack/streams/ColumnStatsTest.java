@@ -0,0 +1,92 @@
+package com.masyaman.datapack.streams;
+
+import com.masyaman.datapack.serializers.objects.samples.LatLon;
+import com.masyaman.datapack.serializers.objects.samples.LatLonTsTz;
+import com.masyaman.datapack.serializers.objects.samples.TsTz;
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class ColumnStatsTest {
+
+    @Test
+    public void testLongRoundedOutwards() throws Exception {
+        ColumnStats stats = new ColumnStats("");
+        stats.record(Long.MAX_VALUE - 1);
+        stats.record(-(1L << 53) - 1);
+        assertThat(stats.getMax()).isGreaterThanOrEqualTo((double) Long.MAX_VALUE);
+        assertThat(stats.getMin()).isLessThan(-(double) (1L << 53));
+        assertThat(stats.getValueCount()).isEqualTo(2);
+    }
+
+    @Test
+    public void testRowGroupStats() throws Exception {
+        byte[] data = writeObjects();
+
+        MultiGzipDataReader dr = new MultiGzipDataReader(new ByteArrayInputStream(data));
+        assertThat(dr.readObject()).isEqualTo(object(0));
+        Map<String, ColumnStats> stats = dr.getRowGroupStats();
+        assertThat(stats.get("LatLon.lat").getMin()).isEqualTo(1.5);
+        assertThat(stats.get("LatLon.lat").getMax()).isEqualTo(100.5);
+        assertThat(stats.get("TsTz.ts").getMin()).isEqualTo(100000);
+        assertThat(stats.get("TsTz.ts").getMax()).isEqualTo(100000 + 99 * 1000);
+        assertThat(stats.get("TsTz.ts").getValueCount()).isEqualTo(100);
+        assertThat(stats.get("TsTz.ts").getNullCount()).isEqualTo(0);
+    }
+
+    @Test
+    public void testFilteredRead() throws Exception {
+        byte[] data = writeObjects();
+
+        DataReader dr = new MultiGzipDataReader(new ByteArrayInputStream(data), new ClassManager(), new SerializationFactoryLookup(),
+                new MultiGzipDataReader.Options().filter(BlockFilter.range("TsTz.ts", 100000 + 250 * 1000, 100000 + 349 * 1000)));
+        List<Object> objects = new ArrayList<>();
+        while (dr.hasObjects()) {
+            objects.add(dr.readObject());
+        }
+        assertThat(objects).hasSize(200);
+        assertThat(objects.get(0)).isEqualTo(object(200));
+        assertThat(objects.get(199)).isEqualTo(object(399));
+    }
+
+    @Test
+    public void testFilteredDates() throws Exception {
+        ByteArrayOutputStream os = new ByteArrayOutputStream();
+        try (DataWriter dw = new MultiGzipDataWriter(os, new ClassManager(), new SerializationFactoryLookup(),
+                new MultiGzipDataWriter.Options().rowGroupSize(10).collectStats(true))) {
+            for (int i = 0; i < 100; i++) {
+                dw.writeObject(new Date(1000000L * i));
+            }
+        }
+
+        DataReader dr = new MultiGzipDataReader(new ByteArrayInputStream(os.toByteArray()), new ClassManager(), new SerializationFactoryLookup(),
+                new MultiGzipDataReader.Options().filter(BlockFilter.range("Date", 1000000L * 95, Double.MAX_VALUE)));
+        assertThat(dr.readObject()).isEqualTo(new Date(1000000L * 90));
+
+        dr = new MultiGzipDataReader(new ByteArrayInputStream(os.toByteArray()), new ClassManager(), new SerializationFactoryLookup(),
+                new MultiGzipDataReader.Options().filter(BlockFilter.range("Date", -10, -1)));
+        assertThat(dr.hasObjects()).isFalse();
+    }
+
+    private static byte[] writeObjects() throws Exception {
+        ByteArrayOutputStream os = new ByteArrayOutputStream();
+        try (DataWriter dw = new MultiGzipDataWriter(os, new ClassManager(), new SerializationFactoryLookup(),
+                new MultiGzipDataWriter.Options().rowGroupSize(100).collectStats(true))) {
+            for (int i = 0; i < 1000; i++) {
+                dw.writeObject(object(i));
+            }
+        }
+        return os.toByteArray();
+    }
+
+    private static LatLonTsTz object(int i) {
+        return new LatLonTsTz(new LatLon(1.5 + i, 2.25), new TsTz(100000L + i * 1000, 234));
+    }
+}
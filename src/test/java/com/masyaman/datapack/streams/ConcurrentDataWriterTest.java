@@ -0,0 +1,125 @@
+package com.masyaman.datapack.streams;
+
+import com.masyaman.datapack.reflection.TypeDescriptor;
+import com.masyaman.datapack.serializers.objects.samples.LatLon;
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.Assert.fail;
+
+public class ConcurrentDataWriterTest {
+
+    @Test
+    public void testManyProducers() throws Exception {
+        ByteArrayOutputStream os = new ByteArrayOutputStream();
+        ConcurrentDataWriter dw = new ConcurrentDataWriter(new SerialDataWriter(os), new ConcurrentDataWriter.Options().capacity(16));
+        List<Thread> threads = new ArrayList<>();
+        for (int p = 0; p < 4; p++) {
+            final int producer = p;
+            threads.add(new Thread(new Runnable() {
+                @Override
+                public void run() {
+                    try {
+                        for (int i = 0; i < 1000; i++) {
+                            dw.writeObject(new LatLon(producer, i));
+                        }
+                    } catch (IOException e) {
+                        throw new RuntimeException(e);
+                    }
+                }
+            }));
+        }
+        for (Thread thread : threads) {
+            thread.start();
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        dw.writeObject(null);
+        dw.close();
+
+        Set<Object> objects = new HashSet<>();
+        DataReader dr = new SerialDataReader(new ByteArrayInputStream(os.toByteArray()));
+        for (int i = 0; i < 4000; i++) {
+            objects.add(dr.readObject());
+        }
+        assertThat(dr.readObject()).isNull();
+        assertThat(dr.hasObjects()).isFalse();
+        assertThat(objects).hasSize(4000);
+    }
+
+    @Test
+    public void testFlushAndBackpressure() throws Exception {
+        CountDownLatch release = new CountDownLatch(1);
+        List<Object> written = new ArrayList<>();
+        ObjectWriter slowWriter = new ObjectWriter() {
+            @Override
+            public <T> void writeObject(T o) throws IOException {
+                try {
+                    release.await();
+                } catch (InterruptedException e) {
+                    throw new IOException(e);
+                }
+                written.add(o);
+            }
+
+            @Override
+            public <T> void writeObject(T o, TypeDescriptor<T> type) throws IOException {
+                writeObject(o);
+            }
+
+            @Override
+            public void flush() throws IOException {
+            }
+
+            @Override
+            public void close() throws IOException {
+            }
+        };
+
+        ConcurrentDataWriter dw = new ConcurrentDataWriter(slowWriter, new ConcurrentDataWriter.Options().capacity(2).blocking(false));
+        int accepted = 0;
+        while (dw.offerObject(accepted)) {
+            accepted++;
+        }
+        assertThat(accepted).isLessThanOrEqualTo(3);
+        try {
+            dw.writeObject("overflow");
+            fail("Queue should be full");
+        } catch (IOException e) {
+            assertThat(e.getMessage()).contains("Queue is full");
+        }
+
+        release.countDown();
+        dw.flush();
+        assertThat(written).hasSize(accepted);
+        dw.close();
+    }
+
+    @Test
+    public void testErrorIsReported() throws Exception {
+        ConcurrentDataWriter dw = new ConcurrentDataWriter(new SerialDataWriter(new ByteArrayOutputStream()));
+        dw.writeObject(new StringBuilder("unsupported"));
+        try {
+            dw.flush();
+            fail("Error should be reported");
+        } catch (IOException e) {
+            // expected
+        }
+        try {
+            dw.close();
+            fail("Error should be reported");
+        } catch (IOException e) {
+            // expected
+        }
+    }
+}
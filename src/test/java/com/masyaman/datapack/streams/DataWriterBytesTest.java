@@ -6,6 +6,8 @@ import com.masyaman.datapack.utils.ByteStream;
 import org.junit.Test;
 
 import java.io.ByteArrayInputStream;
+import java.util.ArrayList;
+import java.util.List;
 
 import static com.masyaman.datapack.utils.ByteStream.toByteArray;
 import static org.assertj.core.api.Assertions.assertThat;
@@ -291,4 +293,39 @@ public class DataWriterBytesTest {
         assertThat(dataReader.readObject()).isEqualTo(0.0);
         assertThat(dataReader.readObject()).isEqualTo(0.065535);
     }
+
+    @Test
+    public void testObjectIsWrittenInBulk() throws Exception {
+        List<Integer> writes = new ArrayList<>();
+        ByteStream stream = new ByteStream() {
+            @Override
+            public synchronized void write(int b) {
+                writes.add(1);
+                super.write(b);
+            }
+
+            @Override
+            public synchronized void write(byte[] b, int off, int len) {
+                writes.add(len);
+                super.write(b, off, len);
+            }
+        };
+        DataWriter dataWriter = new SerialDataWriter(stream);
+        stream.getNewBytes();
+        writes.clear();
+
+        dataWriter.writeObject("AAA");
+        byte[] bytes = stream.getNewBytes();
+        assertThat(writes).containsExactly(bytes.length);
+
+        writes.clear();
+        dataWriter.writeObject(1000000L);
+        dataWriter.writeObject(null);
+        assertThat(writes).hasSize(2);
+
+        DataReader dataReader = new SerialDataReader(new ByteArrayInputStream(stream.toByteArray()));
+        assertThat(dataReader.readObject()).isEqualTo("AAA");
+        assertThat(dataReader.readObject()).isEqualTo(1000000L);
+        assertThat(dataReader.readObject()).isNull();
+    }
 }
@@ -9,8 +9,13 @@ import org.junit.Test;
 
 import java.io.ByteArrayInputStream;
 import java.io.ByteArrayOutputStream;
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 
 import static com.masyaman.datapack.annotations.deserialization.DeserializationTypes.JSON_TYPE;
 import static org.assertj.core.api.Assertions.assertThat;
@@ -169,4 +174,159 @@ public class DataWriterReaderTest extends TestCase {
         assertThat(dr.readObject(jsonType)).isNull();
     }
 
-}
\ No newline at end of file
+    @Test
+    public void testMultiGzipSerialization() throws Exception {
+        ByteArrayOutputStream os = new ByteArrayOutputStream();
+        try (DataWriter dw = new MultiGzipDataWriter(os)) {
+            for (int i = 0; i < 1000; i++) {
+                dw.writeObject(new LatLonTsTz(new LatLon(1.1 + i, 2.2), new TsTz(100000L + i, 234)));
+            }
+            dw.writeObject(null);
+        }
+
+        DataReader dr = new MultiGzipDataReader(new ByteArrayInputStream(os.toByteArray()));
+        for (int i = 0; i < 1000; i++) {
+            assertThat(dr.readObject()).isEqualTo(new LatLonTsTz(new LatLon(1.1 + i, 2.2), new TsTz(100000L + i, 234)));
+        }
+        assertThat(dr.readObject()).isNull();
+        assertThat(dr.hasObjects()).isFalse();
+    }
+
+    @Test
+    public void testMultiGzipParallelCompression() throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        ByteArrayOutputStream os = new ByteArrayOutputStream();
+        try (DataWriter dw = new MultiGzipDataWriter(os, new ClassManager(), new SerializationFactoryLookup(),
+                new MultiGzipDataWriter.Options().compressionExecutor(executor))) {
+            for (int i = 0; i < 1000; i++) {
+                dw.writeObject(new LatLonTsTz(new LatLon(1.1 + i, 2.2), new TsTz(100000L + i, 234)));
+            }
+            dw.writeObject(null);
+        } finally {
+            executor.shutdown();
+        }
+
+        DataReader dr = new MultiGzipDataReader(new ByteArrayInputStream(os.toByteArray()));
+        for (int i = 0; i < 1000; i++) {
+            assertThat(dr.readObject()).isEqualTo(new LatLonTsTz(new LatLon(1.1 + i, 2.2), new TsTz(100000L + i, 234)));
+        }
+        assertThat(dr.readObject()).isNull();
+        assertThat(dr.hasObjects()).isFalse();
+    }
+
+    @Test
+    public void testMultiGzipLazyAndParallelReading() throws Exception {
+        ByteArrayOutputStream os = new ByteArrayOutputStream();
+        try (DataWriter dw = new MultiGzipDataWriter(os)) {
+            for (int i = 0; i < 1000; i++) {
+                dw.writeObject(new LatLonTsTz(new LatLon(1.1 + i, 2.2), new TsTz(100000L + i, 234)));
+            }
+            dw.writeObject(null);
+        }
+
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        try {
+            MultiGzipDataReader.Options[] modes = {
+                    new MultiGzipDataReader.Options().lazy(true),
+                    new MultiGzipDataReader.Options().inflationExecutor(executor)
+            };
+            for (MultiGzipDataReader.Options options : modes) {
+                DataReader dr = new MultiGzipDataReader(new ByteArrayInputStream(os.toByteArray()), new ClassManager(), new SerializationFactoryLookup(), options);
+                for (int i = 0; i < 1000; i++) {
+                    assertThat(dr.readObject()).isEqualTo(new LatLonTsTz(new LatLon(1.1 + i, 2.2), new TsTz(100000L + i, 234)));
+                }
+                assertThat(dr.readObject()).isNull();
+                assertThat(dr.hasObjects()).isFalse();
+                dr.close();
+            }
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    @Test
+    public void testMultiGzipRowGroups() throws Exception {
+        MultiGzipDataWriter.Options[] writerModes = {
+                new MultiGzipDataWriter.Options().rowGroupSize(100),
+                new MultiGzipDataWriter.Options().rowGroupBytes(1000)
+        };
+        for (MultiGzipDataWriter.Options writerOptions : writerModes) {
+            ByteArrayOutputStream os = new ByteArrayOutputStream();
+            try (DataWriter dw = new MultiGzipDataWriter(os, new ClassManager(), new SerializationFactoryLookup(), writerOptions)) {
+                for (int i = 0; i < 1000; i++) {
+                    dw.writeObject(new LatLonTsTz(new LatLon(1.1 + i, 2.2), new TsTz(100000L + i, 234)));
+                    if (i % 300 == 0) {
+                        dw.writeObject("String " + i);
+                    }
+                }
+                assertThat(os.size()).isGreaterThan(0);
+            }
+
+            MultiGzipDataReader.Options[] readerModes = {
+                    new MultiGzipDataReader.Options(),
+                    new MultiGzipDataReader.Options().lazy(true)
+            };
+            for (MultiGzipDataReader.Options readerOptions : readerModes) {
+                DataReader dr = new MultiGzipDataReader(new ByteArrayInputStream(os.toByteArray()), new ClassManager(), new SerializationFactoryLookup(), readerOptions);
+                for (int i = 0; i < 1000; i++) {
+                    assertThat(dr.readObject()).isEqualTo(new LatLonTsTz(new LatLon(1.1 + i, 2.2), new TsTz(100000L + i, 234)));
+                    if (i % 300 == 0) {
+                        assertThat(dr.readObject()).isEqualTo("String " + i);
+                    }
+                }
+                assertThat(dr.hasObjects()).isFalse();
+            }
+        }
+    }
+
+    @Test
+    public void testReadingFromFragmentedStream() throws Exception {
+        StringBuilder sb = new StringBuilder();
+        for (int i = 0; i < 20000; i++) {
+            sb.append((char) ('a' + i % 26));
+        }
+        String longString = sb.toString();
+
+        ByteArrayOutputStream os = new ByteArrayOutputStream();
+        DataWriter dw = new SerialDataWriter(os);
+        dw.writeObject(Long.MAX_VALUE);
+        dw.writeObject(longString);
+        dw.writeObject(new LatLonTsTz(new LatLon(1.1, 2.2), new TsTz(100000L, 234)));
+
+        // Stream returns at most 3 bytes per read call
+        InputStream is = new FilterInputStream(new ByteArrayInputStream(os.toByteArray())) {
+            @Override
+            public int read(byte[] b, int off, int len) throws IOException {
+                return super.read(b, off, Math.min(len, 3));
+            }
+        };
+
+        DataReader dr = new SerialDataReader(is);
+        assertThat(dr.readObject()).isEqualTo(Long.MAX_VALUE);
+        assertThat(dr.readObject()).isEqualTo(longString);
+        assertThat(dr.readObject()).isEqualTo(new LatLonTsTz(new LatLon(1.1, 2.2), new TsTz(100000L, 234)));
+        assertThat(dr.hasObjects()).isFalse();
+    }
+
+    @Test
+    public void testPrimitiveLongs() throws Exception {
+        ByteArrayOutputStream os = new ByteArrayOutputStream();
+        DataWriter dw = new SerialDataWriter(os);
+        dw.writeSignedLong(-100L);
+        dw.writeSignedLong(null);
+        dw.writeSignedLong(Long.MIN_VALUE);
+        dw.writeUnsignedLong(127L);
+        dw.writeUnsignedLong(null);
+
+        DataReader dr = new SerialDataReader(new ByteArrayInputStream(os.toByteArray()));
+        assertThat(dr.readSignedLongValue()).isEqualTo(-100L);
+        assertThat(dr.wasNull()).isFalse();
+        dr.readSignedLongValue();
+        assertThat(dr.wasNull()).isTrue();
+        assertThat(dr.readSignedLong()).isEqualTo(Long.MIN_VALUE);
+        assertThat(dr.readUnsignedLongValue()).isEqualTo(127L);
+        assertThat(dr.wasNull()).isFalse();
+        assertThat(dr.readUnsignedLong()).isNull();
+    }
+
+}
@@ -0,0 +1,71 @@
+package com.masyaman.datapack.streams;
+
+import com.masyaman.datapack.serializers.objects.samples.LatLon;
+import org.junit.Test;
+
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class MappedFileInputStreamTest {
+
+    @Test
+    public void testReadingAcrossWindows() throws Exception {
+        Path file = Files.createTempFile("mapped", ".bin");
+        try {
+            byte[] data = new byte[1000];
+            for (int i = 0; i < data.length; i++) {
+                data[i] = (byte) i;
+            }
+            Files.write(file, data);
+
+            try (InputStream is = new MappedFileInputStream(FileChannel.open(file, StandardOpenOption.READ), 64)) {
+                assertThat(is.available()).isEqualTo(1000);
+                assertThat(is.read()).isEqualTo(0);
+                assertThat(is.skip(99)).isEqualTo(99);
+                assertThat(is.read()).isEqualTo(100);
+
+                byte[] read = new byte[899];
+                int pos = 0;
+                while (pos < read.length) {
+                    int n = is.read(read, pos, read.length - pos);
+                    assertThat(n).isPositive().isLessThanOrEqualTo(64);
+                    pos += n;
+                }
+                for (int i = 0; i < read.length; i++) {
+                    assertThat(read[i]).isEqualTo((byte) (i + 101));
+                }
+                assertThat(is.read()).isEqualTo(-1);
+                assertThat(is.read(read, 0, 10)).isEqualTo(-1);
+            }
+        } finally {
+            Files.delete(file);
+        }
+    }
+
+    @Test
+    public void testSerialDataReaderFromFile() throws Exception {
+        Path file = Files.createTempFile("mapped", ".bin");
+        try {
+            try (OutputStream os = Files.newOutputStream(file); DataWriter dw = new SerialDataWriter(os)) {
+                for (int i = 0; i < 10000; i++) {
+                    dw.writeObject(new LatLon(i / 10.0, -i / 10.0));
+                }
+            }
+
+            try (DataReader dr = new SerialDataReader(file)) {
+                for (int i = 0; i < 10000; i++) {
+                    assertThat(dr.readObject()).isEqualTo(new LatLon(i / 10.0, -i / 10.0));
+                }
+                assertThat(dr.hasObjects()).isFalse();
+            }
+        } finally {
+            Files.delete(file);
+        }
+    }
+}
@@ -0,0 +1,119 @@
+package com.masyaman.datapack.streams;
+
+import com.masyaman.datapack.serializers.objects.samples.LatLon;
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Random;
+import java.util.concurrent.CountDownLatch;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.Assert.fail;
+
+public class PrefetchInputStreamTest {
+
+    @Test
+    public void testRead() throws Exception {
+        byte[] data = new byte[100000];
+        new Random(1).nextBytes(data);
+
+        ByteArrayOutputStream result = new ByteArrayOutputStream();
+        try (InputStream is = new PrefetchInputStream(new ByteArrayInputStream(data), 1000, 3)) {
+            byte[] buffer = new byte[3000];
+            for (int len = 1; ; len = (len * 7 + 13) % 3000) {
+                int b = is.read();
+                if (b < 0) {
+                    break;
+                }
+                result.write(b);
+                assertThat(is.skip(len % 10)).isEqualTo(Math.min(len % 10, data.length - result.size()));
+                result.write(data, result.size(), (int) Math.min(len % 10, data.length - result.size()));
+                int read = is.read(buffer, 0, len);
+                if (read < 0) {
+                    break;
+                }
+                result.write(buffer, 0, read);
+            }
+            assertThat(is.read()).isEqualTo(-1);
+            assertThat(is.available()).isEqualTo(0);
+        }
+        assertThat(result.toByteArray()).isEqualTo(data);
+    }
+
+    @Test
+    public void testErrorIsReportedAfterData() throws Exception {
+        InputStream failing = new InputStream() {
+            int count = 0;
+
+            @Override
+            public int read() throws IOException {
+                if (count == 100) {
+                    throw new IOException("Connection reset");
+                }
+                return count++;
+            }
+        };
+        InputStream is = new PrefetchInputStream(failing, 30, 2);
+        for (int i = 0; i < 100; i++) {
+            assertThat(is.read()).isEqualTo(i);
+        }
+        try {
+            is.read();
+            fail("Error should be reported");
+        } catch (IOException e) {
+            assertThat(e.getMessage()).isEqualTo("Connection reset");
+        }
+        is.close();
+    }
+
+    @Test(timeout = 10000)
+    public void testCloseUnblocksReader() throws Exception {
+        CountDownLatch closed = new CountDownLatch(1);
+        InputStream blocking = new InputStream() {
+            @Override
+            public int read() throws IOException {
+                // Ignores interrupts, like socket streams do
+                while (true) {
+                    try {
+                        closed.await();
+                        throw new IOException("Stream closed");
+                    } catch (InterruptedException e) {
+                        // keep waiting
+                    }
+                }
+            }
+
+            @Override
+            public void close() {
+                closed.countDown();
+            }
+        };
+        InputStream is = new PrefetchInputStream(blocking, 30, 2);
+        Thread.sleep(50);
+        is.close();
+        assertThat(closed.getCount()).isEqualTo(0);
+    }
+
+    @Test
+    public void testCompressedReader() throws Exception {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (DataWriter dw = new SerialDataWriter(new GZIPOutputStream(bytes))) {
+            for (int i = 0; i < 1000; i++) {
+                dw.writeObject(new LatLon(i, -i));
+            }
+        }
+
+        InputStream is = new PrefetchInputStream(new GZIPInputStream(new ByteArrayInputStream(bytes.toByteArray())), 256, 2);
+        try (DataReader dr = new SerialDataReader(is)) {
+            for (int i = 0; i < 1000; i++) {
+                assertThat(dr.readObject()).isEqualTo(new LatLon(i, -i));
+            }
+            assertThat(dr.hasObjects()).isFalse();
+        }
+    }
+}
@@ -0,0 +1,303 @@
+package com.masyaman.datapack.streams;
+
+import com.masyaman.datapack.annotations.Alias;
+import com.masyaman.datapack.annotations.serialization.SerializeBy;
+import com.masyaman.datapack.serializers.objects.samples.LatLon;
+import com.masyaman.datapack.serializers.objects.samples.LatLonTsTz;
+import com.masyaman.datapack.serializers.objects.samples.TsTz;
+import com.masyaman.datapack.serializers.primitives.UnsignedLongReader;
+import com.masyaman.datapack.serializers.strings.StringCachedSerializationFactory;
+import com.masyaman.datapack.streams.codecs.ColumnCodec;
+import com.masyaman.datapack.streams.codecs.RawCodec;
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.Objects;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.zip.GZIPInputStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class ProjectionTest {
+
+    @Test
+    public void testProjectedFieldsOnly() throws Exception {
+        ByteArrayOutputStream os = new ByteArrayOutputStream();
+        try (DataWriter dw = new MultiGzipDataWriter(os, new ClassManager(), new SerializationFactoryLookup(),
+                new MultiGzipDataWriter.Options().codec(RawCodec.INSTANCE).projectable(true))) {
+            for (int i = 0; i < 10000; i++) {
+                dw.writeObject(new LatLon(i * 1.5, i * i * 0.25));
+            }
+            dw.writeObject(null);
+        }
+
+        CountingCodec full = new CountingCodec();
+        DataReader dr = new MultiGzipDataReader(new ByteArrayInputStream(os.toByteArray()), new ClassManager(), new SerializationFactoryLookup(),
+                new MultiGzipDataReader.Options().codec(full));
+        for (int i = 0; i < 10000; i++) {
+            assertThat(dr.readObject()).isEqualTo(new LatLon(i * 1.5, i * i * 0.25));
+        }
+        assertThat(dr.readObject()).isNull();
+
+        CountingCodec projected = new CountingCodec();
+        dr = new MultiGzipDataReader(new ByteArrayInputStream(os.toByteArray()), new ClassManager(), new SerializationFactoryLookup(),
+                new MultiGzipDataReader.Options().codec(projected).project(LatLon.class, "lat"));
+        for (int i = 0; i < 10000; i++) {
+            assertThat(dr.readObject()).isEqualTo(new LatLon(i * 1.5, 0));
+        }
+        assertThat(dr.readObject()).isNull();
+        assertThat(dr.hasObjects()).isFalse();
+
+        assertThat(projected.read.get()).isLessThan(full.read.get() * 2 / 3);
+    }
+
+    @Test
+    public void testProjectedSharedFields() throws Exception {
+        ByteArrayOutputStream os = new ByteArrayOutputStream();
+        try (DataWriter dw = new MultiGzipDataWriter(os)) {
+            for (int i = 0; i < 100; i++) {
+                dw.writeObject(new LatLonTsTz(new LatLon(i, -i), new TsTz(1000L * i, 60)));
+            }
+        }
+
+        DataReader dr = new MultiGzipDataReader(new ByteArrayInputStream(os.toByteArray()), new ClassManager(), new SerializationFactoryLookup(),
+                new MultiGzipDataReader.Options().project(LatLonTsTz.class, "tsTz").project(TsTz.class, "ts"));
+        for (int i = 0; i < 100; i++) {
+            assertThat(dr.readObject()).isEqualTo(new LatLonTsTz(null, new TsTz(1000L * i, 0)));
+        }
+        assertThat(dr.hasObjects()).isFalse();
+    }
+
+    @Test
+    public void testProjectedStringField() throws Exception {
+        byte[] data = writeMessages();
+
+        CountingCodec full = new CountingCodec();
+        DataReader dr = new MultiGzipDataReader(new ByteArrayInputStream(data), new ClassManager(), new SerializationFactoryLookup(),
+                new MultiGzipDataReader.Options().codec(full));
+        readMessages(dr, false);
+
+        // Null objects are told apart by primitive timestamp, so payload column is not read
+        CountingCodec projected = new CountingCodec();
+        AtomicLong sourceRead = new AtomicLong();
+        InputStream source = new FilterInputStream(new ByteArrayInputStream(data)) {
+            @Override
+            public int read() throws IOException {
+                int b = super.read();
+                sourceRead.addAndGet(b < 0 ? 0 : 1);
+                return b;
+            }
+
+            @Override
+            public int read(byte[] b, int off, int len) throws IOException {
+                int count = super.read(b, off, len);
+                sourceRead.addAndGet(Math.max(count, 0));
+                return count;
+            }
+        };
+        dr = new MultiGzipDataReader(source, new ClassManager(), new SerializationFactoryLookup(),
+                new MultiGzipDataReader.Options().codec(projected).project(Message.class, "topic"));
+        readMessages(dr, true);
+
+        assertThat(projected.read.get()).isLessThan(full.read.get() / 3);
+        assertThat(sourceRead.get()).isLessThan(data.length / 3);
+    }
+
+    @Test
+    public void testProjectionWithInflationExecutor() throws Exception {
+        byte[] data = writeMessages();
+
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+        try {
+            CountingCodec projected = new CountingCodec();
+            DataReader dr = new MultiGzipDataReader(new ByteArrayInputStream(data), new ClassManager(), new SerializationFactoryLookup(),
+                    new MultiGzipDataReader.Options().codec(projected).inflationExecutor(executor).project(Message.class, "topic"));
+            readMessages(dr, true);
+
+            CountingCodec full = new CountingCodec();
+            dr = new MultiGzipDataReader(new ByteArrayInputStream(data), new ClassManager(), new SerializationFactoryLookup(),
+                    new MultiGzipDataReader.Options().codec(full).inflationExecutor(executor));
+            readMessages(dr, false);
+
+            assertThat(projected.read.get()).isLessThan(full.read.get() / 3);
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    @Test
+    public void testBoxedWriterField() throws Exception {
+        ByteArrayOutputStream os = new ByteArrayOutputStream();
+        try (DataWriter dw = new MultiGzipDataWriter(os, new ClassManager(BoxedReading.class), new SerializationFactoryLookup(),
+                new MultiGzipDataWriter.Options().projectable(true))) {
+            for (int i = 0; i < 100; i++) {
+                dw.writeObject(i % 10 == 0 ? null : new BoxedReading(i, i % 3 == 0 ? null : "reading " + i));
+            }
+        }
+
+        // Reader field is primitive, but null objects could not be detected by it as writer field is boxed
+        DataReader dr = new MultiGzipDataReader(new ByteArrayInputStream(os.toByteArray()), new ClassManager(PrimitiveReading.class),
+                new SerializationFactoryLookup(), new MultiGzipDataReader.Options().project(PrimitiveReading.class, "value"));
+        for (int i = 0; i < 100; i++) {
+            assertThat(dr.readObject()).isEqualTo(i % 10 == 0 ? null : new PrimitiveReading(i, null));
+        }
+        assertThat(dr.hasObjects()).isFalse();
+    }
+
+    @Test
+    public void testDefaultFormatHasNoSettings() throws Exception {
+        assertThat(readSettingsCount(new MultiGzipDataWriter.Options())).isEqualTo(0L);
+        assertThat(readSettingsCount(new MultiGzipDataWriter.Options().projectable(true))).isEqualTo(1L);
+    }
+
+    /**
+     * @return number of global settings in main column of single row group file with legacy header
+     */
+    private static Long readSettingsCount(MultiGzipDataWriter.Options options) throws IOException {
+        ByteArrayOutputStream os = new ByteArrayOutputStream();
+        try (DataWriter dw = new MultiGzipDataWriter(os, new ClassManager(), new SerializationFactoryLookup(), options)) {
+            dw.writeObject(new LatLon(1, 2));
+        }
+        InputStream is = new ByteArrayInputStream(os.toByteArray());
+        long columns = UnsignedLongReader.read(is);
+        long mainLength = UnsignedLongReader.read(is);
+        for (int i = 1; i < columns; i++) {
+            UnsignedLongReader.read(is);
+        }
+        byte[] main = new byte[(int) mainLength];
+        assertThat(is.read(main)).isEqualTo(main.length);
+        InputStream mainColumn = new GZIPInputStream(new ByteArrayInputStream(main));
+        assertThat(UnsignedLongReader.read(mainColumn)).isEqualTo(MultiGzipDataWriter.CURRENT_VERSION);
+        return UnsignedLongReader.read(mainColumn);
+    }
+
+    private static byte[] writeMessages() throws IOException {
+        ByteArrayOutputStream os = new ByteArrayOutputStream();
+        try (DataWriter dw = new MultiGzipDataWriter(os, new ClassManager(), new SerializationFactoryLookup(),
+                new MultiGzipDataWriter.Options().codec(RawCodec.INSTANCE).rowGroupSize(3000).projectable(true))) {
+            for (int i = 0; i < 10000; i++) {
+                dw.writeObject(i % 100 == 0 ? null : new Message("topic " + i % 5, 1000L * i, "payload of message " + i));
+            }
+        }
+        return os.toByteArray();
+    }
+
+    private static void readMessages(DataReader dr, boolean projected) throws IOException {
+        for (int i = 0; i < 10000; i++) {
+            Message expected = i % 100 == 0 ? null : projected ? new Message("topic " + i % 5, 0, null)
+                    : new Message("topic " + i % 5, 1000L * i, "payload of message " + i);
+            assertThat(dr.readObject()).isEqualTo(expected);
+        }
+        assertThat(dr.hasObjects()).isFalse();
+    }
+
+    public static class Message {
+        private String topic;
+        private long ts;
+        @SerializeBy(StringCachedSerializationFactory.class)
+        private String payload;
+
+        public Message() {
+        }
+
+        public Message(String topic, long ts, String payload) {
+            this.topic = topic;
+            this.ts = ts;
+            this.payload = payload;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) return true;
+            if (o == null || getClass() != o.getClass()) return false;
+            Message message = (Message) o;
+            return ts == message.ts && Objects.equals(topic, message.topic) && Objects.equals(payload, message.payload);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(topic, ts, payload);
+        }
+    }
+
+    @Alias("Reading")
+    public static class BoxedReading {
+        private Integer value;
+        private String label;
+
+        public BoxedReading() {
+        }
+
+        public BoxedReading(Integer value, String label) {
+            this.value = value;
+            this.label = label;
+        }
+    }
+
+    @Alias("Reading")
+    public static class PrimitiveReading {
+        private int value;
+        private String label;
+
+        public PrimitiveReading() {
+        }
+
+        public PrimitiveReading(int value, String label) {
+            this.value = value;
+            this.label = label;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) return true;
+            if (o == null || getClass() != o.getClass()) return false;
+            PrimitiveReading reading = (PrimitiveReading) o;
+            return value == reading.value && Objects.equals(label, reading.label);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(value, label);
+        }
+    }
+
+    private static class CountingCodec implements ColumnCodec {
+        private final AtomicLong read = new AtomicLong();
+
+        @Override
+        public String getName() {
+            return RawCodec.INSTANCE.getName();
+        }
+
+        @Override
+        public OutputStream encode(OutputStream os) throws IOException {
+            return RawCodec.INSTANCE.encode(os);
+        }
+
+        @Override
+        public InputStream decode(InputStream is) throws IOException {
+            return new FilterInputStream(is) {
+                @Override
+                public int read() throws IOException {
+                    int b = super.read();
+                    read.addAndGet(b < 0 ? 0 : 1);
+                    return b;
+                }
+
+                @Override
+                public int read(byte[] b, int off, int len) throws IOException {
+                    int count = super.read(b, off, len);
+                    read.addAndGet(Math.max(count, 0));
+                    return count;
+                }
+            };
+        }
+    }
+}
@@ -0,0 +1,65 @@
+package com.masyaman.datapack.streams;
+
+import com.masyaman.datapack.serializers.objects.samples.LatLon;
+import com.masyaman.datapack.serializers.objects.samples.LatLonAlt;
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.Assert.fail;
+
+public class SchemaTest {
+
+    @Test
+    public void testMessagesWithSchema() throws Exception {
+        Schema schema = Schema.create(new ClassManager(), new SerializationFactoryLookup(), LatLon.class, LatLonAlt.class);
+
+        ByteArrayOutputStream regular = new ByteArrayOutputStream();
+        try (DataWriter dw = new SerialDataWriter(regular)) {
+            dw.writeObject(new LatLon(1.5, 2.5));
+            dw.writeObject(new LatLonAlt(1, 2, 3));
+            dw.writeObject(new LatLon(1.75, 2.5));
+        }
+        ByteArrayOutputStream message = new ByteArrayOutputStream();
+        try (DataWriter dw = new SerialDataWriter(message, new ClassManager(), new SerializationFactoryLookup(),
+                new SerialDataWriter.Options().schema(schema))) {
+            dw.writeObject(new LatLon(1.5, 2.5));
+            dw.writeObject(new LatLonAlt(1, 2, 3));
+            dw.writeObject(new LatLon(1.75, 2.5));
+        }
+        assertThat(message.size()).isLessThan(regular.size() / 5);
+
+        Schema imported = Schema.fromBytes(schema.toBytes());
+        assertThat(imported.getId()).isEqualTo(schema.getId());
+        Schema other = Schema.create(new ClassManager(), new SerializationFactoryLookup(), LatLon.class);
+
+        DataReader dr = new SerialDataReader(new ByteArrayInputStream(message.toByteArray()), new ClassManager(),
+                new SerializationFactoryLookup(), other, imported);
+        assertThat(dr.readObject()).isEqualTo(new LatLon(1.5, 2.5));
+        assertThat(dr.readObject()).isEqualTo(new LatLonAlt(1, 2, 3));
+        assertThat(dr.readObject()).isEqualTo(new LatLon(1.75, 2.5));
+        assertThat(dr.hasObjects()).isFalse();
+    }
+
+    @Test
+    public void testUnknownSchema() throws Exception {
+        Schema schema = Schema.create(new ClassManager(), new SerializationFactoryLookup(), LatLon.class);
+        Schema other = Schema.create(new ClassManager(), new SerializationFactoryLookup(), LatLonAlt.class);
+
+        ByteArrayOutputStream message = new ByteArrayOutputStream();
+        try (DataWriter dw = new SerialDataWriter(message, new ClassManager(), new SerializationFactoryLookup(),
+                new SerialDataWriter.Options().schema(schema))) {
+            dw.writeObject(new LatLon(1.5, 2.5));
+        }
+        try {
+            new SerialDataReader(new ByteArrayInputStream(message.toByteArray()), new ClassManager(),
+                    new SerializationFactoryLookup(), other);
+            fail("Schema should not be found");
+        } catch (IOException e) {
+            assertThat(e.getMessage()).startsWith("Unknown schema");
+        }
+    }
+}
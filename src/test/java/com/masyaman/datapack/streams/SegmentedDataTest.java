@@ -0,0 +1,107 @@
+package com.masyaman.datapack.streams;
+
+import com.masyaman.datapack.serializers.objects.samples.LatLon;
+import com.masyaman.datapack.serializers.objects.samples.LatLonTsTz;
+import com.masyaman.datapack.serializers.objects.samples.TsTz;
+import org.junit.After;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.ByteArrayOutputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class SegmentedDataTest {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private ExecutorService executor = Executors.newFixedThreadPool(4);
+
+    @After
+    public void tearDown() {
+        executor.shutdownNow();
+    }
+
+    @Test
+    public void testSerialSegments() throws Exception {
+        ByteArrayOutputStream os = new ByteArrayOutputStream();
+        write(os, new SegmentedDataWriter.Options().segmentSize(1000).executor(executor).maxPendingSegments(2));
+        byte[] data = os.toByteArray();
+
+        SegmentedDataReader dr = new SegmentedDataReader(data);
+        assertThat(dr.getSegmentCount()).isEqualTo(11);
+        assertThat(dr.getObjectCount()).isEqualTo(10001);
+        assertThat(readAll(dr)).isEqualTo(objects());
+
+        dr = new SegmentedDataReader(data, new ClassManager(), new SerializationFactoryLookup(),
+                new SegmentedDataReader.Options().executor(executor).readAhead(3));
+        assertThat(readAll(dr)).isEqualTo(objects());
+
+        dr = new SegmentedDataReader(data, new ClassManager(), new SerializationFactoryLookup(),
+                new SegmentedDataReader.Options().executor(executor).ordered(false));
+        List<Object> unordered = readAll(dr);
+        assertThat(unordered).hasSize(10001);
+        assertThat(new HashSet<>(unordered)).isEqualTo(new HashSet<>(objects()));
+    }
+
+    @Test
+    public void testMultiGzipSegmentsFromFile() throws Exception {
+        Path path = folder.newFile().toPath();
+        try (OutputStream os = Files.newOutputStream(path)) {
+            write(os, new SegmentedDataWriter.Options().format(SegmentedDataWriter.Format.MULTI_GZIP).segmentSize(3000));
+        }
+
+        try (SegmentedDataReader dr = new SegmentedDataReader(path)) {
+            assertThat(dr.getSegmentCount()).isEqualTo(4);
+            assertThat(readAll(dr)).isEqualTo(objects());
+        }
+        try (SegmentedDataReader dr = new SegmentedDataReader(path, new ClassManager(), new SerializationFactoryLookup(),
+                new SegmentedDataReader.Options().executor(executor))) {
+            assertThat(readAll(dr)).isEqualTo(objects());
+        }
+    }
+
+    @Test
+    public void testEmpty() throws Exception {
+        ByteArrayOutputStream os = new ByteArrayOutputStream();
+        new SegmentedDataWriter(os).close();
+        SegmentedDataReader dr = new SegmentedDataReader(os.toByteArray());
+        assertThat(dr.getSegmentCount()).isEqualTo(0);
+        assertThat(dr.hasObjects()).isFalse();
+    }
+
+    private static void write(OutputStream os, SegmentedDataWriter.Options options) throws Exception {
+        try (SegmentedDataWriter dw = new SegmentedDataWriter(os, new ClassManager(), new SerializationFactoryLookup(), options)) {
+            for (Object object : objects()) {
+                dw.writeObject(object);
+            }
+        }
+    }
+
+    private static List<Object> readAll(SegmentedDataReader dr) throws Exception {
+        List<Object> objects = new ArrayList<>();
+        while (dr.hasObjects()) {
+            objects.add(dr.readObject());
+        }
+        return objects;
+    }
+
+    private static List<Object> objects() {
+        List<Object> objects = new ArrayList<>();
+        for (int i = 0; i < 10000; i++) {
+            objects.add(new LatLonTsTz(new LatLon(i * 0.5, -i), new TsTz(1000L * i, i % 3)));
+        }
+        objects.add(null);
+        return objects;
+    }
+}
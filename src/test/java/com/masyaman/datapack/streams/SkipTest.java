@@ -0,0 +1,72 @@
+package com.masyaman.datapack.streams;
+
+import com.masyaman.datapack.reflection.TypeDescriptor;
+import com.masyaman.datapack.serializers.objects.samples.CollectionFields;
+import com.masyaman.datapack.serializers.objects.samples.LatLon;
+import com.masyaman.datapack.serializers.objects.samples.LatLonTsTz;
+import com.masyaman.datapack.serializers.objects.samples.TsTz;
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.math.RoundingMode;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Date;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class SkipTest {
+
+    @Test
+    public void testSkipObjects() throws Exception {
+        List<Object> objects = new ArrayList<>();
+        for (int i = 0; i < 50; i++) {
+            objects.add(new LatLonTsTz(new LatLon(i, -i), i % 5 == 0 ? null : new TsTz(1000L * i, 60)));
+            objects.add(new CollectionFields(Arrays.asList(new LatLon(i, i), "s" + i % 4, i), Arrays.asList("a", "b" + i % 2)));
+            objects.add(i % 3 == 0 ? null : "string " + i % 7);
+            objects.add(new Date(100000L * i));
+            objects.add(Arrays.asList(RoundingMode.values()[i % 4], "x"));
+            objects.add(BitSet.valueOf(new long[] {i}));
+            objects.add(i % 4 == 0 ? null : new LatLonTsTz(null, null));
+        }
+
+        ByteArrayOutputStream os = new ByteArrayOutputStream();
+        try (DataWriter dw = new SerialDataWriter(os)) {
+            for (Object object : objects) {
+                dw.writeObject(object);
+            }
+        }
+
+        DataReader dr = new SerialDataReader(new ByteArrayInputStream(os.toByteArray()));
+        TypeDescriptor<Object> type = new TypeDescriptor<>(Object.class);
+        for (int i = 0; i < objects.size(); i++) {
+            if ((i / 7 + i) % 2 == 0) {
+                assertThat(dr.skipObject(type)).isEqualTo(objects.get(i) != null);
+            } else {
+                assertThat(dr.readObject()).isEqualTo(objects.get(i));
+            }
+        }
+        assertThat(dr.hasObjects()).isFalse();
+    }
+
+    @Test
+    public void testProjectedSerialRead() throws Exception {
+        ByteArrayOutputStream os = new ByteArrayOutputStream();
+        try (DataWriter dw = new SerialDataWriter(os)) {
+            for (int i = 0; i < 100; i++) {
+                dw.writeObject(new LatLonTsTz(i % 10 == 0 ? null : new LatLon(i, -i), new TsTz(1000L * i, 60)));
+            }
+        }
+
+        SerialDataReader dr = new SerialDataReader(new ByteArrayInputStream(os.toByteArray()));
+        dr.project(LatLonTsTz.class, "latLon");
+        dr.project(LatLon.class, "lon");
+        for (int i = 0; i < 100; i++) {
+            assertThat(dr.readObject()).isEqualTo(new LatLonTsTz(i % 10 == 0 ? null : new LatLon(0, -i), null));
+        }
+        assertThat(dr.hasObjects()).isFalse();
+    }
+}
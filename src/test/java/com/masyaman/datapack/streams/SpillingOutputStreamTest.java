@@ -0,0 +1,79 @@
+package com.masyaman.datapack.streams;
+
+import com.masyaman.datapack.serializers.objects.samples.LatLon;
+import com.masyaman.datapack.serializers.objects.samples.LatLonTsTz;
+import com.masyaman.datapack.serializers.objects.samples.TsTz;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class SpillingOutputStreamTest {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void testDataKeptInMemoryBelowThreshold() throws Exception {
+        SpillingOutputStream out = new SpillingOutputStream(100, folder.getRoot().toPath());
+        for (int i = 0; i < 100; i++) {
+            out.write(i);
+        }
+        assertThat(out.isSpilled()).isFalse();
+        assertThat(out.size()).isEqualTo(100);
+        assertThat(folder.getRoot().list()).isEmpty();
+    }
+
+    @Test
+    public void testSpilledDataIsWrittenInOrder() throws Exception {
+        File directory = folder.getRoot();
+        SpillingOutputStream out = new SpillingOutputStream(100, directory.toPath());
+        byte[] expected = new byte[1000];
+        for (int i = 0; i < expected.length; i++) {
+            expected[i] = (byte) i;
+        }
+        out.write(expected, 0, 150);
+        for (int i = 150; i < 170; i++) {
+            out.write(expected[i]);
+        }
+        out.write(expected, 170, expected.length - 170);
+        out.close();
+
+        assertThat(out.isSpilled()).isTrue();
+        assertThat(out.size()).isEqualTo(expected.length);
+
+        ByteArrayOutputStream os = new ByteArrayOutputStream();
+        out.writeTo(os);
+        assertThat(os.toByteArray()).isEqualTo(expected);
+
+        out.delete();
+        assertThat(directory.list()).isEmpty();
+    }
+
+    @Test
+    public void testMultiGzipSpilledColumns() throws Exception {
+        File directory = folder.getRoot();
+        MultiGzipDataWriter.Options options = new MultiGzipDataWriter.Options()
+                .spillThreshold(64)
+                .spillDirectory(directory.toPath());
+
+        ByteArrayOutputStream os = new ByteArrayOutputStream();
+        try (DataWriter dw = new MultiGzipDataWriter(os, new ClassManager(), new SerializationFactoryLookup(), options)) {
+            for (int i = 0; i < 10000; i++) {
+                dw.writeObject(new LatLonTsTz(new LatLon(1.5 + i, 2.25 - i), new TsTz(100000L + i * 17, i % 100)));
+            }
+        }
+        assertThat(directory.list()).isEmpty();
+
+        DataReader dr = new MultiGzipDataReader(new ByteArrayInputStream(os.toByteArray()));
+        for (int i = 0; i < 10000; i++) {
+            assertThat(dr.readObject()).isEqualTo(new LatLonTsTz(new LatLon(1.5 + i, 2.25 - i), new TsTz(100000L + i * 17, i % 100)));
+        }
+        assertThat(dr.hasObjects()).isFalse();
+    }
+}
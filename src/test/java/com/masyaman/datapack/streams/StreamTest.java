@@ -0,0 +1,88 @@
+package com.masyaman.datapack.streams;
+
+import com.masyaman.datapack.serializers.objects.samples.LatLon;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Spliterator;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class StreamTest {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void testSyncPointsStream() throws Exception {
+        Path file = folder.newFile().toPath();
+        try (OutputStream os = Files.newOutputStream(file);
+             DataWriter dw = new SerialDataWriter(os, new ClassManager(), new SerializationFactoryLookup(),
+                     new SerialDataWriter.Options().syncInterval(100))) {
+            dw.writeAll(objects(1000));
+        }
+
+        SerialDataReader dr = new SerialDataReader(file);
+        for (int i = 0; i < 150; i++) {
+            dr.readObject();
+        }
+        try (Stream<Object> stream = dr.stream(Object.class)) {
+            assertThat(stream.parallel().collect(Collectors.toList())).isEqualTo(objects(1000).subList(150, 1000));
+        }
+
+        try (Stream<Object> stream = new SerialDataReader(file).stream(Object.class)) {
+            Spliterator<Object> spliterator = stream.spliterator();
+            Spliterator<Object> prefix = spliterator.trySplit();
+            assertThat(prefix.getExactSizeIfKnown()).isEqualTo(500);
+            assertThat(spliterator.getExactSizeIfKnown()).isEqualTo(-1);
+        }
+    }
+
+    @Test
+    public void testSegmentsStream() throws Exception {
+        ByteArrayOutputStream os = new ByteArrayOutputStream();
+        try (ObjectWriter writer = new SegmentedDataWriter(os, new ClassManager(), new SerializationFactoryLookup(),
+                new SegmentedDataWriter.Options().segmentSize(64))) {
+            writer.writeAll(objects(1000));
+        }
+
+        try (Stream<LatLon> stream = new SegmentedDataReader(os.toByteArray()).stream(LatLon.class)) {
+            Spliterator<LatLon> spliterator = stream.spliterator();
+            assertThat(spliterator.getExactSizeIfKnown()).isEqualTo(1000);
+            Spliterator<LatLon> prefix = spliterator.trySplit();
+            assertThat(prefix.getExactSizeIfKnown()).isEqualTo(64 * 8);
+            assertThat(spliterator.getExactSizeIfKnown()).isEqualTo(1000 - 64 * 8);
+        }
+        try (Stream<LatLon> stream = new SegmentedDataReader(os.toByteArray()).stream(LatLon.class)) {
+            assertThat(stream.parallel().collect(Collectors.toList())).isEqualTo(objects(1000));
+        }
+    }
+
+    @Test
+    public void testSequentialStream() throws Exception {
+        ByteArrayOutputStream os = new ByteArrayOutputStream();
+        try (DataWriter dw = new MultiGzipDataWriter(os)) {
+            dw.writeAll(objects(100));
+        }
+        DataReader dr = new MultiGzipDataReader(new ByteArrayInputStream(os.toByteArray()));
+        assertThat(dr.stream(LatLon.class).parallel().filter(o -> o != null).count()).isEqualTo(100);
+    }
+
+    private static List<LatLon> objects(int count) {
+        List<LatLon> objects = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            objects.add(new LatLon(i, -i));
+        }
+        return objects;
+    }
+}
@@ -0,0 +1,127 @@
+package com.masyaman.datapack.streams;
+
+import com.masyaman.datapack.annotations.serialization.SerializeBy;
+import com.masyaman.datapack.reflection.TypeDescriptor;
+import com.masyaman.datapack.serializers.strings.StringCachedSerializationFactory;
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.Assert.fail;
+
+public class StringDictionaryTest {
+
+    @Test
+    public void testDictionary() throws Exception {
+        List<Device> samples = new ArrayList<>();
+        for (int i = 0; i < 100; i++) {
+            samples.add(new Device("Device vendor " + (i % 5), Kind.values()[i % 3]));
+        }
+        ByteArrayOutputStream sampleStream = new ByteArrayOutputStream();
+        try (DataWriter dw = new SerialDataWriter(sampleStream)) {
+            dw.writeAll(samples);
+        }
+        StringDictionary trained = new StringDictionary.Trainer()
+                .train(new SerialDataReader(new ByteArrayInputStream(sampleStream.toByteArray())))
+                .build(100, 2);
+        assertThat(trained.getValues()).hasSize(8);
+        StringDictionary dictionary = StringDictionary.fromBytes(trained.toBytes());
+        assertThat(dictionary.getId()).isEqualTo(trained.getId());
+        assertThat(dictionary.getValues()).isEqualTo(trained.getValues());
+
+        List<Device> message = samples.subList(0, 4);
+        ByteArrayOutputStream plain = new ByteArrayOutputStream();
+        try (DataWriter dw = new SerialDataWriter(plain)) {
+            dw.writeAll(message);
+        }
+        ByteArrayOutputStream preloaded = new ByteArrayOutputStream();
+        try (DataWriter dw = new SerialDataWriter(preloaded, new ClassManager(), new SerializationFactoryLookup(),
+                new SerialDataWriter.Options().dictionary(dictionary))) {
+            dw.writeAll(message);
+        }
+        assertThat(preloaded.size()).isLessThan(plain.size() - 50);
+
+        DataReader dr = new SerialDataReader(new ByteArrayInputStream(preloaded.toByteArray()), new ClassManager(),
+                new SerializationFactoryLookup(), new SerialDataReader.Options().dictionaries(dictionary));
+        List<Object> read = new ArrayList<>();
+        dr.readBatch(100, read);
+        assertThat(read).isEqualTo(message);
+
+        try {
+            new SerialDataReader(new ByteArrayInputStream(preloaded.toByteArray()));
+            fail("Dictionary should be required");
+        } catch (IOException e) {
+            assertThat(e.getMessage()).startsWith("Unknown string dictionary");
+        }
+    }
+
+    @Test
+    public void testEnumsPreloadOwnConstantsOnly() throws Exception {
+        List<String> values = new ArrayList<>();
+        for (int i = 0; i < 300; i++) {
+            values.add("Device vendor " + i);
+        }
+        values.add(Kind.GATEWAY.name());
+        values.add(Kind.SENSOR.name());
+        StringDictionary dictionary = new StringDictionary(values);
+
+        List<Kind> kinds = new ArrayList<>();
+        for (int i = 0; i < 1000; i++) {
+            kinds.add(Kind.values()[i % 3]);
+        }
+        ByteArrayOutputStream plain = new ByteArrayOutputStream();
+        try (DataWriter dw = new SerialDataWriter(plain)) {
+            dw.writeAll(kinds);
+        }
+        ByteArrayOutputStream preloaded = new ByteArrayOutputStream();
+        try (DataWriter dw = new SerialDataWriter(preloaded, new ClassManager(), new SerializationFactoryLookup(),
+                new SerialDataWriter.Options().dictionary(dictionary))) {
+            dw.writeAll(kinds);
+        }
+        // Other dictionary strings would make enum cache indexes longer than one byte
+        assertThat(preloaded.size()).isLessThan(plain.size() + 50);
+
+        DataReader dr = new SerialDataReader(new ByteArrayInputStream(preloaded.toByteArray()), new ClassManager(),
+                new SerializationFactoryLookup(), new SerialDataReader.Options().dictionaries(dictionary));
+        List<Kind> read = new ArrayList<>();
+        dr.readBatch(1000, read, new TypeDescriptor<>(Kind.class));
+        assertThat(read).isEqualTo(kinds);
+    }
+
+    public enum Kind {
+        SENSOR, GATEWAY, CONTROLLER
+    }
+
+    public static class Device {
+        @SerializeBy(StringCachedSerializationFactory.class)
+        private String vendor;
+        private Kind kind;
+
+        public Device() {
+        }
+
+        public Device(String vendor, Kind kind) {
+            this.vendor = vendor;
+            this.kind = kind;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) return true;
+            if (o == null || getClass() != o.getClass()) return false;
+            Device device = (Device) o;
+            return Objects.equals(vendor, device.vendor) && kind == device.kind;
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(vendor, kind);
+        }
+    }
+}
@@ -0,0 +1,121 @@
+package com.masyaman.datapack.streams;
+
+import com.masyaman.datapack.serializers.objects.samples.LatLon;
+import com.masyaman.datapack.serializers.objects.samples.LatLonTsTz;
+import com.masyaman.datapack.serializers.objects.samples.TsTz;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.Assert.fail;
+
+public class SyncPointTest {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void testSequentialReading() throws Exception {
+        Path file = writeFile(100);
+
+        DataReader dr = new SerialDataReader(new ByteArrayInputStream(Files.readAllBytes(file)));
+        for (int i = 0; i < 1000; i++) {
+            assertThat(dr.readObject()).isEqualTo(object(i));
+        }
+        assertThat(dr.hasObjects()).isFalse();
+    }
+
+    @Test
+    public void testSeek() throws Exception {
+        Path file = writeFile(100);
+
+        try (SerialDataReader dr = new SerialDataReader(file)) {
+            List<SyncPoint> syncPoints = dr.getSyncPoints();
+            assertThat(syncPoints).hasSize(10);
+            assertThat(syncPoints.get(3).getOrdinal()).isEqualTo(300);
+
+            dr.seek(550);
+            for (int i = 550; i < 1000; i++) {
+                assertThat(dr.readObject()).isEqualTo(object(i));
+            }
+            assertThat(dr.hasObjects()).isFalse();
+
+            dr.seek(0);
+            assertThat(dr.readObject()).isEqualTo(object(0));
+
+            dr.seek(syncPoints.get(9));
+            assertThat(dr.readObject()).isEqualTo(object(900));
+
+            dr.seek(999);
+            assertThat(dr.readObject()).isEqualTo(object(999));
+            assertThat(dr.hasObjects()).isFalse();
+        }
+    }
+
+    @Test
+    public void testSeekWithoutSyncPoints() throws Exception {
+        Path file = writeFile(Long.MAX_VALUE);
+
+        try (SerialDataReader dr = new SerialDataReader(file)) {
+            dr.seek(10);
+            fail("Seek should fail");
+        } catch (IOException e) {
+            assertThat(e.getMessage()).contains("not seekable");
+        }
+    }
+
+    @Test
+    public void testRepeatedClose() throws Exception {
+        Path file = folder.newFile().toPath();
+        DataWriter dw = new SerialDataWriter(Files.newOutputStream(file), new ClassManager(),
+                new SerializationFactoryLookup(), new SerialDataWriter.Options().syncInterval(100));
+        for (int i = 0; i < 1000; i++) {
+            dw.writeObject(object(i));
+        }
+        dw.close();
+        long size = Files.size(file);
+        dw.close();
+        assertThat(Files.size(file)).isEqualTo(size);
+
+        try (SerialDataReader dr = new SerialDataReader(file)) {
+            assertThat(dr.getSyncPoints()).hasSize(10);
+            dr.seek(999);
+            assertThat(dr.readObject()).isEqualTo(object(999));
+            assertThat(dr.hasObjects()).isFalse();
+        }
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testNonPositiveSyncInterval() throws Exception {
+        new SerialDataWriter.Options().syncInterval(0);
+    }
+
+    private Path writeFile(long syncInterval) throws IOException {
+        Path file = folder.newFile().toPath();
+        try (OutputStream os = Files.newOutputStream(file);
+             DataWriter dw = new SerialDataWriter(os, new ClassManager(), new SerializationFactoryLookup(),
+                     new SerialDataWriter.Options().syncInterval(syncInterval))) {
+            for (int i = 0; i < 1000; i++) {
+                dw.writeObject(object(i));
+            }
+        }
+        return file;
+    }
+
+    private static Object object(int i) {
+        if (i % 7 == 0) {
+            return "String " + i;
+        } else if (i % 11 == 0) {
+            return null;
+        }
+        return new LatLonTsTz(new LatLon(1.5 + i, 2.25), new TsTz(100000L + i * 1000, 234));
+    }
+}
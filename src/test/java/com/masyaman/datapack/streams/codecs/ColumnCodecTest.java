@@ -0,0 +1,197 @@
+package com.masyaman.datapack.streams.codecs;
+
+import com.masyaman.datapack.reflection.TypeDescriptor;
+import com.masyaman.datapack.serializers.SerializationFactory;
+import com.masyaman.datapack.serializers.objects.samples.LatLon;
+import com.masyaman.datapack.serializers.objects.samples.LatLonTsTz;
+import com.masyaman.datapack.serializers.objects.samples.TsTz;
+import com.masyaman.datapack.serializers.strings.StringSerializationFactory;
+import com.masyaman.datapack.streams.ClassManager;
+import com.masyaman.datapack.streams.ColumnDictionaryTrainer;
+import com.masyaman.datapack.streams.DataReader;
+import com.masyaman.datapack.streams.DataWriter;
+import com.masyaman.datapack.streams.MultiGzipDataReader;
+import com.masyaman.datapack.streams.MultiGzipDataWriter;
+import com.masyaman.datapack.streams.SerializationFactoryLookup;
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.Map;
+import java.util.Random;
+import java.util.zip.Deflater;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.Assert.fail;
+
+public class ColumnCodecTest {
+
+    private static final ColumnCodec[] CODECS = {
+            RawCodec.INSTANCE,
+            GzipCodec.INSTANCE,
+            DeflateCodec.INSTANCE,
+            new DeflateCodec(Deflater.BEST_SPEED, Deflater.HUFFMAN_ONLY),
+            new DeflateCodec(Deflater.BEST_COMPRESSION, Deflater.FILTERED),
+            LzCodec.INSTANCE
+    };
+
+    @Test
+    public void testCodecsRoundTrip() throws Exception {
+        Random random = new Random(0);
+        byte[] randomData = new byte[200000];
+        random.nextBytes(randomData);
+        byte[] repetitiveData = new byte[300000];
+        for (int i = 0; i < repetitiveData.length; i++) {
+            repetitiveData[i] = (byte) (i % 1000 < 500 ? i % 7 : random.nextInt(4));
+        }
+
+        for (ColumnCodec codec : CODECS) {
+            for (byte[] data : new byte[][] {new byte[0], new byte[] {1, 2, 3}, new byte[100], randomData, repetitiveData}) {
+                byte[] encoded = encode(codec, data);
+                assertThat(decode(codec, encoded)).as(codec.getName()).isEqualTo(data);
+            }
+        }
+    }
+
+    @Test
+    public void testLzCompresses() throws Exception {
+        byte[] data = new byte[100000];
+        for (int i = 0; i < data.length; i++) {
+            data[i] = (byte) (i % 100);
+        }
+        assertThat(encode(LzCodec.INSTANCE, data).length).isLessThan(data.length / 20);
+    }
+
+    @Test(expected = IOException.class)
+    public void testLzCorruptedData() throws Exception {
+        byte[] encoded = encode(LzCodec.INSTANCE, "abcabcabcabcabcabcabcabcabcabc".getBytes());
+        // match offset of first sequence, after block header, token and 3 literals
+        encoded[12] = (byte) 0xFF;
+        encoded[13] = (byte) 0xFF;
+        decode(LzCodec.INSTANCE, encoded);
+    }
+
+    @Test
+    public void testMultiStreamWithCodecs() throws Exception {
+        for (ColumnCodec codec : CODECS) {
+            ByteArrayOutputStream os = new ByteArrayOutputStream();
+            try (DataWriter dw = new MultiGzipDataWriter(os, new ClassManager(), new SerializationFactoryLookup(),
+                    new MultiGzipDataWriter.Options().codec(codec))) {
+                writeSamples(dw);
+            }
+            readSamples(new MultiGzipDataReader(new ByteArrayInputStream(os.toByteArray())));
+        }
+    }
+
+    @Test
+    public void testCodecPerColumn() throws Exception {
+        ByteArrayOutputStream os = new ByteArrayOutputStream();
+        try (DataWriter dw = new MultiGzipDataWriter(os, new ClassManager(), new SerializationFactoryLookup(),
+                new MultiGzipDataWriter.Options().codec(LzCodec.INSTANCE)) {
+            @Override
+            protected ColumnCodec selectCodec(SerializationFactory factory, TypeDescriptor<?> type) {
+                return factory instanceof StringSerializationFactory ? RawCodec.INSTANCE : DeflateCodec.INSTANCE;
+            }
+        }) {
+            writeSamples(dw);
+            dw.writeObject("text");
+        }
+        DataReader dr = new MultiGzipDataReader(new ByteArrayInputStream(os.toByteArray()));
+        readSamples(dr);
+        assertThat(dr.readObject()).isEqualTo("text");
+    }
+
+    @Test
+    public void testDictionary() throws Exception {
+        byte[] dictionary = "sensor gateway controller ".getBytes();
+        DeflateCodec codec = new DeflateCodec(Deflater.DEFAULT_COMPRESSION, Deflater.DEFAULT_STRATEGY, dictionary);
+        assertThat(codec.getName()).startsWith("deflate:").isNotEqualTo(DeflateCodec.INSTANCE.getName());
+        assertThat(codec.getDictionary()).isEqualTo(dictionary);
+
+        byte[] data = "gateway sensor controller".getBytes();
+        byte[] encoded = encode(codec, data);
+        assertThat(decode(codec, encoded)).isEqualTo(data);
+        assertThat(encoded.length).isLessThan(encode(DeflateCodec.INSTANCE, data).length / 2);
+    }
+
+    @Test
+    public void testTrainedColumnDictionaries() throws Exception {
+        ColumnDictionaryTrainer trainer = new ColumnDictionaryTrainer();
+        for (int i = 0; i < 1000; i++) {
+            trainer.add(new LatLonTsTz(new LatLon(1.5 + i, 2.25), new TsTz(100000L + i * 1000, 234)));
+        }
+        Map<String, DeflateCodec> codecs = trainer.build(DeflateCodec.MAX_DICTIONARY_SIZE);
+        assertThat(codecs).isNotEmpty();
+
+        ByteArrayOutputStream plain = new ByteArrayOutputStream();
+        try (DataWriter dw = new MultiGzipDataWriter(plain, new ClassManager(), new SerializationFactoryLookup(),
+                new MultiGzipDataWriter.Options().codec(DeflateCodec.INSTANCE))) {
+            writeSamples(dw, 20);
+        }
+        ByteArrayOutputStream os = new ByteArrayOutputStream();
+        try (DataWriter dw = new MultiGzipDataWriter(os, new ClassManager(), new SerializationFactoryLookup(),
+                new MultiGzipDataWriter.Options().codec(DeflateCodec.INSTANCE).columnCodecs(codecs))) {
+            writeSamples(dw, 20);
+        }
+        assertThat(os.size()).isLessThan(plain.size());
+
+        DataReader dr = new MultiGzipDataReader(new ByteArrayInputStream(os.toByteArray()), new ClassManager(),
+                new SerializationFactoryLookup(), new MultiGzipDataReader.Options().codecs(codecs.values()));
+        readSamples(dr, 20);
+
+        try {
+            new MultiGzipDataReader(new ByteArrayInputStream(os.toByteArray()));
+            fail("Dictionary codecs should be required");
+        } catch (IOException e) {
+            assertThat(e.getMessage()).startsWith("Unable to find column codec 'deflate:");
+        }
+    }
+
+    private static void writeSamples(DataWriter dw) throws IOException {
+        writeSamples(dw, 1000);
+    }
+
+    private static void readSamples(DataReader dr) throws IOException {
+        readSamples(dr, 1000);
+    }
+
+    private static void writeSamples(DataWriter dw, int count) throws IOException {
+        for (int i = 0; i < count; i++) {
+            dw.writeObject(new LatLonTsTz(new LatLon(1.5 + i, 2.25), new TsTz(100000L + i, 234)));
+        }
+    }
+
+    private static void readSamples(DataReader dr, int count) throws IOException {
+        for (int i = 0; i < count; i++) {
+            assertThat(dr.readObject()).isEqualTo(new LatLonTsTz(new LatLon(1.5 + i, 2.25), new TsTz(100000L + i, 234)));
+        }
+    }
+
+    private static byte[] encode(ColumnCodec codec, byte[] data) throws IOException {
+        ByteArrayOutputStream os = new ByteArrayOutputStream();
+        try (OutputStream encoder = codec.encode(os)) {
+            int split = data.length / 3;
+            encoder.write(data, 0, split);
+            if (split < data.length) {
+                encoder.write(data[split]);
+                encoder.write(data, split + 1, data.length - split - 1);
+            }
+        }
+        return os.toByteArray();
+    }
+
+    private static byte[] decode(ColumnCodec codec, byte[] data) throws IOException {
+        ByteArrayOutputStream os = new ByteArrayOutputStream();
+        try (InputStream decoder = codec.decode(new ByteArrayInputStream(data))) {
+            byte[] chunk = new byte[1000];
+            int read;
+            while ((read = decoder.read(chunk)) >= 0) {
+                os.write(chunk, 0, read);
+            }
+        }
+        return os.toByteArray();
+    }
+}
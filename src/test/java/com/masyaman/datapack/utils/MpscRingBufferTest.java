@@ -0,0 +1,71 @@
+package com.masyaman.datapack.utils;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class MpscRingBufferTest {
+
+    @Test
+    public void testOfferAndPoll() throws Exception {
+        MpscRingBuffer<Integer> buffer = new MpscRingBuffer<>(3);
+        assertThat(buffer.capacity()).isEqualTo(4);
+        assertThat(buffer.poll()).isNull();
+        for (int round = 0; round < 3; round++) {
+            for (int i = 0; i < 4; i++) {
+                assertThat(buffer.offer(i)).isTrue();
+            }
+            assertThat(buffer.offer(4)).isFalse();
+            assertThat(buffer.size()).isEqualTo(4);
+            for (int i = 0; i < 4; i++) {
+                assertThat(buffer.poll()).isEqualTo(i);
+            }
+            assertThat(buffer.poll()).isNull();
+        }
+        assertThat(buffer.offered()).isEqualTo(12);
+        assertThat(buffer.polled()).isEqualTo(12);
+    }
+
+    @Test
+    public void testConcurrentProducers() throws Exception {
+        MpscRingBuffer<Integer> buffer = new MpscRingBuffer<>(64);
+        int producers = 4;
+        int count = 100000;
+        List<Thread> threads = new ArrayList<>();
+        for (int p = 0; p < producers; p++) {
+            final int producer = p;
+            threads.add(new Thread(new Runnable() {
+                @Override
+                public void run() {
+                    for (int i = 0; i < count; i++) {
+                        while (!buffer.offer(producer * count + i)) {
+                            Thread.yield();
+                        }
+                    }
+                }
+            }));
+        }
+        for (Thread thread : threads) {
+            thread.start();
+        }
+
+        int[] next = new int[producers];
+        for (int received = 0; received < producers * count; ) {
+            Integer value = buffer.poll();
+            if (value == null) {
+                Thread.yield();
+                continue;
+            }
+            // Order of each producer is kept
+            assertThat(value % count).isEqualTo(next[value / count]++);
+            received++;
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        assertThat(buffer.poll()).isNull();
+    }
+}